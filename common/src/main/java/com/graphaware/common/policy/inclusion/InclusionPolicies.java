@@ -150,6 +150,19 @@ public class InclusionPolicies {
         return relationshipPropertyInclusionPolicy;
     }
 
+    /**
+     * Check whether these policies include all nodes, relationships, and their properties, i.e. whether filtering
+     * with them can be skipped altogether.
+     *
+     * @return true iff all contained policies are the include-all ones.
+     */
+    public boolean includesEverything() {
+        return nodeInclusionPolicy == IncludeAllNodes.getInstance()
+                && nodePropertyInclusionPolicy == IncludeAllNodeProperties.getInstance()
+                && relationshipInclusionPolicy == IncludeAllRelationships.getInstance()
+                && relationshipPropertyInclusionPolicy == IncludeAllRelationshipProperties.getInstance();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
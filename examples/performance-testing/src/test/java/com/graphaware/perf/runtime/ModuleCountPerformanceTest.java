@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.perf.runtime;
+
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy;
+import com.graphaware.runtime.GraphAwareRuntime;
+import com.graphaware.runtime.GraphAwareRuntimeFactory;
+import com.graphaware.runtime.config.FluentTxDrivenModuleConfiguration;
+import com.graphaware.runtime.config.TxDrivenModuleConfiguration;
+import com.graphaware.runtime.module.BaseTxDrivenModule;
+import com.graphaware.test.performance.EnumParameter;
+import com.graphaware.test.performance.ExponentialParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import com.graphaware.test.util.TestUtils;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PerformanceTest} measuring the latency of a transaction commit against the number of registered
+ * {@link com.graphaware.runtime.module.TxDrivenModule}s, with all modules either sharing the same
+ * {@link InclusionPolicies}, or each using different (but equally inclusive) policies.
+ */
+public class ModuleCountPerformanceTest implements PerformanceTest {
+
+    private static final String NUMBER_OF_MODULES = "numberOfModules";
+    private static final String POLICIES = "policies";
+
+    private static final int NO_NODES = 1000;
+
+    private static final Label PERSON = Label.label("Person");
+    private static final RelationshipType FRIEND_OF = RelationshipType.withName("FRIEND_OF");
+
+    enum Policies {
+        SHARED,
+        DISTINCT
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String shortName() {
+        return "commit-latency-module-count";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String longName() {
+        return "Commit latency against the number of registered transaction-driven modules";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new EnumParameter(POLICIES, Policies.class));
+        result.add(new ExponentialParameter(NUMBER_OF_MODULES, 2, 0, 4, 1));
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 10;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int measuredRuns() {
+        return 50;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+        GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database);
+
+        int numberOfModules = (int) params.get(NUMBER_OF_MODULES);
+        for (int i = 0; i < numberOfModules; i++) {
+            runtime.registerModule(new CountingModule("M" + i, configuration((Policies) params.get(POLICIES), i)));
+        }
+
+        runtime.start();
+        runtime.waitUntilStarted();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long run(final GraphDatabaseService database, Map<String, Object> params) {
+        return TestUtils.time(() -> {
+            try (Transaction tx = database.beginTx()) {
+                Node previous = null;
+                for (int i = 0; i < NO_NODES; i++) {
+                    Node node = database.createNode(PERSON);
+                    node.setProperty("name", "Person " + i);
+                    if (previous != null) {
+                        previous.createRelationshipTo(node, FRIEND_OF);
+                    }
+                    previous = node;
+                }
+                tx.success();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.AFTER_PARAM_CHANGE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        throw new UnsupportedOperationException("This should not be called, since database rebuilt after param change");
+    }
+
+    private TxDrivenModuleConfiguration configuration(Policies policies, int moduleNumber) {
+        switch (policies) {
+            case SHARED:
+                return FluentTxDrivenModuleConfiguration.defaultConfiguration();
+            case DISTINCT:
+                //an always-true expression, different for each module, so that policies aren't equal
+                return FluentTxDrivenModuleConfiguration.defaultConfiguration().with(new SpelNodeInclusionPolicy(moduleNumber + " >= 0"));
+            default:
+                throw new IllegalStateException("Unknown policies " + policies);
+        }
+    }
+
+    /**
+     * Module that touches all created nodes and relationships, representing a typical cheap module.
+     */
+    private static class CountingModule extends BaseTxDrivenModule<Void> {
+
+        private final TxDrivenModuleConfiguration configuration;
+
+        CountingModule(String moduleId, TxDrivenModuleConfiguration configuration) {
+            super(moduleId);
+            this.configuration = configuration;
+        }
+
+        @Override
+        public TxDrivenModuleConfiguration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public Void beforeCommit(ImprovedTransactionData transactionData) {
+            for (Node node : transactionData.getAllCreatedNodes()) {
+                node.getProperty("name");
+            }
+            transactionData.getAllCreatedRelationships();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.perf.runtime;
+
+import com.graphaware.common.util.Change;
+import com.graphaware.runtime.GraphAwareRuntime;
+import com.graphaware.runtime.GraphAwareRuntimeFactory;
+import com.graphaware.runtime.module.BaseTxDrivenModule;
+import com.graphaware.test.performance.ExponentialParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import com.graphaware.test.util.TestUtils;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import com.graphaware.tx.executor.NullItem;
+import com.graphaware.tx.executor.batch.NoInputBatchTransactionExecutor;
+import com.graphaware.tx.executor.batch.UnitOfWork;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PerformanceTest} measuring the time it takes to import a large number of relationships in a single
+ * transaction, with a module registered that computes the degree of every affected node before and after the transaction.
+ */
+public class RelationshipImportPerformanceTest implements PerformanceTest {
+
+    private static final String NUMBER_OF_NODES = "numberOfNodes";
+
+    private static final int NO_RELATIONSHIPS = 200_000;
+
+    private static final RelationshipType FRIEND_OF = RelationshipType.withName("FRIEND_OF");
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String shortName() {
+        return "relationship-import";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String longName() {
+        return "Import of " + NO_RELATIONSHIPS + " relationships in one transaction with a degree-tracking module";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new ExponentialParameter(NUMBER_OF_NODES, 10, 2, 4, 1));
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int measuredRuns() {
+        return 5;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+        new NoInputBatchTransactionExecutor(database, 1000, (int) params.get(NUMBER_OF_NODES), new UnitOfWork<NullItem>() {
+            @Override
+            public void execute(GraphDatabaseService database, NullItem input, int batchNumber, int stepNumber) {
+                database.createNode();
+            }
+        }).execute();
+
+        GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database);
+        runtime.registerModule(new DegreeTrackingModule("DEGREE"));
+        runtime.start();
+        runtime.waitUntilStarted();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long run(final GraphDatabaseService database, Map<String, Object> params) {
+        final int numberOfNodes = (int) params.get(NUMBER_OF_NODES);
+
+        return TestUtils.time(() -> {
+            try (Transaction tx = database.beginTx()) {
+                for (int i = 0; i < NO_RELATIONSHIPS; i++) {
+                    Node start = database.getNodeById(RANDOM.nextInt(numberOfNodes));
+                    Node end = database.getNodeById(RANDOM.nextInt(numberOfNodes));
+                    start.createRelationshipTo(end, FRIEND_OF);
+                    start.setProperty("lastImport", i);
+                    end.setProperty("lastImport", i);
+                }
+                tx.success();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.AFTER_EVERY_RUN;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        throw new UnsupportedOperationException("This should not be called, since database rebuilt after every run");
+    }
+
+    /**
+     * Module that computes the change in degree of every changed node.
+     */
+    private static class DegreeTrackingModule extends BaseTxDrivenModule<Void> {
+
+        DegreeTrackingModule(String moduleId) {
+            super(moduleId);
+        }
+
+        @Override
+        public Void beforeCommit(ImprovedTransactionData transactionData) {
+            for (Change<Node> change : transactionData.getAllChangedNodes()) {
+                int delta = change.getCurrent().getDegree(FRIEND_OF) - change.getPrevious().getDegree(FRIEND_OF);
+                if (delta < 0) {
+                    throw new IllegalStateException("Only relationships are created, degree can't decrease");
+                }
+            }
+            return null;
+        }
+    }
+}
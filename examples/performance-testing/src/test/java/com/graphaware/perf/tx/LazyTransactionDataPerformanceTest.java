@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.perf.tx;
+
+import com.graphaware.common.util.Change;
+import com.graphaware.test.performance.EnumParameter;
+import com.graphaware.test.performance.ExponentialParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import com.graphaware.tx.event.improved.api.LazyTransactionData;
+import com.graphaware.tx.executor.NullItem;
+import com.graphaware.tx.executor.batch.NoInputBatchTransactionExecutor;
+import com.graphaware.tx.executor.batch.UnitOfWork;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PerformanceTest} measuring the cost of processing a large transaction through {@link LazyTransactionData}.
+ * Every run changes a property of, and creates, the given number of nodes in a single transaction. The measurement
+ * covers only the work done with the {@link ImprovedTransactionData} before commit; it is either the latency in
+ * microseconds, or the number of kilobytes allocated by the committing thread.
+ */
+public class LazyTransactionDataPerformanceTest implements PerformanceTest {
+
+    private static final String ENTITIES = "entities";
+    private static final String MEASUREMENT = "measurement";
+
+    enum Measurement {
+        LATENCY,
+        ALLOCATION
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String shortName() {
+        return "lazy-transaction-data";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String longName() {
+        return "Latency and allocation of LazyTransactionData for large transactions";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new EnumParameter(MEASUREMENT, Measurement.class));
+        result.add(new ExponentialParameter(ENTITIES, 10, 4, 6, 1));
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 2;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int measuredRuns() {
+        return 5;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+        new NoInputBatchTransactionExecutor(database, 10_000, (int) params.get(ENTITIES), new UnitOfWork<NullItem>() {
+            @Override
+            public void execute(GraphDatabaseService database, NullItem input, int batchNumber, int stepNumber) {
+                database.createNode().setProperty("value", 0);
+            }
+        }).execute();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long run(GraphDatabaseService database, Map<String, Object> params) {
+        int entities = (int) params.get(ENTITIES);
+        MeasuringHandler handler = new MeasuringHandler((Measurement) params.get(MEASUREMENT));
+
+        database.registerTransactionEventHandler(handler);
+
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < entities; i++) {
+                database.getNodeById(i).setProperty("value", RANDOM.nextInt());
+                database.createNode().setProperty("value", i);
+            }
+            tx.success();
+        } finally {
+            database.unregisterTransactionEventHandler(handler);
+        }
+
+        return handler.result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.AFTER_EVERY_RUN;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        throw new UnsupportedOperationException("This should not be called, since database rebuilt after every run");
+    }
+
+    /**
+     * Handler doing what a typical module does with the transaction data and measuring its cost.
+     */
+    private static class MeasuringHandler extends TransactionEventHandler.Adapter<Void> {
+
+        private final Measurement measurement;
+        private long result;
+
+        MeasuringHandler(Measurement measurement) {
+            this.measurement = measurement;
+        }
+
+        @Override
+        public Void beforeCommit(TransactionData data) throws Exception {
+            long startTime = System.nanoTime();
+            long startBytes = allocatedBytes();
+
+            ImprovedTransactionData transactionData = new LazyTransactionData(data);
+
+            for (Node created : transactionData.getAllCreatedNodes()) {
+                transactionData.hasBeenCreated(created);
+            }
+
+            for (Change<Node> changed : transactionData.getAllChangedNodes()) {
+                transactionData.changedProperties(changed.getPrevious());
+                changed.getPrevious().getProperty("value");
+            }
+
+            switch (measurement) {
+                case LATENCY:
+                    result = (System.nanoTime() - startTime) / 1000;
+                    break;
+                case ALLOCATION:
+                    result = (allocatedBytes() - startBytes) / 1024;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown measurement " + measurement);
+            }
+
+            return null;
+        }
+
+        private long allocatedBytes() {
+            return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
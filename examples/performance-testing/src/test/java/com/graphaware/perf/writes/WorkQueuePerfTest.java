@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.perf.writes;
+
+import com.graphaware.writer.service.BlockingDequeWorkQueue;
+import com.graphaware.writer.service.RingBufferWorkQueue;
+import com.graphaware.writer.service.WorkQueue;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput comparison of {@link WorkQueue} implementations with 1, 4, and 16 producers and a single consumer.
+ */
+@Ignore
+public class WorkQueuePerfTest {
+
+    private static final int CAPACITY = 10_000;
+    private static final int TASKS = 10_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    public void compareThroughput() throws InterruptedException {
+        for (int producers : new int[]{1, 4, 16}) {
+            System.out.println(producers + " producer(s):");
+            System.out.println("  LinkedBlockingDeque: " + opsPerSecond(new BlockingDequeWorkQueue<Object>(CAPACITY), producers) + " ops/s");
+            System.out.println("  Ring buffer:         " + opsPerSecond(new RingBufferWorkQueue<Object>(CAPACITY), producers) + " ops/s");
+        }
+    }
+
+    private long opsPerSecond(WorkQueue<Object> queue, int producers) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(queue, producers);
+        }
+
+        long total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            total += run(queue, producers);
+        }
+
+        return TASKS * MEASURED_ROUNDS * TimeUnit.SECONDS.toNanos(1) / total;
+    }
+
+    private long run(final WorkQueue<Object> queue, int producers) throws InterruptedException {
+        final Object task = new Object();
+        final int perProducer = TASKS / producers;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < perProducer; i++) {
+                            while (!queue.offer(task)) {
+                                Thread.yield();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+
+        int received = 0;
+        while (received < perProducer * producers) {
+            if (queue.poll() != null) {
+                received++;
+            }
+        }
+
+        long time = System.nanoTime() - startTime;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        return time;
+    }
+}
@@ -141,7 +141,7 @@ public class WritePerformanceTest implements PerformanceTest {
                     @Override
                     protected boolean offer(RunnableFuture<?> futureTask) {
                         try {
-                            return queue.offer(futureTask, 1, TimeUnit.MINUTES);
+                            return offer(futureTask, 1, TimeUnit.MINUTES);
                         } catch (InterruptedException e) {
                             return false;
                         }
@@ -21,5 +21,5 @@ package com.graphaware.runtime.write;
  */
 public enum DatabaseWriterType {
 
-    DEFAULT, SINGLE_THREADED, BATCH
+    DEFAULT, SINGLE_THREADED, BATCH, PARTITIONED, DEDUPLICATING
 }
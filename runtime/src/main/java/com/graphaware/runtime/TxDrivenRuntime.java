@@ -18,6 +18,7 @@ package com.graphaware.runtime;
 
 import com.graphaware.runtime.config.RuntimeConfiguration;
 import com.graphaware.runtime.manager.TxDrivenModuleManager;
+import com.graphaware.runtime.metrics.RuntimeMetrics;
 import com.graphaware.runtime.module.RuntimeModule;
 import com.graphaware.runtime.module.TxDrivenModule;
 import com.graphaware.tx.event.improved.api.LazyTransactionData;
@@ -100,6 +101,16 @@ public abstract class TxDrivenRuntime<T extends TxDrivenModule> extends BaseGrap
         getTxDrivenModuleManager().afterRollback(states);
     }
 
+    /**
+     * Get metrics of the transaction-driven modules registered with this runtime, such as latencies of their
+     * <code>beforeCommit</code> calls, and of the runtime's database writer. The same metrics are exposed via JMX.
+     *
+     * @return metrics.
+     */
+    public RuntimeMetrics getMetrics() {
+        return getTxDrivenModuleManager().getMetrics();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -145,6 +156,7 @@ public abstract class TxDrivenRuntime<T extends TxDrivenModule> extends BaseGrap
     protected void startModules() {
         super.startModules();
         getTxDrivenModuleManager().startModules();
+        getMetrics().registerDatabaseWriter(getDatabaseWriter());
     }
 
     /**
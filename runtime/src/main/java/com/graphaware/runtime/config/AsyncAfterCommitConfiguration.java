@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.config;
+
+import java.io.File;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Configuration of asynchronous dispatch of {@link com.graphaware.runtime.module.TxDrivenModule#afterCommit(Object)}
+ * calls for modules that opt into it by implementing {@link com.graphaware.runtime.module.AsyncAfterCommitModule}.
+ * Immutable, with fluent interface.
+ */
+public final class AsyncAfterCommitConfiguration {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    /**
+     * What to do with a state when the module's queue is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Block the committing thread until there is room in the queue.
+         */
+        BLOCK,
+
+        /**
+         * Drop the state (and count it as dropped).
+         */
+        DROP,
+
+        /**
+         * Serialize the state to disk and process it once everything queued before it has been processed. States
+         * that aren't {@link java.io.Serializable} are handled as with {@link #BLOCK}.
+         */
+        SPILL
+    }
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final File spillDirectory;
+
+    /**
+     * Create an instance with default configuration, i.e. a queue capacity of {@link #DEFAULT_QUEUE_CAPACITY} and
+     * {@link OverflowPolicy#BLOCK}.
+     *
+     * @return instance.
+     */
+    public static AsyncAfterCommitConfiguration defaultConfiguration() {
+        return new AsyncAfterCommitConfiguration(DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    private AsyncAfterCommitConfiguration(int queueCapacity, OverflowPolicy overflowPolicy, File spillDirectory) {
+        isTrue(queueCapacity > 0, "Queue capacity must be positive");
+        notNull(overflowPolicy);
+        notNull(spillDirectory);
+
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Return a new instance of this configuration with a different queue capacity.
+     *
+     * @param queueCapacity of the new instance. Must be positive.
+     * @return new instance.
+     */
+    public AsyncAfterCommitConfiguration withQueueCapacity(int queueCapacity) {
+        return new AsyncAfterCommitConfiguration(queueCapacity, overflowPolicy, spillDirectory);
+    }
+
+    /**
+     * Return a new instance of this configuration with a different overflow policy.
+     *
+     * @param overflowPolicy of the new instance.
+     * @return new instance.
+     */
+    public AsyncAfterCommitConfiguration withOverflowPolicy(OverflowPolicy overflowPolicy) {
+        return new AsyncAfterCommitConfiguration(queueCapacity, overflowPolicy, spillDirectory);
+    }
+
+    /**
+     * Return a new instance of this configuration with a different directory for spilling states to disk. Only used
+     * with {@link OverflowPolicy#SPILL}. Defaults to the system's temp directory.
+     *
+     * @param spillDirectory of the new instance.
+     * @return new instance.
+     */
+    public AsyncAfterCommitConfiguration withSpillDirectory(File spillDirectory) {
+        return new AsyncAfterCommitConfiguration(queueCapacity, overflowPolicy, spillDirectory);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        AsyncAfterCommitConfiguration that = (AsyncAfterCommitConfiguration) o;
+
+        if (queueCapacity != that.queueCapacity) return false;
+        if (overflowPolicy != that.overflowPolicy) return false;
+        if (!spillDirectory.equals(that.spillDirectory)) return false;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = queueCapacity;
+        result = 31 * result + overflowPolicy.hashCode();
+        result = 31 * result + spillDirectory.hashCode();
+        return result;
+    }
+}
@@ -20,6 +20,7 @@ import com.graphaware.common.ping.GoogleAnalyticsStatsCollector;
 import com.graphaware.common.ping.NullStatsCollector;
 import com.graphaware.common.ping.StatsCollector;
 import com.graphaware.runtime.config.function.StringToDatabaseWriterType;
+import com.graphaware.runtime.config.function.StringToOverflowPolicyType;
 import com.graphaware.runtime.config.function.StringToTimingStrategy;
 import com.graphaware.runtime.schedule.AdaptiveTimingStrategy;
 import com.graphaware.runtime.schedule.FixedDelayTimingStrategy;
@@ -27,13 +28,19 @@ import com.graphaware.runtime.schedule.TimingStrategy;
 import com.graphaware.runtime.write.DatabaseWriterType;
 import com.graphaware.runtime.write.FluentWritingConfig;
 import com.graphaware.runtime.write.WritingConfig;
+import com.graphaware.writer.neo4j.AdaptiveBatchSize;
 import com.graphaware.writer.neo4j.BatchWriter;
+import com.graphaware.writer.neo4j.DeduplicatingWriter;
 import com.graphaware.writer.neo4j.DefaultWriter;
+import com.graphaware.writer.neo4j.PartitionedWriter;
 import com.graphaware.writer.neo4j.TxPerTaskWriter;
+import com.graphaware.writer.service.OverflowPolicy;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.config.Setting;
 import org.neo4j.kernel.configuration.Config;
 
+import java.io.File;
+
 import static org.neo4j.kernel.configuration.Settings.*;
 
 /**
@@ -62,7 +69,7 @@ import static org.neo4j.kernel.configuration.Settings.*;
  *     com.graphaware.runtime.timing.initialDelay=1000
  * </pre>
  * <p>
- * For {@link WritingConfig}, there are three choices:
+ * For {@link WritingConfig}, there are five choices:
  * <pre>
  *     com.graphaware.runtime.db.writer=default
  * </pre>
@@ -73,7 +80,14 @@ import static org.neo4j.kernel.configuration.Settings.*;
  *     #optional queue size, defaults to 10,000
  *     com.graphaware.runtime.db.writer.queueSize=10000
  * </pre>
- * results in a {@link TxPerTaskWriter} being constructed with the configured queue size
+ * results in a {@link TxPerTaskWriter} being constructed with the configured queue size. Consecutive tasks can be
+ * coalesced into a single transaction using
+ * <pre>
+ *     #maximum number of tasks per transaction, defaults to 1 (no coalescing)
+ *     com.graphaware.runtime.db.writer.coalesceTasks=100
+ *     #optional maximum time a coalesced transaction stays open, defaults to 100 ms
+ *     com.graphaware.runtime.db.writer.coalesceMillis=100
+ * </pre>
  * <p>
  * <pre>
  *     com.graphaware.runtime.db.writer=batch
@@ -82,7 +96,48 @@ import static org.neo4j.kernel.configuration.Settings.*;
  *     #optional batch size, defaults to 1,000
  *     com.graphaware.runtime.db.writer.batchSize=1000
  * </pre>
- * results in a {@link BatchWriter} being constructed with the configured queue and batch sizes.
+ * results in a {@link BatchWriter} being constructed with the configured queue and batch sizes. Instead of a fixed batch
+ * size, an {@link AdaptiveBatchSize} tuned towards a target latency per batch can be used:
+ * <pre>
+ *     com.graphaware.runtime.db.writer=batch
+ *     #target latency of a batch in ms, enables adaptive batch size
+ *     com.graphaware.runtime.db.writer.targetBatchLatency=50
+ *     #optional bounds of the adaptive batch size, default to 1 and 10,000
+ *     com.graphaware.runtime.db.writer.minBatchSize=1
+ *     com.graphaware.runtime.db.writer.maxBatchSize=10000
+ * </pre>
+ * <p>
+ * <pre>
+ *     com.graphaware.runtime.db.writer=partitioned
+ *     #optional queue size of each lane, defaults to 10,000
+ *     com.graphaware.runtime.db.writer.queueSize=10000
+ *     #optional number of lanes, defaults to the number of available processors
+ *     com.graphaware.runtime.db.writer.lanes=8
+ *     #optional number of retries of deadlocked tasks, defaults to 3
+ *     com.graphaware.runtime.db.writer.deadlockRetries=3
+ * </pre>
+ * results in a {@link PartitionedWriter} being constructed with the configured queue size, lanes, and retries.
+ * <p>
+ * <pre>
+ *     com.graphaware.runtime.db.writer=deduplicating
+ *     #optional queue size, defaults to 10,000
+ *     com.graphaware.runtime.db.writer.queueSize=10000
+ *     #optional batch size, defaults to 1,000
+ *     com.graphaware.runtime.db.writer.batchSize=1000
+ * </pre>
+ * results in a {@link DeduplicatingWriter} being constructed with the configured queue and batch sizes. Tasks written
+ * with a key supersede queued tasks with an equal key.
+ * <p>
+ * For {@link TxPerTaskWriter}, {@link BatchWriter}, {@link PartitionedWriter}, and {@link DeduplicatingWriter}, the {@link OverflowPolicy} applied when the queue is full
+ * can be configured using
+ * <pre>
+ *     #one of drop (default), dropOldest, block, callerRuns, spill
+ *     com.graphaware.runtime.db.writer.overflowPolicy=block
+ *     #optional, how long to block (for block, and for spill when a task can't be spilled), defaults to 10,000 ms
+ *     com.graphaware.runtime.db.writer.overflowTimeout=10000
+ *     #optional, where to create the spill log (for spill), defaults to java.io.tmpdir
+ *     com.graphaware.runtime.db.writer.spillDirectory=/var/lib/neo4j/spill
+ * </pre>
  * <p>
  * For {@link StatsCollector}, {@link GoogleAnalyticsStatsCollector} is used by default. For disabling statistics reporting, use
  * <pre>
@@ -96,6 +151,16 @@ public final class Neo4jConfigBasedRuntimeConfiguration extends BaseRuntimeConfi
     private static final Setting<DatabaseWriterType> DATABASE_WRITER_TYPE_SETTING = setting("com.graphaware.runtime.db.writer", StringToDatabaseWriterType.getInstance(), (String) null);
     private static final Setting<Integer> WRITER_QUEUE_SIZE = setting("com.graphaware.runtime.db.writer.queueSize", INTEGER, (String) null);
     private static final Setting<Integer> WRITER_BATCH_SIZE = setting("com.graphaware.runtime.db.writer.batchSize", INTEGER, (String) null);
+    private static final Setting<Long> WRITER_TARGET_BATCH_LATENCY = setting("com.graphaware.runtime.db.writer.targetBatchLatency", LONG, (String) null);
+    private static final Setting<Integer> WRITER_MIN_BATCH_SIZE = setting("com.graphaware.runtime.db.writer.minBatchSize", INTEGER, (String) null);
+    private static final Setting<Integer> WRITER_MAX_BATCH_SIZE = setting("com.graphaware.runtime.db.writer.maxBatchSize", INTEGER, (String) null);
+    private static final Setting<Integer> WRITER_LANES = setting("com.graphaware.runtime.db.writer.lanes", INTEGER, (String) null);
+    private static final Setting<Integer> WRITER_DEADLOCK_RETRIES = setting("com.graphaware.runtime.db.writer.deadlockRetries", INTEGER, (String) null);
+    private static final Setting<Integer> WRITER_COALESCE_TASKS = setting("com.graphaware.runtime.db.writer.coalesceTasks", INTEGER, (String) null);
+    private static final Setting<Long> WRITER_COALESCE_MILLIS = setting("com.graphaware.runtime.db.writer.coalesceMillis", LONG, (String) null);
+    private static final Setting<OverflowPolicy.Type> WRITER_OVERFLOW_POLICY = setting("com.graphaware.runtime.db.writer.overflowPolicy", StringToOverflowPolicyType.getInstance(), (String) null);
+    private static final Setting<Long> WRITER_OVERFLOW_TIMEOUT = setting("com.graphaware.runtime.db.writer.overflowTimeout", LONG, (String) null);
+    private static final Setting<String> WRITER_SPILL_DIRECTORY = setting("com.graphaware.runtime.db.writer.spillDirectory", STRING, (String) null);
 
     //timing
     private static final Setting<TimingStrategy> TIMING_STRATEGY_SETTING = setting("com.graphaware.runtime.timing.strategy", StringToTimingStrategy.getInstance(), (String) null);
@@ -198,9 +263,53 @@ public final class Neo4jConfigBasedRuntimeConfiguration extends BaseRuntimeConfi
             result = result.withBatchSize(config.get(WRITER_BATCH_SIZE));
         }
 
+        if (config.get(WRITER_TARGET_BATCH_LATENCY) != null) {
+            result = result.withAdaptiveBatchSize(
+                    config.get(WRITER_MIN_BATCH_SIZE) != null ? config.get(WRITER_MIN_BATCH_SIZE) : AdaptiveBatchSize.DEFAULT_MIN_BATCH_SIZE,
+                    config.get(WRITER_MAX_BATCH_SIZE) != null ? config.get(WRITER_MAX_BATCH_SIZE) : AdaptiveBatchSize.DEFAULT_MAX_BATCH_SIZE,
+                    config.get(WRITER_TARGET_BATCH_LATENCY));
+        }
+
+        if (config.get(WRITER_LANES) != null) {
+            result = result.withLanes(config.get(WRITER_LANES));
+        }
+
+        if (config.get(WRITER_DEADLOCK_RETRIES) != null) {
+            result = result.withDeadlockRetries(config.get(WRITER_DEADLOCK_RETRIES));
+        }
+
+        if (config.get(WRITER_COALESCE_TASKS) != null) {
+            long coalesceMillis = config.get(WRITER_COALESCE_MILLIS) != null ? config.get(WRITER_COALESCE_MILLIS) : TxPerTaskWriter.DEFAULT_MAX_TRANSACTION_MILLIS;
+            result = result.withTxCoalescing(config.get(WRITER_COALESCE_TASKS), coalesceMillis);
+        }
+
+        if (config.get(WRITER_OVERFLOW_POLICY) != null) {
+            result = result.withOverflowPolicy(createOverflowPolicy(config));
+        }
+
         return result;
     }
 
+    private static OverflowPolicy createOverflowPolicy(Config config) {
+        long timeout = config.get(WRITER_OVERFLOW_TIMEOUT) != null ? config.get(WRITER_OVERFLOW_TIMEOUT) : OverflowPolicy.DEFAULT_TIMEOUT_MS;
+
+        switch (config.get(WRITER_OVERFLOW_POLICY)) {
+            case DROP_NEWEST:
+                return OverflowPolicy.dropNewest();
+            case DROP_OLDEST:
+                return OverflowPolicy.dropOldest();
+            case BLOCK:
+                return OverflowPolicy.block(timeout);
+            case CALLER_RUNS:
+                return OverflowPolicy.callerRuns();
+            case SPILL:
+                String directory = config.get(WRITER_SPILL_DIRECTORY) != null ? config.get(WRITER_SPILL_DIRECTORY) : System.getProperty("java.io.tmpdir");
+                return OverflowPolicy.spill(new File(directory), timeout);
+        }
+
+        throw new IllegalStateException("Unknown overflow policy!");
+    }
+
     private static StatsCollector createStatsCollector(GraphDatabaseService database, Config config) {
         if (config.get(STATS_DISABLE_SETTING_LEGACY)) {
             return NullStatsCollector.getInstance();
@@ -28,6 +28,8 @@ public final class StringToDatabaseWriterType implements Function<String, Databa
     public static final String DEFAULT = "default";
     public static final String SINGLE_THREADED = "single";
     public static final String BATCH = "batch";
+    public static final String PARTITIONED = "partitioned";
+    public static final String DEDUPLICATING = "deduplicating";
 
     private static StringToDatabaseWriterType INSTANCE = new StringToDatabaseWriterType();
 
@@ -52,6 +54,14 @@ public final class StringToDatabaseWriterType implements Function<String, Databa
             return DatabaseWriterType.BATCH;
         }
 
+        if (s.equalsIgnoreCase(PARTITIONED)) {
+            return DatabaseWriterType.PARTITIONED;
+        }
+
+        if (s.equalsIgnoreCase(DEDUPLICATING)) {
+            return DatabaseWriterType.DEDUPLICATING;
+        }
+
         throw new IllegalStateException("Unknown database writer: " + s);
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.config.function;
+
+import com.graphaware.writer.service.OverflowPolicy;
+
+import java.util.function.Function;
+
+/**
+ * A {@link Function} that converts String to {@link OverflowPolicy.Type}. Singleton.
+ */
+public final class StringToOverflowPolicyType implements Function<String, OverflowPolicy.Type> {
+
+    public static final String DROP_NEWEST = "drop";
+    public static final String DROP_OLDEST = "dropOldest";
+    public static final String BLOCK = "block";
+    public static final String CALLER_RUNS = "callerRuns";
+    public static final String SPILL = "spill";
+
+    private static StringToOverflowPolicyType INSTANCE = new StringToOverflowPolicyType();
+
+    public static StringToOverflowPolicyType getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OverflowPolicy.Type apply(String s) {
+        if (s.equalsIgnoreCase(DROP_NEWEST)) {
+            return OverflowPolicy.Type.DROP_NEWEST;
+        }
+
+        if (s.equalsIgnoreCase(DROP_OLDEST)) {
+            return OverflowPolicy.Type.DROP_OLDEST;
+        }
+
+        if (s.equalsIgnoreCase(BLOCK)) {
+            return OverflowPolicy.Type.BLOCK;
+        }
+
+        if (s.equalsIgnoreCase(CALLER_RUNS)) {
+            return OverflowPolicy.Type.CALLER_RUNS;
+        }
+
+        if (s.equalsIgnoreCase(SPILL)) {
+            return OverflowPolicy.Type.SPILL;
+        }
+
+        throw new IllegalStateException("Unknown overflow policy: " + s);
+    }
+}
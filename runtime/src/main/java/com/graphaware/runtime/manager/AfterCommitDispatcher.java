@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.manager;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.runtime.config.AsyncAfterCommitConfiguration;
+import com.graphaware.runtime.metrics.TxDrivenModuleMetrics;
+import com.graphaware.runtime.module.AsyncAfterCommitModule;
+import org.neo4j.logging.Log;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatcher of {@link AsyncAfterCommitModule#afterCommit(Object)} calls for a single module. States are put into a
+ * bounded queue by committing threads and passed to the module by a single worker thread, in the order in which they
+ * have been enqueued. What happens when the queue is full is determined by the module's
+ * {@link AsyncAfterCommitConfiguration.OverflowPolicy}.
+ * <p/>
+ * With {@link AsyncAfterCommitConfiguration.OverflowPolicy#SPILL}, states that don't fit into the queue are serialized
+ * into files in a temporary directory. Once a state has been spilled, all subsequent states are spilled as well until
+ * the spill has been drained, which preserves the ordering. The spill only lives as long as the dispatcher, it does
+ * not survive a restart of the database.
+ * <p/>
+ * Once the dispatcher has been stopped, the worker processes all the states that have been accepted, including those
+ * of dispatches that were in progress while it was stopping. States that can't be processed any more, because the
+ * worker didn't finish in time, are counted as dropped.
+ */
+class AfterCommitDispatcher<T> {
+
+    private static final Log LOG = LoggerFactory.getLogger(AfterCommitDispatcher.class);
+
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final long SPILL_WAIT_MS = 10;
+
+    private final AsyncAfterCommitModule<T> module;
+    private final TxDrivenModuleMetrics metrics;
+    private final AsyncAfterCommitConfiguration.OverflowPolicy overflowPolicy;
+    private final File spillRoot;
+    private final BlockingQueue<Envelope> queue;
+    private final Thread worker;
+
+    private final Object spillLock = new Object();
+    private File spillDirectory;
+    private long spillHead;
+    private long spillTail;
+
+    private final AtomicInteger dispatching = new AtomicInteger();
+    private volatile boolean running = true;
+    private volatile boolean exited = false;
+
+    /**
+     * Construct a new dispatcher.
+     *
+     * @param module  to dispatch to.
+     * @param metrics of the module, must not be <code>null</code>.
+     */
+    AfterCommitDispatcher(AsyncAfterCommitModule<T> module, TxDrivenModuleMetrics metrics) {
+        AsyncAfterCommitConfiguration configuration = module.getAsyncAfterCommitConfiguration();
+
+        this.module = module;
+        this.metrics = metrics;
+        this.overflowPolicy = configuration.getOverflowPolicy();
+        this.spillRoot = configuration.getSpillDirectory();
+        this.queue = new ArrayBlockingQueue<>(configuration.getQueueCapacity());
+        this.worker = new Thread(this::work, "GraphAware-AfterCommit-" + module.getId());
+        this.worker.setDaemon(true);
+
+        metrics.setAfterCommitQueueDepthGauge(this::depth);
+    }
+
+    /**
+     * Start the worker thread.
+     */
+    void start() {
+        worker.start();
+    }
+
+    /**
+     * Enqueue a state to be passed to the module's <code>afterCommit</code>. Once the dispatcher has been stopped, the
+     * state is rejected and counted as dropped, as the module is being shut down.
+     *
+     * @param state to enqueue.
+     */
+    void dispatch(Object state) {
+        //the worker doesn't exit while a dispatch that has seen the dispatcher running is in progress
+        dispatching.incrementAndGet();
+        try {
+            if (!running) {
+                LOG.warn("After-commit dispatcher of module " + module.getId() + " has been stopped, the state has been dropped.");
+                metrics.dropped();
+                return;
+            }
+
+            Envelope envelope = new Envelope(state, System.nanoTime());
+
+            switch (overflowPolicy) {
+                case BLOCK:
+                    block(envelope);
+                    break;
+                case DROP:
+                    drop(envelope);
+                    break;
+                case SPILL:
+                    spill(envelope);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown overflow policy " + overflowPolicy);
+            }
+
+            //the worker may have been interrupted and exited meanwhile, in which case the state would never be processed
+            synchronized (spillLock) {
+                if (exited) {
+                    discardLeftBehind();
+                }
+            }
+        } finally {
+            dispatching.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stop accepting new states and wait for the worker to process all the enqueued ones.
+     *
+     * @param timeoutMs maximum time to wait for the worker.
+     */
+    void stop(long timeoutMs) {
+        running = false;
+
+        try {
+            worker.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (worker.isAlive()) {
+            LOG.warn("After-commit dispatcher of module " + module.getId() + " did not finish within " + timeoutMs + " ms, " + depth() + " states have not been processed.");
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * @return number of states waiting to be processed, including spilled ones.
+     */
+    long depth() {
+        synchronized (spillLock) {
+            return queue.size() + spillTail - spillHead;
+        }
+    }
+
+    private void block(Envelope envelope) {
+        try {
+            while (!queue.offer(envelope, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (exited) {
+                    LOG.warn("After-commit dispatcher of module " + module.getId() + " has exited, the state has been dropped.");
+                    metrics.dropped();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while enqueuing state for module " + module.getId() + ", the state has been dropped.");
+            metrics.dropped();
+        }
+    }
+
+    private void drop(Envelope envelope) {
+        if (!queue.offer(envelope)) {
+            LOG.warn("After-commit queue of module " + module.getId() + " is full, the state has been dropped.");
+            metrics.dropped();
+        }
+    }
+
+    private void spill(Envelope envelope) {
+        synchronized (spillLock) {
+            if (exited) {
+                LOG.warn("After-commit dispatcher of module " + module.getId() + " has exited, the state has been dropped.");
+                metrics.dropped();
+                return;
+            }
+
+            if (spillHead == spillTail && queue.offer(envelope)) {
+                return;
+            }
+
+            if (envelope.state == null || envelope.state instanceof Serializable) {
+                try {
+                    writeSpill(envelope);
+                    return;
+                } catch (IOException e) {
+                    LOG.warn("Could not spill state of module " + module.getId() + " to disk, will wait for the queue instead.", e);
+                }
+            }
+
+            //cannot spill, so wait until everything enqueued before has been processed and there is room in the queue
+            try {
+                while (!(spillHead == spillTail && queue.offer(envelope))) {
+                    if (exited) {
+                        LOG.warn("After-commit dispatcher of module " + module.getId() + " has exited, the state has been dropped.");
+                        metrics.dropped();
+                        return;
+                    }
+                    spillLock.wait(SPILL_WAIT_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn("Interrupted while enqueuing state for module " + module.getId() + ", the state has been dropped.");
+                metrics.dropped();
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            while (running || dispatching.get() > 0 || depth() > 0) {
+                //spilled states are drained without waiting, the queue stays empty for as long as there are any
+                Envelope envelope = hasSpilled() ? nextSpilled() : null;
+
+                if (envelope == null) {
+                    try {
+                        envelope = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        LOG.warn("After-commit dispatcher of module " + module.getId() + " interrupted, " + depth() + " states have not been processed.");
+                        return;
+                    }
+                }
+
+                if (envelope == null) {
+                    envelope = nextSpilled();
+                }
+
+                if (envelope != null) {
+                    process(envelope);
+                }
+            }
+        } finally {
+            synchronized (spillLock) {
+                exited = true;
+                discardLeftBehind();
+                deleteSpillDirectory();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void process(Envelope envelope) {
+        metrics.getAfterCommitLag().record(System.nanoTime() - envelope.enqueuedNanos);
+
+        long start = System.nanoTime();
+        try {
+            module.afterCommit((T) envelope.state);
+        } catch (RuntimeException e) {
+            LOG.warn("Module " + module.getId() + " threw an exception in afterCommit", e);
+        } finally {
+            metrics.getAfterCommitLatency().record(System.nanoTime() - start);
+        }
+    }
+
+    private boolean hasSpilled() {
+        synchronized (spillLock) {
+            return spillHead != spillTail;
+        }
+    }
+
+    private Envelope nextSpilled() {
+        synchronized (spillLock) {
+            //the queue must be checked again under the lock, states queued before the spill started must go first
+            Envelope envelope = queue.poll();
+            if (envelope != null || spillHead == spillTail) {
+                return envelope;
+            }
+
+            File file = spillFile(spillHead++);
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                return (Envelope) in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                LOG.error("Could not read spilled state of module " + module.getId() + ", the state has been dropped.", e);
+                metrics.dropped();
+                return null;
+            } finally {
+                if (!file.delete()) {
+                    LOG.warn("Could not delete " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    private void writeSpill(Envelope envelope) throws IOException {
+        if (spillDirectory == null) {
+            spillDirectory = Files.createTempDirectory(spillRoot.toPath(), "graphaware-after-commit-").toFile();
+        }
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile(spillTail))))) {
+            out.writeObject(envelope);
+        }
+
+        spillTail++;
+    }
+
+    private File spillFile(long sequence) {
+        return new File(spillDirectory, Long.toString(sequence));
+    }
+
+    /**
+     * Count the states that will never be processed, as the worker has exited, as dropped and delete their spill files.
+     * Must be called while holding the spill lock.
+     */
+    private void discardLeftBehind() {
+        while (queue.poll() != null) {
+            metrics.dropped();
+        }
+
+        while (spillHead != spillTail) {
+            File file = spillFile(spillHead++);
+            if (!file.delete()) {
+                LOG.warn("Could not delete " + file.getAbsolutePath());
+            }
+            metrics.dropped();
+        }
+    }
+
+    private void deleteSpillDirectory() {
+        synchronized (spillLock) {
+            if (spillDirectory != null && !spillDirectory.delete()) {
+                LOG.warn("Could not delete " + spillDirectory.getAbsolutePath());
+            }
+            spillDirectory = null;
+        }
+    }
+
+    private static final class Envelope implements Serializable {
+
+        private final Object state;
+        private final long enqueuedNanos;
+
+        private Envelope(Object state, long enqueuedNanos) {
+            this.state = state;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
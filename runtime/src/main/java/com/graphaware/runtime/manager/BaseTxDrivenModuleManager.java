@@ -18,20 +18,26 @@ package com.graphaware.runtime.manager;
 
 import com.graphaware.common.log.LoggerFactory;
 import com.graphaware.common.ping.StatsCollector;
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
 import com.graphaware.runtime.config.util.InstanceRoleUtils;
 import com.graphaware.runtime.metadata.DefaultTxDrivenModuleMetadata;
 import com.graphaware.runtime.metadata.ModuleMetadataRepository;
 import com.graphaware.runtime.metadata.TxDrivenModuleMetadata;
+import com.graphaware.runtime.metrics.RuntimeMetrics;
+import com.graphaware.runtime.metrics.TxDrivenModuleMetrics;
+import com.graphaware.runtime.module.AsyncAfterCommitModule;
 import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
 import com.graphaware.runtime.module.NeedsInitializationException;
 import com.graphaware.runtime.module.TxDrivenModule;
 import com.graphaware.tx.event.improved.api.FilteredTransactionData;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
 import org.neo4j.logging.Log;
 
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link BaseModuleManager} for {@link TxDrivenModule}s.
@@ -40,7 +46,11 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
 
     private static final Log LOG = LoggerFactory.getLogger(BaseTxDrivenModuleManager.class);
 
+    private static final long DISPATCHER_SHUTDOWN_TIMEOUT_MS = 30_000;
+
     private final InstanceRoleUtils instanceRoleUtils;
+    private final RuntimeMetrics metrics;
+    private final Map<String, AfterCommitDispatcher<?>> dispatchers = new ConcurrentHashMap<>();
 
     /**
      * Construct a new manager.
@@ -50,8 +60,21 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
      * @param instanceRoleUtils  instance role utils.
      */
     protected BaseTxDrivenModuleManager(ModuleMetadataRepository metadataRepository, StatsCollector statsCollector, InstanceRoleUtils instanceRoleUtils) {
+        this(metadataRepository, statsCollector, instanceRoleUtils, new RuntimeMetrics());
+    }
+
+    /**
+     * Construct a new manager.
+     *
+     * @param metadataRepository repository for storing module metadata.
+     * @param statsCollector     stats collector.
+     * @param instanceRoleUtils  instance role utils.
+     * @param metrics            metrics of the modules, qualified by the database they belong to.
+     */
+    protected BaseTxDrivenModuleManager(ModuleMetadataRepository metadataRepository, StatsCollector statsCollector, InstanceRoleUtils instanceRoleUtils, RuntimeMetrics metrics) {
         super(metadataRepository, statsCollector);
         this.instanceRoleUtils = instanceRoleUtils;
+        this.metrics = metrics;
     }
 
     /**
@@ -111,10 +134,39 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
         LOG.info("Starting transaction-driven modules...");
         for (T module : modules.values()) {
             start(module);
+            TxDrivenModuleMetrics moduleMetrics = metrics.register(module.getId());
+
+            if (module instanceof AsyncAfterCommitModule) {
+                AfterCommitDispatcher<?> dispatcher = new AfterCommitDispatcher<>((AsyncAfterCommitModule<?>) module, moduleMetrics);
+                dispatcher.start();
+                dispatchers.put(module.getId(), dispatcher);
+            }
         }
         LOG.info("Transaction-driven modules started.");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdownModules() {
+        for (AfterCommitDispatcher<?> dispatcher : dispatchers.values()) {
+            dispatcher.stop(DISPATCHER_SHUTDOWN_TIMEOUT_MS);
+        }
+        dispatchers.clear();
+
+        super.shutdownModules();
+        metrics.unregisterAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RuntimeMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Start module. This means preparing for doing the actual work. Call in a single-thread exactly once on each module
      * every time the runtime starts.
@@ -125,13 +177,17 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
 
     private void initializeIfAllowed(T module) {
         if (allowedToInitialize(module, "initialize")) {
+            long start = System.currentTimeMillis();
             initialize(module);
+            LOG.info("Initialized module " + module.getId() + " in " + (System.currentTimeMillis() - start) + " ms.");
         }
     }
 
     private void reinitializeIfAllowed(T module, TxDrivenModuleMetadata metadata) {
         if (allowedToInitialize(module, "re-initialize")) {
+            long start = System.currentTimeMillis();
             reinitialize(module, metadata);
+            LOG.info("Re-initialized module " + module.getId() + " in " + (System.currentTimeMillis() - start) + " ms.");
         }
     }
 
@@ -176,7 +232,9 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
      * the method returns, the graph is in the same state as it would be if the module has been running all the time
      * since the graph was empty.
      * <p>
-     * Note that for many modules, it might not be necessary to do anything.
+     * Note that for many modules, it might not be necessary to do anything. Modules re-initializing large graphs using
+     * a {@link com.graphaware.tx.executor.batch.BatchTransactionExecutor} can monitor the progress by registering a
+     * {@link com.graphaware.tx.executor.batch.LoggingProgressListener} with it.
      *
      * @param module      to initialize.
      * @param oldMetadata metadata stored for this module from its previous run. Can be <code>null</code> in case metadata
@@ -190,15 +248,22 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
     @Override
     public Map<String, Object> beforeCommit(TransactionDataContainer transactionData) {
         Map<String, Object> result = new HashMap<>();
+        Map<InclusionPolicies, ImprovedTransactionData> filteredData = new HashMap<>();
 
         for (T module : modules.values()) {
-            FilteredTransactionData filteredTransactionData = new FilteredTransactionData(transactionData, module.getConfiguration().getInclusionPolicies());
+            ImprovedTransactionData filteredTransactionData = filter(transactionData, module, filteredData);
+
+            TxDrivenModuleMetrics moduleMetrics = metrics.getModuleMetrics(module.getId());
 
             if (!filteredTransactionData.mutationsOccurred()) {
+                if (moduleMetrics != null) {
+                    moduleMetrics.skipped();
+                }
                 continue;
             }
 
             Object state = null;
+            long start = System.nanoTime();
 
             try {
                 state = module.beforeCommit(filteredTransactionData);
@@ -212,6 +277,10 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
             } catch (RuntimeException e) {
                 LOG.warn("Module " + module.getId() + " threw an exception", e);
                 return handleException(result, module, state, e);
+            } finally {
+                if (moduleMetrics != null) {
+                    moduleMetrics.getBeforeCommitLatency().record(System.nanoTime() - start);
+                }
             }
 
             result.put(module.getId(), state);
@@ -220,6 +289,32 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
         return result;
     }
 
+    /**
+     * Get transaction data filtered according to the given module's {@link InclusionPolicies}. Modules with equal policies
+     * share a single {@link FilteredTransactionData} instance, so that the cost of filtering is paid once per distinct
+     * set of policies rather than once per module. Modules whose policies include everything get the unfiltered data.
+     *
+     * @param transactionData unfiltered transaction data.
+     * @param module          for which to filter the data.
+     * @param filteredData    filtered data already built for this transaction, keyed by policies. Will be updated.
+     * @return filtered transaction data.
+     */
+    private ImprovedTransactionData filter(TransactionDataContainer transactionData, T module, Map<InclusionPolicies, ImprovedTransactionData> filteredData) {
+        InclusionPolicies inclusionPolicies = module.getConfiguration().getInclusionPolicies();
+
+        if (inclusionPolicies.includesEverything() && transactionData instanceof ImprovedTransactionData) {
+            return (ImprovedTransactionData) transactionData;
+        }
+
+        ImprovedTransactionData result = filteredData.get(inclusionPolicies);
+        if (result == null) {
+            result = new FilteredTransactionData(transactionData, inclusionPolicies);
+            filteredData.put(inclusionPolicies, result);
+        }
+
+        return result;
+    }
+
     private Map<String, Object> handleException(Map<String, Object> result, T module, Object state, RuntimeException e) {
         result.put(module.getId(), state);      //just so the module gets afterRollback called as well
         afterRollback(result); //remove this when https://github.com/neo4j/neo4j/issues/2660 is resolved (todo this is fixed in 3.3)
@@ -236,7 +331,21 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
                 return; //perhaps module wasn't interested, or threw RuntimeException
             }
 
-            module.afterCommit(states.get(module.getId()));
+            AfterCommitDispatcher<?> dispatcher = dispatchers.get(module.getId());
+            if (dispatcher != null) {
+                dispatcher.dispatch(states.get(module.getId()));
+                continue;
+            }
+
+            long start = System.nanoTime();
+            try {
+                module.afterCommit(states.get(module.getId()));
+            } finally {
+                TxDrivenModuleMetrics moduleMetrics = metrics.getModuleMetrics(module.getId());
+                if (moduleMetrics != null) {
+                    moduleMetrics.getAfterCommitLatency().record(System.nanoTime() - start);
+                }
+            }
         }
     }
 
@@ -250,7 +359,15 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
                 return; //rollback happened before this module had a go
             }
 
-            module.afterRollback(states.get(module.getId()));
+            long start = System.nanoTime();
+            try {
+                module.afterRollback(states.get(module.getId()));
+            } finally {
+                TxDrivenModuleMetrics moduleMetrics = metrics.getModuleMetrics(module.getId());
+                if (moduleMetrics != null) {
+                    moduleMetrics.getAfterRollbackLatency().record(System.nanoTime() - start);
+                }
+            }
         }
     }
 }
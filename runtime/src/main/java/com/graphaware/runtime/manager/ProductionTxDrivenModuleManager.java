@@ -20,8 +20,10 @@ import com.graphaware.common.ping.StatsCollector;
 import com.graphaware.runtime.config.util.InstanceRoleUtils;
 import com.graphaware.runtime.metadata.ModuleMetadataRepository;
 import com.graphaware.runtime.metadata.TxDrivenModuleMetadata;
+import com.graphaware.runtime.metrics.RuntimeMetrics;
 import com.graphaware.runtime.module.TxDrivenModule;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
 /**
  * {@link BaseTxDrivenModuleManager} backed by a {@link GraphDatabaseService}.
@@ -37,7 +39,7 @@ public class ProductionTxDrivenModuleManager extends BaseTxDrivenModuleManager<T
      * @param metadataRepository for storing module metadata.
      */
     public ProductionTxDrivenModuleManager(GraphDatabaseService database, ModuleMetadataRepository metadataRepository, StatsCollector statsCollector) {
-        super(metadataRepository, statsCollector, new InstanceRoleUtils(database));
+        super(metadataRepository, statsCollector, new InstanceRoleUtils(database), new RuntimeMetrics(((GraphDatabaseAPI) database).getStoreDir()));
         this.database = database;
     }
 
@@ -16,6 +16,7 @@
 
 package com.graphaware.runtime.manager;
 
+import com.graphaware.runtime.metrics.RuntimeMetrics;
 import com.graphaware.runtime.module.TxDrivenModule;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
 
@@ -28,6 +29,12 @@ public interface TxDrivenModuleManager<T extends TxDrivenModule> extends ModuleM
 
     /**
      * Delegate work to modules before a transaction is committed.
+     * <p/>
+     * Modules are called one after another, in the order in which they have been registered, on the thread that is
+     * committing the transaction. They cannot be called in parallel, since Neo4j binds the transaction (and its
+     * uncommitted state, which modules read through the transaction data) to the committing thread, and the transaction
+     * is not safe for concurrent use. Modules with expensive logic that does not need to happen before the commit should
+     * do it in {@link com.graphaware.runtime.module.TxDrivenModule#afterCommit(Object)}.
      *
      * @param transactionData about-to-be-committed transaction data.
      * @return map of objects (states) returned by the modules, keyed by {@link com.graphaware.runtime.module.TxDrivenModule#getId()}.
@@ -47,4 +54,11 @@ public interface TxDrivenModuleManager<T extends TxDrivenModule> extends ModuleM
      * @param states returned by {@link #beforeCommit(com.graphaware.tx.event.improved.data.TransactionDataContainer)}.
      */
     void afterRollback(Map<String, Object> states);
+
+    /**
+     * Get metrics of the managed modules.
+     *
+     * @return metrics.
+     */
+    RuntimeMetrics getMetrics();
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.metrics;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.writer.neo4j.Neo4jWriter;
+import com.graphaware.writer.neo4j.PartitionedWriter;
+import com.graphaware.writer.service.QueueBackedScheduledService;
+import com.graphaware.writer.service.WriterMetrics;
+import org.neo4j.logging.Log;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics of all {@link com.graphaware.runtime.module.TxDrivenModule}s registered with a runtime. Metrics of each module
+ * are also exposed as an MXBean named
+ * <code>com.graphaware.runtime:type=TxDrivenModuleMetrics,database=&lt;database&gt;,module=&lt;module ID&gt;</code> once
+ * the module has been started.
+ * <p/>
+ * Metrics of queue-backed writers, such as the runtime's database writer, can be registered too. These are exposed as
+ * MXBeans named <code>com.graphaware.runtime:type=WriterMetrics,database=&lt;database&gt;,writer=&lt;writer name&gt;</code>.
+ * <p/>
+ * The database qualifier, e.g. the store directory, keeps the MXBeans of multiple databases in the same JVM apart. An
+ * MXBean registered under the same name by other metrics is left alone, rather than replaced.
+ * <p/>
+ * Metrics are created when modules are started, so that looking them up and recording into them on the commit path
+ * never allocates.
+ */
+public class RuntimeMetrics {
+
+    private static final Log LOG = LoggerFactory.getLogger(RuntimeMetrics.class);
+
+    private static final String DOMAIN = "com.graphaware.runtime";
+
+    public static final String DATABASE_WRITER = "database";
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger(0);
+
+    private final String database;
+    private final Map<String, TxDrivenModuleMetrics> moduleMetrics = new ConcurrentHashMap<>();
+    private final Map<String, WriterMetrics> writerMetrics = new ConcurrentHashMap<>();
+    private final Set<ObjectName> exposed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create metrics with a generated database qualifier, unique within the JVM.
+     */
+    public RuntimeMetrics() {
+        this("instance-" + INSTANCES.incrementAndGet());
+    }
+
+    /**
+     * Create metrics.
+     *
+     * @param database qualifier of the database the metrics belong to, used in names of the MXBeans. Should be unique
+     *                 within the JVM, e.g. the store directory.
+     */
+    public RuntimeMetrics(String database) {
+        this.database = database;
+    }
+
+    /**
+     * @return qualifier of the database the metrics belong to, used in names of the MXBeans.
+     */
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * Create metrics for a module, if they don't exist yet, and expose them via JMX.
+     *
+     * @param moduleId ID of the module.
+     * @return metrics of the module.
+     */
+    public TxDrivenModuleMetrics register(String moduleId) {
+        TxDrivenModuleMetrics metrics = moduleMetrics.computeIfAbsent(moduleId, TxDrivenModuleMetrics::new);
+
+        try {
+            expose(metrics, objectName(moduleId));
+        } catch (JMException e) {
+            LOG.warn("Could not expose metrics of module " + moduleId + " via JMX", e);
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Register metrics of a writer and expose them via JMX.
+     *
+     * @param writerName name of the writer, unique within the runtime.
+     * @param metrics    of the writer.
+     */
+    public void registerWriter(String writerName, WriterMetrics metrics) {
+        writerMetrics.put(writerName, metrics);
+
+        try {
+            expose(metrics, writerObjectName(writerName));
+        } catch (JMException e) {
+            LOG.warn("Could not expose metrics of writer " + writerName + " via JMX", e);
+        }
+    }
+
+    /**
+     * Register metrics of the runtime's database writer, if it has any. A writer with multiple lanes gets the metrics of
+     * each lane registered, named {@link #DATABASE_WRITER}<code>-lane-&lt;index&gt;</code>.
+     *
+     * @param writer database writer.
+     */
+    public void registerDatabaseWriter(Neo4jWriter writer) {
+        if (writer instanceof QueueBackedScheduledService) {
+            registerWriter(DATABASE_WRITER, ((QueueBackedScheduledService<?>) writer).getMetrics());
+        }
+
+        if (writer instanceof PartitionedWriter) {
+            List<WriterMetrics> lanes = ((PartitionedWriter) writer).getLaneMetrics();
+            for (int i = 0; i < lanes.size(); i++) {
+                registerWriter(DATABASE_WRITER + "-lane-" + i, lanes.get(i));
+            }
+        }
+    }
+
+    /**
+     * Stop exposing metrics of all modules and writers via JMX.
+     */
+    public void unregisterAll() {
+        for (String moduleId : moduleMetrics.keySet()) {
+            try {
+                unexpose(objectName(moduleId));
+            } catch (JMException e) {
+                LOG.warn("Could not stop exposing metrics of module " + moduleId + " via JMX", e);
+            }
+        }
+
+        for (String writerName : writerMetrics.keySet()) {
+            try {
+                unexpose(writerObjectName(writerName));
+            } catch (JMException e) {
+                LOG.warn("Could not stop exposing metrics of writer " + writerName + " via JMX", e);
+            }
+        }
+    }
+
+    /**
+     * Get metrics of a module.
+     *
+     * @param moduleId ID of the module.
+     * @return metrics, <code>null</code> if the module hasn't been started.
+     */
+    public TxDrivenModuleMetrics getModuleMetrics(String moduleId) {
+        return moduleMetrics.get(moduleId);
+    }
+
+    /**
+     * @return read-only metrics of all started modules.
+     */
+    public Collection<TxDrivenModuleMetrics> getAllModuleMetrics() {
+        return Collections.unmodifiableCollection(moduleMetrics.values());
+    }
+
+    /**
+     * Get metrics of a writer.
+     *
+     * @param writerName name of the writer.
+     * @return metrics, <code>null</code> if no writer of the given name has been registered.
+     */
+    public WriterMetrics getWriterMetrics(String writerName) {
+        return writerMetrics.get(writerName);
+    }
+
+    private void expose(Object metrics, ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) {
+            if (exposed.contains(name)) {
+                server.unregisterMBean(name);
+                exposed.remove(name);
+            } else {
+                LOG.warn(name + " is already registered, most likely by another database with the same qualifier. Will not expose it.");
+                return;
+            }
+        }
+        server.registerMBean(metrics, name);
+        exposed.add(name);
+    }
+
+    private void unexpose(ObjectName name) throws JMException {
+        if (exposed.remove(name)) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+
+    private ObjectName writerObjectName(String writerName) throws JMException {
+        return new ObjectName(DOMAIN + ":type=WriterMetrics,database=" + ObjectName.quote(database) + ",writer=" + ObjectName.quote(writerName));
+    }
+
+    private ObjectName objectName(String moduleId) throws JMException {
+        return new ObjectName(DOMAIN + ":type=TxDrivenModuleMetrics,database=" + ObjectName.quote(database) + ",module=" + ObjectName.quote(moduleId));
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.metrics;
+
+import com.graphaware.common.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics of a single {@link com.graphaware.runtime.module.TxDrivenModule}: latencies of its <code>beforeCommit</code>,
+ * <code>afterCommit</code>, and <code>afterRollback</code> calls, and the number of transactions in which it was
+ * skipped, because no mutations it is interested in occurred. For modules with asynchronous <code>afterCommit</code>,
+ * also the depth of their queue, the lag between commit and <code>afterCommit</code>, and the number of dropped states.
+ */
+public class TxDrivenModuleMetrics implements TxDrivenModuleMetricsMXBean {
+
+    private final String moduleId;
+    private final LatencyHistogram beforeCommit = new LatencyHistogram();
+    private final LatencyHistogram afterCommit = new LatencyHistogram();
+    private final LatencyHistogram afterRollback = new LatencyHistogram();
+    private final LatencyHistogram afterCommitLag = new LatencyHistogram();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile LongSupplier afterCommitQueueDepth = () -> 0;
+
+    /**
+     * Construct new metrics.
+     *
+     * @param moduleId ID of the module the metrics are for.
+     */
+    public TxDrivenModuleMetrics(String moduleId) {
+        this.moduleId = moduleId;
+    }
+
+    /**
+     * @return latencies of the module's <code>beforeCommit</code> calls.
+     */
+    public LatencyHistogram getBeforeCommitLatency() {
+        return beforeCommit;
+    }
+
+    /**
+     * @return latencies of the module's <code>afterCommit</code> calls.
+     */
+    public LatencyHistogram getAfterCommitLatency() {
+        return afterCommit;
+    }
+
+    /**
+     * @return latencies of the module's <code>afterRollback</code> calls.
+     */
+    public LatencyHistogram getAfterRollbackLatency() {
+        return afterRollback;
+    }
+
+    /**
+     * @return lags between the commit of a transaction and the module's asynchronous <code>afterCommit</code> call.
+     */
+    public LatencyHistogram getAfterCommitLag() {
+        return afterCommitLag;
+    }
+
+    /**
+     * Set the source of the module's current <code>afterCommit</code> queue depth.
+     *
+     * @param afterCommitQueueDepth queue depth source.
+     */
+    public void setAfterCommitQueueDepthGauge(LongSupplier afterCommitQueueDepth) {
+        this.afterCommitQueueDepth = afterCommitQueueDepth;
+    }
+
+    /**
+     * Record that a state has been dropped instead of being passed to the module's <code>afterCommit</code>.
+     */
+    public void dropped() {
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * Record that the module has been skipped for a transaction.
+     */
+    public void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBeforeCommitCount() {
+        return beforeCommit.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBeforeCommitMeanMicros() {
+        return micros(beforeCommit.getMean());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBeforeCommit50thPercentileMicros() {
+        return micros(beforeCommit.getValueAtPercentile(50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBeforeCommit99thPercentileMicros() {
+        return micros(beforeCommit.getValueAtPercentile(99));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBeforeCommitMaxMicros() {
+        return micros(beforeCommit.getMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommitCount() {
+        return afterCommit.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommitMeanMicros() {
+        return micros(afterCommit.getMean());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommit50thPercentileMicros() {
+        return micros(afterCommit.getValueAtPercentile(50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommit99thPercentileMicros() {
+        return micros(afterCommit.getValueAtPercentile(99));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommitMaxMicros() {
+        return micros(afterCommit.getMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterRollbackCount() {
+        return afterRollback.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterRollbackMeanMicros() {
+        return micros(afterRollback.getMean());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterRollback50thPercentileMicros() {
+        return micros(afterRollback.getValueAtPercentile(50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterRollback99thPercentileMicros() {
+        return micros(afterRollback.getValueAtPercentile(99));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterRollbackMaxMicros() {
+        return micros(afterRollback.getMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommitQueueDepth() {
+        return afterCommitQueueDepth.getAsLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommitLag50thPercentileMicros() {
+        return micros(afterCommitLag.getValueAtPercentile(50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommitLag99thPercentileMicros() {
+        return micros(afterCommitLag.getValueAtPercentile(99));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAfterCommitLagMaxMicros() {
+        return micros(afterCommitLag.getMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        beforeCommit.reset();
+        afterCommit.reset();
+        afterRollback.reset();
+        afterCommitLag.reset();
+        skipped.set(0);
+        dropped.set(0);
+    }
+
+    private long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
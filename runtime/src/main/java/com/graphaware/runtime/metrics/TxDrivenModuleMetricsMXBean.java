@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.metrics;
+
+/**
+ * JMX view of {@link TxDrivenModuleMetrics}. All latencies are in microseconds.
+ */
+public interface TxDrivenModuleMetricsMXBean {
+
+    String getModuleId();
+
+    long getSkippedCount();
+
+    long getBeforeCommitCount();
+
+    long getBeforeCommitMeanMicros();
+
+    long getBeforeCommit50thPercentileMicros();
+
+    long getBeforeCommit99thPercentileMicros();
+
+    long getBeforeCommitMaxMicros();
+
+    long getAfterCommitCount();
+
+    long getAfterCommitMeanMicros();
+
+    long getAfterCommit50thPercentileMicros();
+
+    long getAfterCommit99thPercentileMicros();
+
+    long getAfterCommitMaxMicros();
+
+    long getAfterRollbackCount();
+
+    long getAfterRollbackMeanMicros();
+
+    long getAfterRollback50thPercentileMicros();
+
+    long getAfterRollback99thPercentileMicros();
+
+    long getAfterRollbackMaxMicros();
+
+    long getAfterCommitQueueDepth();
+
+    long getAfterCommitLag50thPercentileMicros();
+
+    long getAfterCommitLag99thPercentileMicros();
+
+    long getAfterCommitLagMaxMicros();
+
+    long getDroppedCount();
+
+    /**
+     * Forget everything recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.module;
+
+import com.graphaware.runtime.config.AsyncAfterCommitConfiguration;
+
+/**
+ * A {@link TxDrivenModule} whose {@link #afterCommit(Object)} is not called on the committing thread, but handed over
+ * to a dedicated worker thread through a bounded queue. The committing thread thus doesn't wait for the module's
+ * post-commit work to complete.
+ * <p/>
+ * {@link #afterCommit(Object)} is called from a single thread per module, in the order in which the transactions
+ * committed. {@link #afterRollback(Object)} is still called synchronously.
+ *
+ * @param <T> The type of a state object that the module can use to pass information from the
+ *            {@link #beforeCommit(com.graphaware.tx.event.improved.api.ImprovedTransactionData)} method to the
+ *            {@link #afterCommit(Object)} method. Should be {@link java.io.Serializable} if the module uses
+ *            {@link AsyncAfterCommitConfiguration.OverflowPolicy#SPILL}.
+ */
+public interface AsyncAfterCommitModule<T> extends TxDrivenModule<T> {
+
+    /**
+     * Get the configuration of this module's asynchronous <code>afterCommit</code> dispatch.
+     *
+     * @return configuration, must not be <code>null</code>.
+     */
+    AsyncAfterCommitConfiguration getAsyncAfterCommitConfiguration();
+}
@@ -14,6 +14,10 @@ public class DefaultThirdPartyIntegrationModule extends WriterBasedThirdPartyInt
         super(moduleId, writer);
     }
 
+    public DefaultThirdPartyIntegrationModule(String moduleId, ThirdPartyWriter writer, boolean changedPropertiesOnly, int maxOperationsPerWrite) {
+        super(moduleId, writer, changedPropertiesOnly, maxOperationsPerWrite);
+    }
+
     @Override
     protected DetachedRelationship<Long, ? extends DetachedNode<Long>> relationshipRepresentation(Relationship relationship) {
         return new GraphDetachedRelationship(relationship);
@@ -23,5 +27,14 @@ public class DefaultThirdPartyIntegrationModule extends WriterBasedThirdPartyInt
     protected DetachedNode<Long> nodeRepresentation(Node node) {
         return new GraphDetachedNode(node);
     }
-}
 
+    @Override
+    protected DetachedRelationship<Long, ? extends DetachedNode<Long>> relationshipRepresentation(Relationship relationship, String[] properties) {
+        return new GraphDetachedRelationship(relationship, properties);
+    }
+
+    @Override
+    protected DetachedNode<Long> nodeRepresentation(Node node, String[] properties) {
+        return new GraphDetachedNode(node, properties);
+    }
+}
@@ -18,6 +18,7 @@ package com.graphaware.runtime.module.thirdparty;
 
 import com.graphaware.common.representation.DetachedNode;
 import com.graphaware.common.representation.DetachedRelationship;
+import com.graphaware.common.util.Change;
 import com.graphaware.runtime.module.BaseTxDrivenModule;
 import com.graphaware.runtime.module.DeliberateTransactionRollbackException;
 import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
@@ -25,9 +26,11 @@ import com.graphaware.writer.thirdparty.*;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Base-class for GraphAware Runtime Modules that wish to implement integrations with third-party systems.
@@ -37,16 +40,37 @@ import java.util.stream.Collectors;
  * <p/>
  * The collection of {@link WriteOperation}s is passed into the {@link #afterCommit(Object)} method after the transaction
  * has successfully committed. The {@link #afterCommit(Object)} should be overridden by sub-classes.
+ * <p/>
+ * There is at most one {@link WriteOperation} per node and relationship, as {@link ImprovedTransactionData} already
+ * represents the net effect of the transaction (e.g. a node created and then updated is only reported as created, a node
+ * updated and then deleted only as deleted). By default, both states of an updated node or relationship contain all
+ * its properties. Modules constructed with <code>changedPropertiesOnly</code> set to <code>true</code> only include
+ * properties that have been created, deleted, or changed in the transaction, which makes updates of large property
+ * containers much cheaper to build and ship.
  */
 public abstract class ThirdPartyIntegrationModule<ID> extends BaseTxDrivenModule<Collection<WriteOperation<?>>> {
 
+    private final boolean changedPropertiesOnly;
+
     /**
-     * Construct a new module.
+     * Construct a new module, which represents updated nodes and relationships with all their properties.
      *
      * @param moduleId ID of this module. Must not be <code>null</code> or empty.
      */
     protected ThirdPartyIntegrationModule(String moduleId) {
+        this(moduleId, false);
+    }
+
+    /**
+     * Construct a new module.
+     *
+     * @param moduleId              ID of this module. Must not be <code>null</code> or empty.
+     * @param changedPropertiesOnly <code>true</code> iff updated nodes and relationships should only be represented
+     *                              with properties that have been created, deleted, or changed in the transaction.
+     */
+    protected ThirdPartyIntegrationModule(String moduleId, boolean changedPropertiesOnly) {
         super(moduleId);
+        this.changedPropertiesOnly = changedPropertiesOnly;
     }
 
     /**
@@ -54,18 +78,74 @@ public abstract class ThirdPartyIntegrationModule<ID> extends BaseTxDrivenModule
      */
     @Override
     public Collection<WriteOperation<?>> beforeCommit(ImprovedTransactionData transactionData) throws DeliberateTransactionRollbackException {
-        Collection<WriteOperation<?>> result = transactionData.getAllCreatedNodes().stream().map(createdNode -> new NodeCreated<>(nodeRepresentation(createdNode))).collect(Collectors.toCollection(HashSet::new));
+        Collection<WriteOperation<?>> result = new ArrayList<>();
 
-        result.addAll(transactionData.getAllChangedNodes().stream().map(updatedNode -> new NodeUpdated<>(nodeRepresentation(updatedNode.getPrevious()), nodeRepresentation(updatedNode.getCurrent()))).collect(Collectors.toList()));
-        result.addAll(transactionData.getAllDeletedNodes().stream().map(deletedNode -> new NodeDeleted<>(nodeRepresentation(deletedNode))).collect(Collectors.toList()));
-        result.addAll(transactionData.getAllCreatedRelationships().stream().map(createdRelationship -> new RelationshipCreated<>(relationshipRepresentation(createdRelationship))).collect(Collectors.toList()));
-        result.addAll(transactionData.getAllChangedRelationships().stream().map(updatedRelationship -> new RelationshipUpdated<>(relationshipRepresentation(updatedRelationship.getPrevious()), relationshipRepresentation(updatedRelationship.getCurrent()))).collect(Collectors.toList()));
-        result.addAll(transactionData.getAllDeletedRelationships().stream().map(deletedRelationship -> new RelationshipDeleted<>(relationshipRepresentation(deletedRelationship))).collect(Collectors.toList()));
+        transactionData.getAllCreatedNodes().forEach(createdNode -> result.add(new NodeCreated<>(nodeRepresentation(createdNode))));
+        transactionData.getAllChangedNodes().forEach(updatedNode -> result.add(nodeUpdated(updatedNode, transactionData)));
+        transactionData.getAllDeletedNodes().forEach(deletedNode -> result.add(new NodeDeleted<>(nodeRepresentation(deletedNode))));
+        transactionData.getAllCreatedRelationships().forEach(createdRelationship -> result.add(new RelationshipCreated<>(relationshipRepresentation(createdRelationship))));
+        transactionData.getAllChangedRelationships().forEach(updatedRelationship -> result.add(relationshipUpdated(updatedRelationship, transactionData)));
+        transactionData.getAllDeletedRelationships().forEach(deletedRelationship -> result.add(new RelationshipDeleted<>(relationshipRepresentation(deletedRelationship))));
 
         return result;
     }
 
+    private NodeUpdated<ID> nodeUpdated(Change<Node> change, ImprovedTransactionData transactionData) {
+        if (!changedPropertiesOnly) {
+            return new NodeUpdated<>(nodeRepresentation(change.getPrevious()), nodeRepresentation(change.getCurrent()));
+        }
+
+        Node node = change.getPrevious();
+        String[] keys = changedKeys(transactionData.createdProperties(node), transactionData.deletedProperties(node), transactionData.changedProperties(node));
+
+        return new NodeUpdated<>(nodeRepresentation(change.getPrevious(), keys), nodeRepresentation(change.getCurrent(), keys));
+    }
+
+    private RelationshipUpdated<ID> relationshipUpdated(Change<Relationship> change, ImprovedTransactionData transactionData) {
+        if (!changedPropertiesOnly) {
+            return new RelationshipUpdated<>(relationshipRepresentation(change.getPrevious()), relationshipRepresentation(change.getCurrent()));
+        }
+
+        Relationship relationship = change.getPrevious();
+        String[] keys = changedKeys(transactionData.createdProperties(relationship), transactionData.deletedProperties(relationship), transactionData.changedProperties(relationship));
+
+        return new RelationshipUpdated<>(relationshipRepresentation(change.getPrevious(), keys), relationshipRepresentation(change.getCurrent(), keys));
+    }
+
+    private String[] changedKeys(Map<String, ?> created, Map<String, ?> deleted, Map<String, ?> changed) {
+        Set<String> result = new HashSet<>(created.keySet());
+        result.addAll(deleted.keySet());
+        result.addAll(changed.keySet());
+        return result.toArray(new String[result.size()]);
+    }
+
     protected abstract DetachedRelationship<ID, ? extends DetachedNode<ID>> relationshipRepresentation(Relationship relationship);
 
     protected abstract DetachedNode<ID> nodeRepresentation(Node node);
+
+    /**
+     * Create a representation of a relationship that only contains the given properties. Used for updated relationships
+     * when this module only represents changed properties. Subclasses that enable that should override this method, the
+     * default implementation ignores the keys and delegates to {@link #relationshipRepresentation(Relationship)}.
+     *
+     * @param relationship to represent.
+     * @param properties   keys of the properties to include.
+     * @return representation.
+     */
+    protected DetachedRelationship<ID, ? extends DetachedNode<ID>> relationshipRepresentation(Relationship relationship, String[] properties) {
+        return relationshipRepresentation(relationship);
+    }
+
+    /**
+     * Create a representation of a node that only contains the given properties. Used for updated nodes when this
+     * module only represents changed properties. Subclasses that enable that should override this method, the default
+     * implementation ignores the keys and delegates to {@link #nodeRepresentation(Node)}.
+     *
+     * @param node       to represent.
+     * @param properties keys of the properties to include.
+     * @return representation.
+     */
+    protected DetachedNode<ID> nodeRepresentation(Node node, String[] properties) {
+        return nodeRepresentation(node);
+    }
 }
@@ -20,28 +20,58 @@ import com.graphaware.writer.thirdparty.ThirdPartyWriter;
 import com.graphaware.writer.thirdparty.WriteOperation;
 import org.neo4j.graphdb.GraphDatabaseService;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
+import static org.springframework.util.Assert.isTrue;
 import static org.springframework.util.Assert.notNull;
 
 /**
  * A {@link ThirdPartyIntegrationModule} that integrates with the third-party system by using a {@link ThirdPartyWriter}.
+ * <p/>
+ * All operations of a transaction are handed to the writer as a single collection, unless there are more than the
+ * configured maximum. In that case, they are handed to the writer in chunks of at most that size, in the order in which
+ * they were built, so that a single huge transaction doesn't turn into a single huge write. Note that each chunk then
+ * occupies its own slot in the writer's queue.
+ * <p/>
+ * Chunking only bounds the size of each write handed downstream. All operations of a transaction are still built in
+ * memory before the transaction commits, so it doesn't bound the memory needed for a huge transaction.
  */
 public abstract class WriterBasedThirdPartyIntegrationModule<ID> extends ThirdPartyIntegrationModule<ID> {
 
     private final ThirdPartyWriter writer;
+    private final int maxOperationsPerWrite;
 
     /**
-     * Construct a new module.
+     * Construct a new module, which represents updated nodes and relationships with all their properties and writes all
+     * operations of a transaction at once.
      *
      * @param moduleId ID of this module. Must not be <code>null</code> or empty.
      * @param writer to use for integrating with third-party system. Must not be <code>null</code>.
      */
     protected WriterBasedThirdPartyIntegrationModule(String moduleId, ThirdPartyWriter writer) {
-        super(moduleId);
+        this(moduleId, writer, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Construct a new module.
+     *
+     * @param moduleId              ID of this module. Must not be <code>null</code> or empty.
+     * @param writer                to use for integrating with third-party system. Must not be <code>null</code>.
+     * @param changedPropertiesOnly <code>true</code> iff updated nodes and relationships should only be represented
+     *                              with properties that have been created, deleted, or changed in the transaction.
+     * @param maxOperationsPerWrite maximum number of operations handed to the writer at once. Must be positive. Doesn't
+     *                              limit the number of operations built in memory for a transaction.
+     */
+    protected WriterBasedThirdPartyIntegrationModule(String moduleId, ThirdPartyWriter writer, boolean changedPropertiesOnly, int maxOperationsPerWrite) {
+        super(moduleId, changedPropertiesOnly);
 
         notNull(writer);
+        isTrue(maxOperationsPerWrite > 0);
+
         this.writer = writer;
+        this.maxOperationsPerWrite = maxOperationsPerWrite;
     }
 
     /**
@@ -49,7 +79,26 @@ public abstract class WriterBasedThirdPartyIntegrationModule<ID> extends ThirdPa
      */
     @Override
     public void afterCommit(Collection<WriteOperation<?>> state) {
-        writer.write(state, getId() + "-" + System.currentTimeMillis());
+        String id = getId() + "-" + System.currentTimeMillis();
+
+        if (state.size() <= maxOperationsPerWrite) {
+            writer.write(state, id);
+            return;
+        }
+
+        int chunkNumber = 0;
+        List<WriteOperation<?>> chunk = new ArrayList<>(maxOperationsPerWrite);
+        for (WriteOperation<?> operation : state) {
+            chunk.add(operation);
+            if (chunk.size() == maxOperationsPerWrite) {
+                writer.write(chunk, id + "-" + chunkNumber++);
+                chunk = new ArrayList<>(maxOperationsPerWrite);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            writer.write(chunk, id + "-" + chunkNumber);
+        }
     }
 
     /**
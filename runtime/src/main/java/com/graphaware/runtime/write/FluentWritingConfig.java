@@ -17,6 +17,7 @@
 package com.graphaware.runtime.write;
 
 import com.graphaware.writer.neo4j.*;
+import com.graphaware.writer.service.OverflowPolicy;
 import org.neo4j.graphdb.GraphDatabaseService;
 
 /**
@@ -27,6 +28,14 @@ public class FluentWritingConfig implements WritingConfig {
     private final DatabaseWriterType writerType;
     private final int queueSize;
     private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetBatchLatencyMs;
+    private final int lanes;
+    private final int deadlockRetries;
+    private final int maxTasksPerTransaction;
+    private final long maxTransactionMillis;
 
     /**
      * Create an instance of {@link FluentWritingConfig} with default configuration.
@@ -34,7 +43,7 @@ public class FluentWritingConfig implements WritingConfig {
      * @return instance.
      */
     public static FluentWritingConfig defaultConfiguration() {
-        return new FluentWritingConfig(DatabaseWriterType.DEFAULT, SingleThreadedWriter.DEFAULT_QUEUE_CAPACITY, BatchWriter.DEFAULT_BATCH_SIZE);
+        return new FluentWritingConfig(DatabaseWriterType.DEFAULT, SingleThreadedWriter.DEFAULT_QUEUE_CAPACITY, BatchWriter.DEFAULT_BATCH_SIZE, OverflowPolicy.dropNewest(), AdaptiveBatchSize.DEFAULT_MIN_BATCH_SIZE, AdaptiveBatchSize.DEFAULT_MAX_BATCH_SIZE, 0, PartitionedWriter.DEFAULT_LANES, PartitionedWriter.DEFAULT_DEADLOCK_RETRIES, TxPerTaskWriter.DEFAULT_MAX_TASKS_PER_TRANSACTION, TxPerTaskWriter.DEFAULT_MAX_TRANSACTION_MILLIS);
     }
 
     /**
@@ -44,7 +53,7 @@ public class FluentWritingConfig implements WritingConfig {
      * @return new instance.
      */
     public FluentWritingConfig withWriterType(DatabaseWriterType writerType) {
-        return new FluentWritingConfig(writerType, queueSize, batchSize);
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetBatchLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
     }
 
     /**
@@ -55,7 +64,7 @@ public class FluentWritingConfig implements WritingConfig {
      * @return new instance.
      */
     public FluentWritingConfig withQueueSize(int queueSize) {
-        return new FluentWritingConfig(writerType, queueSize, batchSize);
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetBatchLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
     }
 
     /**
@@ -66,13 +75,80 @@ public class FluentWritingConfig implements WritingConfig {
      * @return new instance.
      */
     public FluentWritingConfig withBatchSize(int batchSize) {
-        return new FluentWritingConfig(writerType, queueSize, batchSize);
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetBatchLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
     }
 
-    private FluentWritingConfig(DatabaseWriterType writerType, int queueSize, int batchSize) {
+    /**
+     * Return a new instance of this configuration with a different policy for dealing with a full queue. Please note
+     * that the policy might not be applicable to all {@link DatabaseWriterType}s (so might be ignored).
+     *
+     * @param overflowPolicy of the new instance.
+     * @return new instance.
+     */
+    public FluentWritingConfig withOverflowPolicy(OverflowPolicy overflowPolicy) {
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetBatchLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
+    }
+
+    /**
+     * Return a new instance of this configuration with an adaptive batch size, tuned between the given minimum and
+     * maximum towards the given target latency per batch. Replaces the fixed batch size. Please note that batch size
+     * might not be applicable to all {@link DatabaseWriterType}s (so might be ignored).
+     *
+     * @param minBatchSize    minimum batch size.
+     * @param maxBatchSize    maximum batch size.
+     * @param targetLatencyMs target latency of a single batch in ms, 0 for a fixed batch size.
+     * @return new instance.
+     */
+    public FluentWritingConfig withAdaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetLatencyMs) {
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
+    }
+
+    /**
+     * Return a new instance of this configuration with a different number of lanes. Please note that lanes might not be
+     * applicable to all {@link DatabaseWriterType}s (so might be ignored).
+     *
+     * @param lanes of the new instance.
+     * @return new instance.
+     */
+    public FluentWritingConfig withLanes(int lanes) {
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetBatchLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
+    }
+
+    /**
+     * Return a new instance of this configuration with a different number of retries of deadlocked tasks. Please note
+     * that deadlock retries might not be applicable to all {@link DatabaseWriterType}s (so might be ignored).
+     *
+     * @param deadlockRetries of the new instance.
+     * @return new instance.
+     */
+    public FluentWritingConfig withDeadlockRetries(int deadlockRetries) {
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetBatchLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
+    }
+
+    /**
+     * Return a new instance of this configuration that coalesces tasks into transactions. Please note that coalescing
+     * might not be applicable to all {@link DatabaseWriterType}s (so might be ignored).
+     *
+     * @param maxTasksPerTransaction maximum number of tasks coalesced into a single transaction, 1 for no coalescing.
+     * @param maxTransactionMillis   maximum time in ms a coalesced transaction stays open before it is committed.
+     * @return new instance.
+     */
+    public FluentWritingConfig withTxCoalescing(int maxTasksPerTransaction, long maxTransactionMillis) {
+        return new FluentWritingConfig(writerType, queueSize, batchSize, overflowPolicy, minBatchSize, maxBatchSize, targetBatchLatencyMs, lanes, deadlockRetries, maxTasksPerTransaction, maxTransactionMillis);
+    }
+
+    private FluentWritingConfig(DatabaseWriterType writerType, int queueSize, int batchSize, OverflowPolicy overflowPolicy, int minBatchSize, int maxBatchSize, long targetBatchLatencyMs, int lanes, int deadlockRetries, int maxTasksPerTransaction, long maxTransactionMillis) {
         this.writerType = writerType;
         this.queueSize = queueSize;
         this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetBatchLatencyMs = targetBatchLatencyMs;
+        this.lanes = lanes;
+        this.deadlockRetries = deadlockRetries;
+        this.maxTasksPerTransaction = maxTasksPerTransaction;
+        this.maxTransactionMillis = maxTransactionMillis;
     }
 
     /**
@@ -84,9 +160,16 @@ public class FluentWritingConfig implements WritingConfig {
             case DEFAULT:
                 return new DefaultWriter(database);
             case SINGLE_THREADED:
-                return new TxPerTaskWriter(database, queueSize);
+                return new TxPerTaskWriter(database, queueSize, overflowPolicy, maxTasksPerTransaction, maxTransactionMillis);
             case BATCH:
-                return new BatchWriter(database, queueSize, batchSize);
+                if (targetBatchLatencyMs > 0) {
+                    return new BatchWriter(database, queueSize, new AdaptiveBatchSize(minBatchSize, maxBatchSize, targetBatchLatencyMs), overflowPolicy);
+                }
+                return new BatchWriter(database, queueSize, batchSize, overflowPolicy);
+            case PARTITIONED:
+                return new PartitionedWriter(database, lanes, queueSize, deadlockRetries, overflowPolicy);
+            case DEDUPLICATING:
+                return new DeduplicatingWriter(database, queueSize, batchSize, overflowPolicy);
         }
 
         throw new IllegalStateException("Unknown writer type: " + writerType);
@@ -105,6 +188,14 @@ public class FluentWritingConfig implements WritingConfig {
         if (batchSize != that.batchSize) return false;
         if (queueSize != that.queueSize) return false;
         if (writerType != that.writerType) return false;
+        if (!overflowPolicy.equals(that.overflowPolicy)) return false;
+        if (minBatchSize != that.minBatchSize) return false;
+        if (maxBatchSize != that.maxBatchSize) return false;
+        if (targetBatchLatencyMs != that.targetBatchLatencyMs) return false;
+        if (lanes != that.lanes) return false;
+        if (deadlockRetries != that.deadlockRetries) return false;
+        if (maxTasksPerTransaction != that.maxTasksPerTransaction) return false;
+        if (maxTransactionMillis != that.maxTransactionMillis) return false;
 
         return true;
     }
@@ -117,6 +208,14 @@ public class FluentWritingConfig implements WritingConfig {
         int result = writerType.hashCode();
         result = 31 * result + queueSize;
         result = 31 * result + batchSize;
+        result = 31 * result + overflowPolicy.hashCode();
+        result = 31 * result + minBatchSize;
+        result = 31 * result + maxBatchSize;
+        result = 31 * result + (int) (targetBatchLatencyMs ^ (targetBatchLatencyMs >>> 32));
+        result = 31 * result + lanes;
+        result = 31 * result + deadlockRetries;
+        result = 31 * result + maxTasksPerTransaction;
+        result = 31 * result + (int) (maxTransactionMillis ^ (maxTransactionMillis >>> 32));
         return result;
     }
 }
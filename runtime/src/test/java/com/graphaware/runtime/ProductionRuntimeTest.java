@@ -21,17 +21,24 @@ import com.graphaware.common.kv.KeyValueStore;
 import com.graphaware.common.policy.inclusion.InclusionPolicies;
 import com.graphaware.runtime.config.*;
 import com.graphaware.runtime.metadata.*;
+import com.graphaware.runtime.metrics.RuntimeMetrics;
+import com.graphaware.runtime.metrics.TxDrivenModuleMetrics;
 import com.graphaware.runtime.module.*;
 import com.graphaware.runtime.schedule.AdaptiveTimingStrategy;
 import com.graphaware.runtime.schedule.FixedDelayTimingStrategy;
 import com.graphaware.runtime.schedule.TimingStrategy;
+import com.graphaware.runtime.write.DatabaseWriterType;
+import com.graphaware.runtime.write.FluentWritingConfig;
 import com.graphaware.runtime.write.WritingConfig;
 import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import com.graphaware.tx.event.improved.api.LazyTransactionData;
 import com.graphaware.writer.neo4j.BaseNeo4jWriter;
 import com.graphaware.writer.neo4j.Neo4jWriter;
+import com.graphaware.writer.service.WriterMetrics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.neo4j.backup.OnlineBackupSettings;
 import org.neo4j.graphdb.*;
@@ -40,6 +47,8 @@ import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.shell.ShellSettings;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -1110,6 +1119,137 @@ public class ProductionRuntimeTest {
         verifyNoMoreInteractions(mockModule1, mockModule2, mockModule3);
     }
 
+    @Test
+    public void modulesWithEqualPoliciesShouldShareFilteredTransactionData() {
+        TxDrivenModule mockModule1 = mockTxModule(MOCK + "1");
+        TxDrivenModule mockModule2 = mockTxModule(MOCK + "2");
+        TxDrivenModule mockModule3 = mockTxModule(MOCK + "3", FluentTxDrivenModuleConfiguration.defaultConfiguration().with(InclusionPolicies.all()));
+
+        GraphAwareRuntime runtime = createRuntime(database, defaultConfiguration(database).withTimingStrategy(TIMING_STRATEGY));
+        runtime.registerModule(mockModule1);
+        runtime.registerModule(mockModule2);
+        runtime.registerModule(mockModule3);
+
+        runtime.start();
+
+        try (Transaction tx = database.beginTx()) {
+            database.createNode(new Label[]{});
+            tx.success();
+        }
+
+        ArgumentCaptor<ImprovedTransactionData> captor1 = ArgumentCaptor.forClass(ImprovedTransactionData.class);
+        ArgumentCaptor<ImprovedTransactionData> captor2 = ArgumentCaptor.forClass(ImprovedTransactionData.class);
+        ArgumentCaptor<ImprovedTransactionData> captor3 = ArgumentCaptor.forClass(ImprovedTransactionData.class);
+
+        verify(mockModule1).beforeCommit(captor1.capture());
+        verify(mockModule2).beforeCommit(captor2.capture());
+        verify(mockModule3).beforeCommit(captor3.capture());
+
+        assertSame(captor1.getValue(), captor2.getValue());
+        assertNotSame(captor1.getValue(), captor3.getValue());
+        assertSame(captor1.getValue().getAllCreatedNodes(), captor2.getValue().getAllCreatedNodes());
+    }
+
+    @Test
+    public void modulesWithAllInclusivePoliciesShouldGetUnfilteredTransactionData() {
+        TxDrivenModule mockModule = mockTxModule(MOCK, FluentTxDrivenModuleConfiguration.defaultConfiguration().with(InclusionPolicies.all()));
+
+        GraphAwareRuntime runtime = createRuntime(database, defaultConfiguration(database).withTimingStrategy(TIMING_STRATEGY));
+        runtime.registerModule(mockModule);
+
+        runtime.start();
+
+        try (Transaction tx = database.beginTx()) {
+            database.createNode(new Label[]{});
+            tx.success();
+        }
+
+        ArgumentCaptor<ImprovedTransactionData> captor = ArgumentCaptor.forClass(ImprovedTransactionData.class);
+        verify(mockModule).beforeCommit(captor.capture());
+
+        assertTrue(captor.getValue() instanceof LazyTransactionData);
+    }
+
+    @Test
+    public void moduleLatenciesAndSkipsShouldBeRecorded() throws Exception {
+        TxDrivenModule mockModule1 = mockTxModule(MOCK + "1");
+        TxDrivenModule mockModule2 = mockTxModule(MOCK + "2", FluentTxDrivenModuleConfiguration.defaultConfiguration().with(InclusionPolicies.none()));
+
+        GraphAwareRuntime runtime = createRuntime(database, defaultConfiguration(database).withTimingStrategy(TIMING_STRATEGY));
+        runtime.registerModule(mockModule1);
+        runtime.registerModule(mockModule2);
+
+        runtime.start();
+
+        try (Transaction tx = database.beginTx()) {
+            database.createNode(new Label[]{});
+            tx.success();
+        }
+
+        RuntimeMetrics metrics = ((TxDrivenRuntime) runtime).getMetrics();
+
+        TxDrivenModuleMetrics metrics1 = metrics.getModuleMetrics(MOCK + "1");
+        assertEquals(1, metrics1.getBeforeCommitCount());
+        assertEquals(1, metrics1.getAfterCommitCount());
+        assertEquals(0, metrics1.getAfterRollbackCount());
+        assertEquals(0, metrics1.getSkippedCount());
+
+        TxDrivenModuleMetrics metrics2 = metrics.getModuleMetrics(MOCK + "2");
+        assertEquals(0, metrics2.getBeforeCommitCount());
+        assertEquals(1, metrics2.getSkippedCount());
+
+        ObjectName name = new ObjectName("com.graphaware.runtime:type=TxDrivenModuleMetrics,database=" + ObjectName.quote(metrics.getDatabase()) + ",module=" + ObjectName.quote(MOCK + "1"));
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "BeforeCommitCount"));
+    }
+
+    @Test
+    public void metricsOfDifferentDatabasesShouldNotEvictEachOther() throws Exception {
+        RuntimeMetrics first = new RuntimeMetrics("first");
+        RuntimeMetrics second = new RuntimeMetrics("second");
+        RuntimeMetrics duplicate = new RuntimeMetrics("first");
+
+        first.register(MOCK);
+        second.register(MOCK);
+        duplicate.register(MOCK);
+
+        ObjectName firstName = new ObjectName("com.graphaware.runtime:type=TxDrivenModuleMetrics,database=" + ObjectName.quote("first") + ",module=" + ObjectName.quote(MOCK));
+        ObjectName secondName = new ObjectName("com.graphaware.runtime:type=TxDrivenModuleMetrics,database=" + ObjectName.quote("second") + ",module=" + ObjectName.quote(MOCK));
+
+        first.getModuleMetrics(MOCK).skipped();
+
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(firstName, "SkippedCount"));
+        assertEquals(0L, ManagementFactory.getPlatformMBeanServer().getAttribute(secondName, "SkippedCount"));
+
+        duplicate.unregisterAll();
+        second.unregisterAll();
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(firstName));
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(secondName));
+
+        first.unregisterAll();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(firstName));
+    }
+
+    @Test
+    public void databaseWriterMetricsShouldBeRecorded() throws Exception {
+        GraphAwareRuntime runtime = createRuntime(database, defaultConfiguration(database)
+                .withTimingStrategy(TIMING_STRATEGY)
+                .withWritingConfig(FluentWritingConfig.defaultConfiguration().withWriterType(DatabaseWriterType.SINGLE_THREADED)));
+
+        runtime.start();
+
+        runtime.getDatabaseWriter().write(() -> database.createNode(), "test", 1000);
+
+        WriterMetrics metrics = ((TxDrivenRuntime) runtime).getMetrics().getWriterMetrics(RuntimeMetrics.DATABASE_WRITER);
+        assertEquals(1, metrics.getEnqueuedCount());
+        assertEquals(1, metrics.getDequeuedCount());
+        assertEquals(1, metrics.getTimeInQueue().getCount());
+
+        String qualifier = ((TxDrivenRuntime) runtime).getMetrics().getDatabase();
+        ObjectName name = new ObjectName("com.graphaware.runtime:type=WriterMetrics,database=" + ObjectName.quote(qualifier) + ",writer=" + ObjectName.quote(RuntimeMetrics.DATABASE_WRITER));
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "EnqueuedCount"));
+    }
+
     @Test
     public void moduleThrowingInitExceptionShouldBeMarkedForReinitialization() {
         final TxDrivenModule mockModule = mockTxModule();
@@ -18,6 +18,7 @@ package com.graphaware.runtime.config;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -29,6 +30,9 @@ import com.graphaware.common.ping.NullStatsCollector;
 import com.graphaware.runtime.schedule.AdaptiveTimingStrategy;
 import com.graphaware.runtime.schedule.FixedDelayTimingStrategy;
 import com.graphaware.runtime.schedule.TimingStrategy;
+import com.graphaware.runtime.write.DatabaseWriterType;
+import com.graphaware.runtime.write.FluentWritingConfig;
+import com.graphaware.writer.service.OverflowPolicy;
 
 public class Neo4jConfigBasedRuntimeConfigurationTest {
 
@@ -112,4 +116,87 @@ public class Neo4jConfigBasedRuntimeConfigurationTest {
         assertEquals(GoogleAnalyticsStatsCollector.class.getName(), new Neo4jConfigBasedRuntimeConfiguration(null, config).getStatsCollector().getClass().getName());
     }
 
+    @Test
+    public void shouldUseWriterValuesSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.db.writer", "batch");
+        parameterMap.put("com.graphaware.runtime.db.writer.queueSize", "500");
+        parameterMap.put("com.graphaware.runtime.db.writer.overflowPolicy", "spill");
+        parameterMap.put("com.graphaware.runtime.db.writer.overflowTimeout", "200");
+        parameterMap.put("com.graphaware.runtime.db.writer.spillDirectory", "/tmp/spill");
+        Config config = Config.empty().with(parameterMap);
+
+        FluentWritingConfig expected = FluentWritingConfig.defaultConfiguration()
+                .withWriterType(DatabaseWriterType.BATCH)
+                .withQueueSize(500)
+                .withOverflowPolicy(OverflowPolicy.spill(new File("/tmp/spill"), 200));
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getWritingConfig());
+    }
+
+    @Test
+    public void shouldConfigureAdaptiveBatchSize() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.db.writer", "batch");
+        parameterMap.put("com.graphaware.runtime.db.writer.targetBatchLatency", "50");
+        parameterMap.put("com.graphaware.runtime.db.writer.maxBatchSize", "2000");
+        Config config = Config.empty().with(parameterMap);
+
+        FluentWritingConfig expected = FluentWritingConfig.defaultConfiguration()
+                .withWriterType(DatabaseWriterType.BATCH)
+                .withAdaptiveBatchSize(1, 2000, 50);
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getWritingConfig());
+    }
+
+    @Test
+    public void shouldConfigurePartitionedWriter() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.db.writer", "partitioned");
+        parameterMap.put("com.graphaware.runtime.db.writer.lanes", "8");
+        parameterMap.put("com.graphaware.runtime.db.writer.deadlockRetries", "5");
+        Config config = Config.empty().with(parameterMap);
+
+        FluentWritingConfig expected = FluentWritingConfig.defaultConfiguration()
+                .withWriterType(DatabaseWriterType.PARTITIONED)
+                .withLanes(8)
+                .withDeadlockRetries(5);
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getWritingConfig());
+    }
+
+    @Test
+    public void shouldConfigureDeduplicatingWriter() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.db.writer", "deduplicating");
+        parameterMap.put("com.graphaware.runtime.db.writer.batchSize", "500");
+        Config config = Config.empty().with(parameterMap);
+
+        FluentWritingConfig expected = FluentWritingConfig.defaultConfiguration()
+                .withWriterType(DatabaseWriterType.DEDUPLICATING)
+                .withBatchSize(500);
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getWritingConfig());
+    }
+
+    @Test
+    public void shouldConfigureTxCoalescing() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.db.writer", "single");
+        parameterMap.put("com.graphaware.runtime.db.writer.coalesceTasks", "100");
+        Config config = Config.empty().with(parameterMap);
+
+        FluentWritingConfig expected = FluentWritingConfig.defaultConfiguration()
+                .withWriterType(DatabaseWriterType.SINGLE_THREADED)
+                .withTxCoalescing(100, 100);
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getWritingConfig());
+    }
+
+    @Test
+    public void writerShouldDropTasksByDefault() {
+        Config config = Config.empty().with(new HashMap<String, String>());
+
+        assertEquals(FluentWritingConfig.defaultConfiguration().withOverflowPolicy(OverflowPolicy.dropNewest()), new Neo4jConfigBasedRuntimeConfiguration(null, config).getWritingConfig());
+    }
 }
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.manager;
+
+import com.graphaware.runtime.config.AsyncAfterCommitConfiguration;
+import com.graphaware.runtime.config.TxDrivenModuleConfiguration;
+import com.graphaware.runtime.metadata.TxDrivenModuleMetadata;
+import com.graphaware.runtime.metrics.TxDrivenModuleMetrics;
+import com.graphaware.runtime.module.AsyncAfterCommitModule;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.graphaware.runtime.config.AsyncAfterCommitConfiguration.OverflowPolicy.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link AfterCommitDispatcher}.
+ */
+public class AfterCommitDispatcherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void statesShouldBeProcessedInOrderOnWorkerThread() {
+        RecordingModule module = new RecordingModule(AsyncAfterCommitConfiguration.defaultConfiguration().withQueueCapacity(2));
+        TxDrivenModuleMetrics metrics = new TxDrivenModuleMetrics("test");
+
+        AfterCommitDispatcher<Integer> dispatcher = new AfterCommitDispatcher<>(module, metrics);
+        dispatcher.start();
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(i);
+        }
+
+        dispatcher.stop(5000);
+
+        assertEquals(expected(100), module.states);
+        assertFalse(module.threads.contains(Thread.currentThread().getName()));
+        assertEquals(100, metrics.getAfterCommitCount());
+        assertEquals(0, metrics.getAfterCommitQueueDepth());
+    }
+
+    @Test
+    public void statesShouldBeDroppedWhenQueueIsFull() throws InterruptedException {
+        RecordingModule module = new RecordingModule(AsyncAfterCommitConfiguration.defaultConfiguration().withQueueCapacity(2).withOverflowPolicy(DROP));
+        TxDrivenModuleMetrics metrics = new TxDrivenModuleMetrics("test");
+
+        AfterCommitDispatcher<Integer> dispatcher = new AfterCommitDispatcher<>(module, metrics);
+        dispatcher.start();
+
+        module.block();
+        dispatcher.dispatch(0);
+        module.awaitBlocked();
+
+        for (int i = 1; i < 10; i++) {
+            dispatcher.dispatch(i);
+        }
+
+        assertEquals(2, metrics.getAfterCommitQueueDepth());
+        assertEquals(7, metrics.getDroppedCount());
+
+        module.release();
+        dispatcher.stop(5000);
+
+        assertEquals(expected(3), module.states);
+    }
+
+    @Test
+    public void statesShouldBeSpilledInOrderWhenQueueIsFull() throws InterruptedException {
+        RecordingModule module = new RecordingModule(AsyncAfterCommitConfiguration.defaultConfiguration()
+                .withQueueCapacity(2)
+                .withOverflowPolicy(SPILL)
+                .withSpillDirectory(temporaryFolder.getRoot()));
+        TxDrivenModuleMetrics metrics = new TxDrivenModuleMetrics("test");
+
+        AfterCommitDispatcher<Integer> dispatcher = new AfterCommitDispatcher<>(module, metrics);
+        dispatcher.start();
+
+        module.block();
+        dispatcher.dispatch(0);
+        module.awaitBlocked();
+
+        for (int i = 1; i < 10; i++) {
+            dispatcher.dispatch(i);
+        }
+
+        assertEquals(9, metrics.getAfterCommitQueueDepth());
+        assertEquals(0, metrics.getDroppedCount());
+
+        module.release();
+        dispatcher.stop(5000);
+
+        assertEquals(expected(10), module.states);
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void spilledStatesShouldBeDrainedWithoutWaiting() throws InterruptedException {
+        RecordingModule module = new RecordingModule(AsyncAfterCommitConfiguration.defaultConfiguration()
+                .withQueueCapacity(2)
+                .withOverflowPolicy(SPILL)
+                .withSpillDirectory(temporaryFolder.getRoot()));
+        TxDrivenModuleMetrics metrics = new TxDrivenModuleMetrics("test");
+
+        AfterCommitDispatcher<Integer> dispatcher = new AfterCommitDispatcher<>(module, metrics);
+        dispatcher.start();
+
+        module.block();
+        dispatcher.dispatch(0);
+        module.awaitBlocked();
+
+        for (int i = 1; i < 500; i++) {
+            dispatcher.dispatch(i);
+        }
+
+        module.release();
+
+        //at one spilled state per poll interval, this would take 50 seconds
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.getAfterCommitQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, metrics.getAfterCommitQueueDepth());
+
+        dispatcher.stop(5000);
+
+        assertEquals(expected(500), module.states);
+    }
+
+    @Test
+    public void statesShouldBeRejectedAfterStop() {
+        RecordingModule module = new RecordingModule(AsyncAfterCommitConfiguration.defaultConfiguration());
+        TxDrivenModuleMetrics metrics = new TxDrivenModuleMetrics("test");
+
+        AfterCommitDispatcher<Integer> dispatcher = new AfterCommitDispatcher<>(module, metrics);
+        dispatcher.start();
+        dispatcher.stop(5000);
+
+        dispatcher.dispatch(0);
+
+        assertTrue(module.states.isEmpty());
+        assertEquals(1, metrics.getDroppedCount());
+    }
+
+    @Test
+    public void statesDispatchedWhileStoppingShouldBeProcessedOrCountedAsDropped() throws InterruptedException {
+        RecordingModule module = new RecordingModule(AsyncAfterCommitConfiguration.defaultConfiguration().withQueueCapacity(2).withOverflowPolicy(BLOCK));
+        TxDrivenModuleMetrics metrics = new TxDrivenModuleMetrics("test");
+
+        AfterCommitDispatcher<Integer> dispatcher = new AfterCommitDispatcher<>(module, metrics);
+        dispatcher.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    dispatcher.dispatch(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(5);
+        dispatcher.stop(5000);
+
+        for (Thread thread : threads) {
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+
+        assertEquals(4000, module.states.size() + metrics.getDroppedCount());
+    }
+
+    private List<Integer> expected(int count) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    private static class RecordingModule implements AsyncAfterCommitModule<Integer> {
+
+        private final AsyncAfterCommitConfiguration configuration;
+        private final List<Integer> states = new ArrayList<>();
+        private final List<String> threads = new ArrayList<>();
+        private volatile CountDownLatch blocked;
+        private volatile CountDownLatch release;
+
+        private RecordingModule(AsyncAfterCommitConfiguration configuration) {
+            this.configuration = configuration;
+        }
+
+        void block() {
+            blocked = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            release.countDown();
+        }
+
+        @Override
+        public void afterCommit(Integer state) {
+            if (blocked != null) {
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                blocked = null;
+            }
+
+            states.add(state);
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public AsyncAfterCommitConfiguration getAsyncAfterCommitConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public String getId() {
+            return "test";
+        }
+
+        @Override
+        public Integer beforeCommit(ImprovedTransactionData transactionData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void afterRollback(Integer state) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TxDrivenModuleConfiguration getConfiguration() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void start(GraphDatabaseService database) {
+        }
+
+        @Override
+        public void initialize(GraphDatabaseService database) {
+        }
+
+        @Override
+        public void reinitialize(GraphDatabaseService database, TxDrivenModuleMetadata oldMetadata) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.shell.ShellSettings;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -109,4 +110,69 @@ public class DefaultThirdPartyIntegrationModuleTest {
 
         database.shutdown();
     }
+
+    @Test
+    public void changedPropertiesShouldBeWrittenInChunks() throws InterruptedException {
+        GraphDatabaseService database = new TestGraphDatabaseFactory()
+                .newImpermanentDatabaseBuilder()
+                .setConfig(OnlineBackupSettings.online_backup_enabled, FALSE)
+                .setConfig(ShellSettings.remote_shell_enabled, FALSE)
+                .newGraphDatabase();
+
+        registerShutdownHook(database);
+
+        RememberingWriter writer = new RememberingWriter();
+        TxDrivenModule module = new DefaultThirdPartyIntegrationModule("test", writer, true, 2);
+
+        database.execute("CREATE (p:Person {name:'Michal', age:30})-[:WORKS_FOR {since:2013, role:'MD'}]->(c:Company {name:'GraphAware', est: 2013})");
+        database.execute("MATCH (ga:Company {name:'GraphAware'}) CREATE (p:Person {name:'Adam'})-[:WORKS_FOR {since:2014}]->(ga)");
+
+        GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database);
+        runtime.registerModule(module);
+        runtime.start();
+        runtime.waitUntilStarted();
+
+        try (Transaction tx = database.beginTx()) {
+            database.execute("MATCH (ga:Company {name:'GraphAware'}) CREATE (p:Person {name:'Daniela'})-[:WORKS_FOR]->(ga)");
+            database.execute("MATCH (p:Person {name:'Michal'}) SET p.age=31");
+            tx.success();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            database.execute("MATCH (p:Person {name:'Adam'})-[r]-() DELETE p,r");
+            database.execute("MATCH (p:Person {name:'Michal'})-[r:WORKS_FOR]->() REMOVE r.role");
+            tx.success();
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (writer.getRemembered().size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        List<Collection<WriteOperation<?>>> writeOperations = writer.getRemembered();
+        assertEquals(4, writeOperations.size());
+        assertEquals(2, writeOperations.get(0).size());
+        assertEquals(1, writeOperations.get(1).size());
+        assertEquals(2, writeOperations.get(2).size());
+        assertEquals(1, writeOperations.get(3).size());
+
+        Collection<WriteOperation<?>> all = new ArrayList<>();
+        writeOperations.forEach(all::addAll);
+
+        assertTrue(all.contains(new NodeCreated<>(
+                new GraphDetachedNode(3L, new String[]{"Person"}, MapUtil.map("name", "Daniela")))));
+
+        assertTrue(all.contains(new NodeUpdated<>(
+                new GraphDetachedNode(0L, new String[]{"Person"}, MapUtil.map("age", 30L)),
+                new GraphDetachedNode(0L, new String[]{"Person"}, MapUtil.map("age", 31L)))));
+
+        assertTrue(all.contains(new RelationshipUpdated<>(
+                new GraphDetachedRelationship(0L, 0L, 1L, "WORKS_FOR", MapUtil.map("role", "MD")),
+                new GraphDetachedRelationship(0L, 0L, 1L, "WORKS_FOR", Collections.<String, Object>emptyMap()))));
+
+        assertTrue(all.contains(new NodeDeleted<>(
+                new GraphDetachedNode(2L, new String[]{"Person"}, MapUtil.map("name", "Adam")))));
+
+        database.shutdown();
+    }
 }
@@ -20,6 +20,7 @@ import com.graphaware.writer.thirdparty.BaseThirdPartyWriter;
 import com.graphaware.writer.thirdparty.WriteOperation;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -28,7 +29,7 @@ import java.util.List;
  */
 class RememberingWriter extends BaseThirdPartyWriter {
 
-    List<Collection<WriteOperation<?>>> remembered = new LinkedList<>();
+    List<Collection<WriteOperation<?>>> remembered = Collections.synchronizedList(new LinkedList<>());
 
     @Override
     protected void processOperations(List<Collection<WriteOperation<?>>> operations) {
@@ -42,9 +42,13 @@ import com.graphaware.tx.event.improved.data.filtered.FilteredRelationshipTransa
  * nodes, properties, and relationships not included by the {@link InclusionPolicies} will be excluded. The only exception
  * to this are relationship start and end nodes - they are returned even if they would normally be filtered out. This is
  * a design decision in order to honor the requirement that relationships must have start and end node.
+ * <p/>
+ * When the {@link InclusionPolicies} include everything (see {@link InclusionPolicies#includesEverything()}), no
+ * filtering takes place and all calls are delegated to the original transaction data.
  */
 public class FilteredTransactionData extends BaseImprovedTransactionData implements ImprovedTransactionData, TransactionDataContainer {
 
+    private final TransactionDataContainer transactionDataContainer;
     private final InclusionPolicies inclusionPolicies;
     private final NodeTransactionData nodeTransactionData;
     private final RelationshipTransactionData relationshipTransactionData;
@@ -57,9 +61,17 @@ public class FilteredTransactionData extends BaseImprovedTransactionData impleme
      */
     public FilteredTransactionData(TransactionDataContainer transactionDataContainer, InclusionPolicies inclusionPolicies) {
         super(transactionDataContainer.getWrapped());
+        this.transactionDataContainer = transactionDataContainer;
         this.inclusionPolicies = inclusionPolicies;
-        nodeTransactionData = new FilteredNodeTransactionData(transactionDataContainer.getNodeTransactionData(), inclusionPolicies);
-        relationshipTransactionData = new FilteredRelationshipTransactionData(transactionDataContainer.getRelationshipTransactionData(), inclusionPolicies);
+
+        if (inclusionPolicies.includesEverything()) {
+            //nothing to filter, delegate straight to the original data rather than copying and wrapping all of it
+            nodeTransactionData = transactionDataContainer.getNodeTransactionData();
+            relationshipTransactionData = transactionDataContainer.getRelationshipTransactionData();
+        } else {
+            nodeTransactionData = new FilteredNodeTransactionData(transactionDataContainer.getNodeTransactionData(), inclusionPolicies);
+            relationshipTransactionData = new FilteredRelationshipTransactionData(transactionDataContainer.getRelationshipTransactionData(), inclusionPolicies);
+        }
     }
 
     /**
@@ -78,6 +90,14 @@ public class FilteredTransactionData extends BaseImprovedTransactionData impleme
         return relationshipTransactionData;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingTransactionData stream() {
+        return new StreamingTransactionData(transactionDataContainer, inclusionPolicies);
+    }
+
     /**
      * {@inheritDoc}
      */
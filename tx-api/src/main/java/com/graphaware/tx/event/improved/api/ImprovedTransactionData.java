@@ -387,4 +387,12 @@ public interface ImprovedTransactionData extends TransactionDataWrapper {
      * @return human-readable Strings.
      */
     Set<String> mutationsToStrings();
+
+    /**
+     * Get a streaming view of nodes and relationships created and deleted in the transaction, which doesn't hold them
+     * all in memory at once. Useful for single-pass processing of very large transactions.
+     *
+     * @return streaming view, filtered the same way as this transaction data.
+     */
+    StreamingTransactionData stream();
 }
@@ -59,4 +59,12 @@ public class LazyTransactionData extends BaseImprovedTransactionData implements
     public RelationshipTransactionData getRelationshipTransactionData() {
         return relationshipTransactionData;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingTransactionData stream() {
+        return new StreamingTransactionData(this);
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.tx.event.improved.api;
+
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.PropertyContainerInclusionPolicy;
+import com.graphaware.common.policy.inclusion.none.IncludeNone;
+import com.graphaware.tx.event.improved.data.TransactionDataContainer;
+import com.graphaware.tx.event.improved.propertycontainer.filtered.FilteredNode;
+import com.graphaware.tx.event.improved.propertycontainer.filtered.FilteredRelationship;
+import com.graphaware.tx.event.improved.propertycontainer.snapshot.NodeSnapshot;
+import com.graphaware.tx.event.improved.propertycontainer.snapshot.RelationshipSnapshot;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.helpers.collection.Iterables;
+
+import java.util.Collections;
+import java.util.function.Function;
+
+/**
+ * Streaming view of nodes and relationships created and deleted in a transaction, obtained by calling
+ * {@link ImprovedTransactionData#stream()}.
+ * <p/>
+ * As opposed to {@link ImprovedTransactionData#getAllCreatedNodes()} and friends, which index all the created or deleted
+ * {@link PropertyContainer}s on first access and keep them for the rest of the transaction, the {@link Iterable}s returned
+ * by this class read straight from the underlying {@link org.neo4j.graphdb.event.TransactionData}, build snapshots one
+ * at a time, and filter them through {@link InclusionPolicies} (if any) as they are iterated. Modules that only need a
+ * single pass over created or deleted entities (e.g. during large imports) can thus process them without holding all of
+ * them in memory at once.
+ * <p/>
+ * Returned {@link PropertyContainer}s behave exactly like the ones returned by {@link ImprovedTransactionData}, i.e.
+ * deleted ones are {@link NodeSnapshot}s and {@link RelationshipSnapshot}s and all of them are decorated with
+ * {@link FilteredNode}s and {@link FilteredRelationship}s when the stream is filtered. Note that reading properties or
+ * relationships of a deleted snapshot still causes the backing {@link ImprovedTransactionData} to index the transaction.
+ * <p/>
+ * Changed {@link PropertyContainer}s are not available through this class, as grouping property changes by the
+ * {@link PropertyContainer} they belong to requires looking at all of them first.
+ */
+public class StreamingTransactionData {
+
+    private final TransactionDataContainer transactionDataContainer;
+    private final InclusionPolicies inclusionPolicies;
+
+    /**
+     * Construct a stream that includes everything.
+     *
+     * @param transactionDataContainer container of the original, unfiltered transaction data.
+     */
+    public StreamingTransactionData(TransactionDataContainer transactionDataContainer) {
+        this(transactionDataContainer, null);
+    }
+
+    /**
+     * Construct a filtered stream.
+     *
+     * @param transactionDataContainer container of the original, unfiltered transaction data.
+     * @param inclusionPolicies        policies for filtering, <code>null</code> for no filtering.
+     */
+    public StreamingTransactionData(TransactionDataContainer transactionDataContainer, InclusionPolicies inclusionPolicies) {
+        this.transactionDataContainer = transactionDataContainer;
+        this.inclusionPolicies = inclusionPolicies == null || inclusionPolicies.includesEverything() ? null : inclusionPolicies;
+    }
+
+    /**
+     * Stream nodes created in the transaction.
+     *
+     * @return lazily evaluated iterable of created nodes.
+     */
+    public Iterable<Node> createdNodes() {
+        return stream(transactionDataContainer.getWrapped().createdNodes(), nodePolicy(), Function.identity(), this::filteredNode);
+    }
+
+    /**
+     * Stream nodes deleted in the transaction.
+     *
+     * @return lazily evaluated iterable of snapshots of deleted nodes, as they were before the transaction started.
+     */
+    public Iterable<Node> deletedNodes() {
+        return stream(transactionDataContainer.getWrapped().deletedNodes(), nodePolicy(), this::nodeSnapshot, this::filteredNode);
+    }
+
+    /**
+     * Stream relationships created in the transaction.
+     *
+     * @return lazily evaluated iterable of created relationships.
+     */
+    public Iterable<Relationship> createdRelationships() {
+        return stream(transactionDataContainer.getWrapped().createdRelationships(), relationshipPolicy(), Function.identity(), this::filteredRelationship);
+    }
+
+    /**
+     * Stream relationships deleted in the transaction.
+     *
+     * @return lazily evaluated iterable of snapshots of deleted relationships, as they were before the transaction started.
+     */
+    public Iterable<Relationship> deletedRelationships() {
+        return stream(transactionDataContainer.getWrapped().deletedRelationships(), relationshipPolicy(), this::relationshipSnapshot, this::filteredRelationship);
+    }
+
+    private <T extends PropertyContainer> Iterable<T> stream(Iterable<T> originals, PropertyContainerInclusionPolicy<T> policy, Function<T, T> snapshot, Function<T, T> filtered) {
+        if (policy == null) {
+            return Iterables.map(snapshot, originals);
+        }
+
+        if (policy instanceof IncludeNone) {
+            return Collections.emptyList();
+        }
+
+        return Iterables.map(filtered, Iterables.filter(policy::include, Iterables.map(snapshot, originals)));
+    }
+
+    private PropertyContainerInclusionPolicy<Node> nodePolicy() {
+        return inclusionPolicies == null ? null : inclusionPolicies.getNodeInclusionPolicy();
+    }
+
+    private PropertyContainerInclusionPolicy<Relationship> relationshipPolicy() {
+        return inclusionPolicies == null ? null : inclusionPolicies.getRelationshipInclusionPolicy();
+    }
+
+    private Node nodeSnapshot(Node original) {
+        return new NodeSnapshot(original, transactionDataContainer);
+    }
+
+    private Relationship relationshipSnapshot(Relationship original) {
+        return new RelationshipSnapshot(original, transactionDataContainer);
+    }
+
+    private Node filteredNode(Node original) {
+        return new FilteredNode(original, inclusionPolicies);
+    }
+
+    private Relationship filteredRelationship(Relationship original) {
+        return new FilteredRelationship(original, inclusionPolicies);
+    }
+}
@@ -69,4 +69,26 @@ public interface RelationshipTransactionData extends PropertyContainerTransactio
      *         before the transaction started.
      */
     Collection<Relationship> getDeleted(Node node, Direction direction, RelationshipType... types);
+
+    /**
+     * Get the number of relationships for the given node and of the given direction and types, which have been created
+     * in the transaction. Equivalent to, but cheaper than, counting {@link #getCreated(Node, Direction, RelationshipType...)}.
+     *
+     * @param node      for which to count created relationships.
+     * @param direction of the created relationships.
+     * @param types     of the created relationships. If no types are provided, all types are counted.
+     * @return number of created relationships for the given node of the given direction and types.
+     */
+    int getCreatedDegree(Node node, Direction direction, RelationshipType... types);
+
+    /**
+     * Get the number of relationships for the given node and of the given direction and types, which have been deleted
+     * in the transaction. Equivalent to, but cheaper than, counting {@link #getDeleted(Node, Direction, RelationshipType...)}.
+     *
+     * @param node      for which to count deleted relationships.
+     * @param direction of the deleted relationships.
+     * @param types     of the deleted relationships. If no types are provided, all types are counted.
+     * @return number of deleted relationships for the given node of the given direction and types.
+     */
+    int getDeletedDegree(Node node, Direction direction, RelationshipType... types);
 }
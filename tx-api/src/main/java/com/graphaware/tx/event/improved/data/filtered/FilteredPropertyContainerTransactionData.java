@@ -45,11 +45,18 @@ import java.util.*;
  * nodes, properties, and relationships not included by the {@link InclusionPolicies} will be excluded. The only exception
  * to this are relationship start and end nodes - they are returned even if they would normally be filtered out. This is
  * a design decision in order to honor the requirement that relationships must have start and end node.
+ * <p/>
+ * Filtered collections of all created, deleted, and changed containers are computed at most once and memoized, so that
+ * a single instance can be shared by all consumers using equal {@link InclusionPolicies}.
  */
 public abstract class FilteredPropertyContainerTransactionData<T extends PropertyContainer> {
 
     protected final InclusionPolicies policies;
 
+    private Collection<T> created = null;
+    private Collection<T> deleted = null;
+    private Collection<Change<T>> changed = null;
+
     /**
      * Construct filtered property container transaction data.
      *
@@ -107,7 +114,12 @@ public abstract class FilteredPropertyContainerTransactionData<T extends Propert
         if (getPropertyContainerInclusionPolicy() instanceof IncludeNone) {
             return Collections.emptySet();
         }
-        return filterPropertyContainers(getWrapped().getAllCreated());
+
+        if (created == null) {
+            created = Collections.unmodifiableCollection(filterPropertyContainers(getWrapped().getAllCreated()));
+        }
+
+        return created;
     }
 
     /**
@@ -143,7 +155,12 @@ public abstract class FilteredPropertyContainerTransactionData<T extends Propert
         if (getPropertyContainerInclusionPolicy() instanceof IncludeNone) {
             return Collections.emptySet();
         }
-        return filterPropertyContainers(getWrapped().getAllDeleted());
+
+        if (deleted == null) {
+            deleted = Collections.unmodifiableCollection(filterPropertyContainers(getWrapped().getAllDeleted()));
+        }
+
+        return deleted;
     }
 
     /**
@@ -179,7 +196,12 @@ public abstract class FilteredPropertyContainerTransactionData<T extends Propert
         if (getPropertyContainerInclusionPolicy() instanceof IncludeNone) {
             return Collections.emptySet();
         }
-        return filterChangedPropertyContainers(getWrapped().getAllChanged());
+
+        if (changed == null) {
+            changed = Collections.unmodifiableCollection(filterChangedPropertyContainers(getWrapped().getAllChanged()));
+        }
+
+        return changed;
     }
 
     /**
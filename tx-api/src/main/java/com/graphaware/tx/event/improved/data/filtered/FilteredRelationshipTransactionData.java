@@ -95,6 +95,22 @@ public class FilteredRelationshipTransactionData extends FilteredPropertyContain
         return filterPropertyContainers(wrapped.getDeleted(node, direction, types));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCreatedDegree(Node node, Direction direction, RelationshipType... types) {
+        return getCreated(node, direction, types).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDeletedDegree(Node node, Direction direction, RelationshipType... types) {
+        return getDeleted(node, direction, types).size();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.tx.event.improved.data.lazy;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Number of relationships of a single node, by relationship type and direction. Used for counting relationships
+ * created or deleted in a transaction, so that the degree of a node snapshot doesn't have to be computed by iterating
+ * over relationships.
+ * <p/>
+ * A relationship that starts and ends at the same node is counted once, in all directions.
+ */
+final class DegreeCounts {
+
+    private static final int OUTGOING = 0;
+    private static final int INCOMING = 1;
+    private static final int BOTH = 2;
+
+    private final int[] total = new int[3];
+    private final Map<String, int[]> byType = new HashMap<>(4);
+
+    /**
+     * Count a relationship.
+     *
+     * @param relationship to count.
+     * @param nodeId       ID of the node whose relationship is being counted. Must be the start node, end node, or both.
+     */
+    void add(Relationship relationship, long nodeId) {
+        String typeName = relationship.getType().name();
+
+        int[] ofType = byType.get(typeName);
+        if (ofType == null) {
+            ofType = new int[3];
+            byType.put(typeName, ofType);
+        }
+
+        boolean outgoing = relationship.getStartNode().getId() == nodeId;
+        boolean incoming = relationship.getEndNode().getId() == nodeId;
+
+        increment(total, outgoing, incoming);
+        increment(ofType, outgoing, incoming);
+    }
+
+    private void increment(int[] counts, boolean outgoing, boolean incoming) {
+        if (outgoing) {
+            counts[OUTGOING]++;
+        }
+        if (incoming) {
+            counts[INCOMING]++;
+        }
+        counts[BOTH]++;
+    }
+
+    /**
+     * Get the number of counted relationships.
+     *
+     * @param direction of the relationships.
+     * @param types     of the relationships. If no types are provided, all types are counted.
+     * @return number of relationships.
+     */
+    int get(Direction direction, RelationshipType... types) {
+        int index = index(direction);
+
+        if (types.length == 0) {
+            return total[index];
+        }
+
+        if (types.length == 1) {
+            return get(types[0].name(), index);
+        }
+
+        Set<String> typeNames = new HashSet<>();
+        int result = 0;
+        for (RelationshipType type : types) {
+            if (typeNames.add(type.name())) {
+                result += get(type.name(), index);
+            }
+        }
+        return result;
+    }
+
+    private int get(String typeName, int index) {
+        int[] ofType = byType.get(typeName);
+        return ofType == null ? 0 : ofType[index];
+    }
+
+    private int index(Direction direction) {
+        switch (direction) {
+            case OUTGOING:
+                return OUTGOING;
+            case INCOMING:
+                return INCOMING;
+            case BOTH:
+                return BOTH;
+            default:
+                throw new IllegalArgumentException("Unknown direction " + direction);
+        }
+    }
+}
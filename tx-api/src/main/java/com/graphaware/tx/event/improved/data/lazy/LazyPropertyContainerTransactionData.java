@@ -19,15 +19,19 @@ package com.graphaware.tx.event.improved.data.lazy;
 
 import com.graphaware.common.util.Change;
 import com.graphaware.tx.event.improved.data.PropertyContainerTransactionData;
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.logging.Log;
 import org.slf4j.Logger;
 import com.graphaware.common.log.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.graphaware.common.util.PropertyContainerUtils.id;
@@ -41,26 +45,31 @@ import static com.graphaware.common.util.PropertyContainerUtils.id;
 public abstract class LazyPropertyContainerTransactionData<T extends PropertyContainer> implements PropertyContainerTransactionData<T> {
     private static final Log LOG = LoggerFactory.getLogger(LazyPropertyContainerTransactionData.class);
 
-    private Map<Long, T> created = null;
-    private Map<Long, T> deleted = null;
-    private Map<Long, Change<T>> changed = null;
+    //maps are keyed by primitive IDs to avoid boxing, lists keep the values for iteration
+
+    private PrimitiveLongObjectMap<T> created = null;
+    private List<T> allCreated = null;
+    private PrimitiveLongObjectMap<T> deleted = null;
+    private List<T> allDeleted = null;
+    private PrimitiveLongObjectMap<Change<T>> changed = null;
+    private List<Change<T>> allChanged = null;
 
     /**
      * <ID, <key, new value>>
      */
-    private Map<Long, Map<String, Object>> createdProperties = null;
+    private PrimitiveLongObjectMap<Map<String, Object>> createdProperties = null;
     /**
      * <ID, <key, old value>>
      */
-    private Map<Long, Map<String, Object>> deletedProperties = null;
+    private PrimitiveLongObjectMap<Map<String, Object>> deletedProperties = null;
     /**
      * <ID, <key, old and new value>>
      */
-    private Map<Long, Map<String, Change<Object>>> changedProperties = null;
+    private PrimitiveLongObjectMap<Map<String, Change<Object>>> changedProperties = null;
     /**
      * <ID, <key, old value>> of properties of deleted property containers
      */
-    private Map<Long, Map<String, Object>> deletedContainersProperties = null;
+    private PrimitiveLongObjectMap<Map<String, Object>> deletedContainersProperties = null;
 
     /**
      * Create an old snapshot of an original property container.
@@ -93,16 +102,19 @@ public abstract class LazyPropertyContainerTransactionData<T extends PropertyCon
     @Override
     public Collection<T> getAllCreated() {
         initializeCreated();
-        return Collections.unmodifiableCollection(created.values());
+        return Collections.unmodifiableCollection(allCreated);
     }
 
     private void initializeCreated() {
         if (created == null) {
 
-            created = new HashMap<>();
+            created = Primitive.longObjectMap();
+            allCreated = new ArrayList<>();
 
             for (T created : created()) {
-                this.created.put(id(created), newSnapshot(created));
+                T snapshot = newSnapshot(created);
+                this.created.put(id(created), snapshot);
+                allCreated.add(snapshot);
             }
         }
     }
@@ -143,16 +155,19 @@ public abstract class LazyPropertyContainerTransactionData<T extends PropertyCon
     @Override
     public Collection<T> getAllDeleted() {
         initializeDeleted();
-        return Collections.unmodifiableCollection(deleted.values());
+        return Collections.unmodifiableCollection(allDeleted);
     }
 
     private void initializeDeleted() {
         if (deleted == null) {
 
-            deleted = new HashMap<>();
+            deleted = Primitive.longObjectMap();
+            allDeleted = new ArrayList<>();
 
             for (T deleted : deleted()) {
-                this.deleted.put(id(deleted), oldSnapshot(deleted));
+                T snapshot = oldSnapshot(deleted);
+                this.deleted.put(id(deleted), snapshot);
+                allDeleted.add(snapshot);
             }
         }
     }
@@ -193,7 +208,7 @@ public abstract class LazyPropertyContainerTransactionData<T extends PropertyCon
     @Override
     public Collection<Change<T>> getAllChanged() {
         initializeChanged();
-        return Collections.unmodifiableCollection(changed.values());
+        return Collections.unmodifiableCollection(allChanged);
     }
 
     protected void initializeChanged() {
@@ -201,7 +216,8 @@ public abstract class LazyPropertyContainerTransactionData<T extends PropertyCon
         initializeDeleted();
 
         if (changed == null) {
-            changed = new HashMap<>();
+            changed = Primitive.longObjectMap();
+            allChanged = new ArrayList<>();
 
             for (PropertyEntry<T> propertyEntry : assignedProperties()) {
                 if (hasNotActuallyChanged(propertyEntry)) {
@@ -233,6 +249,7 @@ public abstract class LazyPropertyContainerTransactionData<T extends PropertyCon
         if (!changedContainsKey(candidate)) {
             Change<T> change = createChangeObject(candidate);
             changed.put(id(candidate), change);
+            allChanged.add(change);
         }
     }
 
@@ -404,10 +421,10 @@ public abstract class LazyPropertyContainerTransactionData<T extends PropertyCon
         //initializeDeleted(); // - called by initializeChanged()
         initializeChanged();
 
-        createdProperties = new HashMap<>();
-        deletedProperties = new HashMap<>();
-        changedProperties = new HashMap<>();
-        deletedContainersProperties = new HashMap<>();
+        createdProperties = Primitive.longObjectMap();
+        deletedProperties = Primitive.longObjectMap();
+        changedProperties = Primitive.longObjectMap();
+        deletedContainersProperties = Primitive.longObjectMap();
 
         for (PropertyEntry<T> propertyEntry : assignedProperties()) {
             T container = propertyEntry.entity();
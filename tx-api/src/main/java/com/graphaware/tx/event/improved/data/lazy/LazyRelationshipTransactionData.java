@@ -20,6 +20,8 @@ import com.graphaware.common.util.Change;
 import com.graphaware.tx.event.improved.data.RelationshipTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
 import com.graphaware.tx.event.improved.propertycontainer.snapshot.RelationshipSnapshot;
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -27,8 +29,11 @@ import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.graphdb.event.TransactionData;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.graphaware.common.util.DirectionUtils.matches;
@@ -42,6 +47,23 @@ public class LazyRelationshipTransactionData extends LazyPropertyContainerTransa
     private final TransactionData transactionData;
     private final TransactionDataContainer transactionDataContainer;
 
+    /**
+     * <node ID, created relationships of the node>
+     */
+    private PrimitiveLongObjectMap<List<Relationship>> createdByNode = null;
+    /**
+     * <node ID, deleted relationships of the node>
+     */
+    private PrimitiveLongObjectMap<List<Relationship>> deletedByNode = null;
+    /**
+     * <node ID, counts of created relationships of the node>
+     */
+    private PrimitiveLongObjectMap<DegreeCounts> createdDegrees = null;
+    /**
+     * <node ID, counts of deleted relationships of the node>
+     */
+    private PrimitiveLongObjectMap<DegreeCounts> deletedDegrees = null;
+
     /**
      * Construct relationship transaction data from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
      *
@@ -114,7 +136,11 @@ public class LazyRelationshipTransactionData extends LazyPropertyContainerTransa
      */
     @Override
     public Collection<Relationship> getCreated(Node node, Direction direction, RelationshipType... types) {
-        return filterRelationships(getAllCreated(), node, direction, types);
+        if (createdByNode == null) {
+            createdByNode = indexByNode(getAllCreated());
+        }
+
+        return filterRelationships(createdByNode.get(node.getId()), node, direction, types);
     }
 
     /**
@@ -130,18 +156,124 @@ public class LazyRelationshipTransactionData extends LazyPropertyContainerTransa
      */
     @Override
     public Collection<Relationship> getDeleted(Node node, Direction direction, RelationshipType... types) {
-        return filterRelationships(getAllDeleted(), node, direction, types);
+        if (deletedByNode == null) {
+            deletedByNode = indexByNode(getAllDeleted());
+        }
+
+        return filterRelationships(deletedByNode.get(node.getId()), node, direction, types);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCreatedDegree(Node node, Direction direction, RelationshipType... types) {
+        if (createdDegrees == null) {
+            createdDegrees = countByNode(getAllCreated());
+        }
+
+        return degree(createdDegrees.get(node.getId()), direction, types);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDeletedDegree(Node node, Direction direction, RelationshipType... types) {
+        if (deletedDegrees == null) {
+            deletedDegrees = countByNode(getAllDeleted());
+        }
+
+        return degree(deletedDegrees.get(node.getId()), direction, types);
+    }
+
+    /**
+     * Index relationships by the IDs of their start and end nodes, so that looking up relationships of a single node
+     * costs time proportional to the number of that node's relationships in the transaction, rather than the number of
+     * all relationships in the transaction.
+     *
+     * @param relationships to index.
+     * @return relationships keyed by node ID.
+     */
+    private PrimitiveLongObjectMap<List<Relationship>> indexByNode(Iterable<Relationship> relationships) {
+        PrimitiveLongObjectMap<List<Relationship>> result = Primitive.longObjectMap();
+
+        for (Relationship r : relationships) {
+            long startNodeId = r.getStartNode().getId();
+            long endNodeId = r.getEndNode().getId();
+
+            addToIndex(result, startNodeId, r);
+            if (endNodeId != startNodeId) {
+                addToIndex(result, endNodeId, r);
+            }
+        }
+
+        return result;
+    }
+
+    private void addToIndex(PrimitiveLongObjectMap<List<Relationship>> index, long nodeId, Relationship relationship) {
+        List<Relationship> relationships = index.get(nodeId);
+        if (relationships == null) {
+            relationships = new ArrayList<>();
+            index.put(nodeId, relationships);
+        }
+        relationships.add(relationship);
+    }
+
+    /**
+     * Count relationships by the IDs of their start and end nodes, type, and direction, in a single pass, so that
+     * degree lookups for a single node take constant time.
+     *
+     * @param relationships to count.
+     * @return relationship counts keyed by node ID.
+     */
+    private PrimitiveLongObjectMap<DegreeCounts> countByNode(Iterable<Relationship> relationships) {
+        PrimitiveLongObjectMap<DegreeCounts> result = Primitive.longObjectMap();
+
+        for (Relationship r : relationships) {
+            long startNodeId = r.getStartNode().getId();
+            long endNodeId = r.getEndNode().getId();
+
+            addToCounts(result, startNodeId, r);
+            if (endNodeId != startNodeId) {
+                addToCounts(result, endNodeId, r);
+            }
+        }
+
+        return result;
+    }
+
+    private void addToCounts(PrimitiveLongObjectMap<DegreeCounts> counts, long nodeId, Relationship relationship) {
+        DegreeCounts degreeCounts = counts.get(nodeId);
+        if (degreeCounts == null) {
+            degreeCounts = new DegreeCounts();
+            counts.put(nodeId, degreeCounts);
+        }
+        degreeCounts.add(relationship, nodeId);
+    }
+
+    private int degree(DegreeCounts counts, Direction direction, RelationshipType[] types) {
+        if (counts == null) {
+            return 0;
+        }
+
+        return counts.get(direction, types);
     }
 
     /**
      * Filter relationships based on type and direction.
      *
-     * @param node      whose point of view we're looking.
-     * @param direction of the relationships to be incuded.
-     * @param types     of the relationships to be included.
+     * @param relationships candidates, can be <code>null</code>, meaning no candidates.
+     * @param node          whose point of view we're looking.
+     * @param direction     of the relationships to be incuded.
+     * @param types         of the relationships to be included.
      * @return filtered relationships.
      */
     private Collection<Relationship> filterRelationships(Iterable<Relationship> relationships, Node node, Direction direction, RelationshipType[] types) {
+        if (relationships == null) {
+            return Collections.emptySet();
+        }
+
         Set<String> typeNames = new HashSet<>();
         for (RelationshipType type : types) {
             typeNames.add(type.name());
@@ -140,10 +140,10 @@ public class NodeSnapshot extends PropertyContainerSnapshot<Node> implements Nod
         if (!transactionDataContainer.getNodeTransactionData().hasBeenDeleted(this)) {
             degree = super.getDegree();
         }
-        long removed = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getDeleted(this));
-        long added = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getCreated(this));
+        int removed = transactionDataContainer.getRelationshipTransactionData().getDeletedDegree(this, Direction.BOTH);
+        int added = transactionDataContainer.getRelationshipTransactionData().getCreatedDegree(this, Direction.BOTH);
 
-        return degree + (int) removed - (int) added;
+        return degree + removed - added;
     }
 
     /**
@@ -155,10 +155,10 @@ public class NodeSnapshot extends PropertyContainerSnapshot<Node> implements Nod
         if (!transactionDataContainer.getNodeTransactionData().hasBeenDeleted(this)) {
             degree = super.getDegree(type);
         }
-        long removed = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getDeleted(this, type));
-        long added = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getCreated(this, type));
+        int removed = transactionDataContainer.getRelationshipTransactionData().getDeletedDegree(this, Direction.BOTH, type);
+        int added = transactionDataContainer.getRelationshipTransactionData().getCreatedDegree(this, Direction.BOTH, type);
 
-        return degree + (int) removed - (int) added;
+        return degree + removed - added;
     }
 
     /**
@@ -170,10 +170,10 @@ public class NodeSnapshot extends PropertyContainerSnapshot<Node> implements Nod
         if (!transactionDataContainer.getNodeTransactionData().hasBeenDeleted(this)) {
             degree = super.getDegree(direction);
         }
-        long removed = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getDeleted(this, direction));
-        long added = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getCreated(this, direction));
+        int removed = transactionDataContainer.getRelationshipTransactionData().getDeletedDegree(this, direction);
+        int added = transactionDataContainer.getRelationshipTransactionData().getCreatedDegree(this, direction);
 
-        return degree + (int) removed - (int) added;
+        return degree + removed - added;
     }
 
     /**
@@ -185,9 +185,9 @@ public class NodeSnapshot extends PropertyContainerSnapshot<Node> implements Nod
         if (!transactionDataContainer.getNodeTransactionData().hasBeenDeleted(this)) {
             degree = super.getDegree(type, direction);
         }
-        long removed = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getDeleted(this, direction, type));
-        long added = IterableUtils.count(transactionDataContainer.getRelationshipTransactionData().getCreated(this, direction, type));
+        int removed = transactionDataContainer.getRelationshipTransactionData().getDeletedDegree(this, direction, type);
+        int added = transactionDataContainer.getRelationshipTransactionData().getCreatedDegree(this, direction, type);
 
-        return degree + (int) removed - (int) added;
+        return degree + removed - added;
     }
 }
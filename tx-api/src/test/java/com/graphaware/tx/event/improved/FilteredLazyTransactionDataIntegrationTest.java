@@ -23,6 +23,7 @@ import com.graphaware.test.util.TestDataBuilder;
 import com.graphaware.tx.event.improved.api.FilteredTransactionData;
 import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import com.graphaware.tx.event.improved.api.LazyTransactionData;
+import com.graphaware.tx.event.improved.api.StreamingTransactionData;
 import com.graphaware.tx.executor.single.*;
 import org.junit.After;
 import org.junit.Test;
@@ -55,6 +56,7 @@ import static org.neo4j.graphdb.Direction.INCOMING;
 import static org.neo4j.graphdb.Direction.OUTGOING;
 import static org.neo4j.graphdb.Label.label;
 import static org.neo4j.graphdb.RelationshipType.withName;
+import static org.neo4j.helpers.collection.Iterables.asList;
 import static org.neo4j.kernel.configuration.Settings.*;
 
 /**
@@ -846,6 +848,30 @@ public class FilteredLazyTransactionDataIntegrationTest {
     }
 
 
+    @Test
+    public void streamedPropertyContainersShouldMatchIndexedOnes() {
+        createTestDatabase();
+        mutateGraph(
+                new BeforeCommitCallback() {
+                    @Override
+                    public void doBeforeCommit(ImprovedTransactionData transactionData) {
+                        StreamingTransactionData stream = transactionData.stream();
+
+                        Map<Long, Node> createdNodes = propertyContainersToMap(asList(stream.createdNodes()));
+                        assertEquals(propertyContainersToMap(transactionData.getAllCreatedNodes()).keySet(), createdNodes.keySet());
+                        assertProperties(createdNodes.get(5L), NAME, "Five", "size", 4L);
+
+                        Map<Long, Node> deletedNodes = propertyContainersToMap(asList(stream.deletedNodes()));
+                        assertEquals(propertyContainersToMap(transactionData.getAllDeletedNodes()).keySet(), deletedNodes.keySet());
+                        assertProperties(deletedNodes.get(2L), NAME, "Two", "size", 2L);
+
+                        assertEquals(propertyContainersToMap(transactionData.getAllCreatedRelationships()).keySet(), propertyContainersToMap(asList(stream.createdRelationships())).keySet());
+                        assertEquals(propertyContainersToMap(transactionData.getAllDeletedRelationships()).keySet(), propertyContainersToMap(asList(stream.deletedRelationships())).keySet());
+                    }
+                }
+        );
+    }
+
     @Test
     public void startingWithDeletedNodePreviousGraphVersionShouldBeTraversedUsingNativeApi() {
         createTestDatabase();
@@ -661,6 +661,37 @@ public class LazyTransactionDataComprehensiveTest {
         );
     }
 
+    @Test
+    public void previousChangedNodeDegreesShouldBeCorrect() {
+        createTestDatabase();
+        mutateGraph(
+                new BeforeCommitCallback.RememberingAdapter() {
+                    @Override
+                    public void doBeforeCommit(ImprovedTransactionData td) {
+                        Map<Long, Change<Node>> changed = changesToMap(td.getAllChangedNodes());
+
+                        Node one = changed.get(1L).getPrevious();
+                        assertEquals(4, one.getDegree());
+                        assertEquals(1, one.getDegree(R1));
+                        assertEquals(2, one.getDegree(R3));
+                        assertEquals(0, one.getDegree(R2));
+                        assertEquals(3, one.getDegree(OUTGOING));
+                        assertEquals(1, one.getDegree(INCOMING));
+                        assertEquals(1, one.getDegree(R3, OUTGOING));
+                        assertEquals(0, one.getDegree(R1, INCOMING));
+                        assertEquals(3, changed.get(1L).getCurrent().getDegree());
+
+                        Node three = changed.get(3L).getPrevious();
+                        assertEquals(4, three.getDegree());
+                        assertEquals(1, three.getDegree(R1));
+                        assertEquals(2, three.getDegree(INCOMING));
+                        assertEquals(1, three.getDegree(R2, INCOMING));
+                        assertEquals(0, three.getDegree(R1, INCOMING));
+                    }
+                }
+        );
+    }
+
     @Test
     public void startingWithPreviousChangedNodePreviousGraphVersionShouldBeTraversedUsingTraversalApi() {
         createTestDatabase();
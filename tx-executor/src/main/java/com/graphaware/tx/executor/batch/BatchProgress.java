@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import com.graphaware.tx.executor.input.SizedInput;
+
+/**
+ * Immutable snapshot of the progress of a {@link BatchTransactionExecutor}, passed to {@link BatchProgressListener}s.
+ * <p/>
+ * The estimated time remaining is only known when the executor knows how many steps there will be, e.g. when its input
+ * is a {@link SizedInput} or a {@link java.util.Collection}.
+ */
+public final class BatchProgress {
+
+    private final long totalSteps;
+    private final long successfulSteps;
+    private final long committedBatches;
+    private final long rolledBackBatches;
+    private final int queueSize;
+    private final int queueCapacity;
+    private final long estimatedTotalSteps;
+    private final long elapsedMillis;
+    private final boolean finished;
+
+    /**
+     * Create a new snapshot.
+     *
+     * @param totalSteps          number of steps executed so far, including the ones that have failed.
+     * @param successfulSteps     number of steps whose transaction has been committed.
+     * @param committedBatches    number of batches whose transaction has been committed.
+     * @param rolledBackBatches   number of batches whose transaction has been rolled back.
+     * @param queueSize           number of input items waiting in the queue, 0 if the executor has no queue.
+     * @param queueCapacity       capacity of the queue, 0 if the executor has no queue.
+     * @param estimatedTotalSteps estimated number of steps of the whole execution, negative if unknown.
+     * @param elapsedMillis       time since the execution started.
+     * @param finished            <code>true</code> iff the execution has finished.
+     */
+    public BatchProgress(long totalSteps, long successfulSteps, long committedBatches, long rolledBackBatches, int queueSize, int queueCapacity, long estimatedTotalSteps, long elapsedMillis, boolean finished) {
+        this.totalSteps = totalSteps;
+        this.successfulSteps = successfulSteps;
+        this.committedBatches = committedBatches;
+        this.rolledBackBatches = rolledBackBatches;
+        this.queueSize = queueSize;
+        this.queueCapacity = queueCapacity;
+        this.estimatedTotalSteps = estimatedTotalSteps;
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+    }
+
+    /**
+     * @return number of steps executed so far, including the ones that have failed.
+     */
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * @return number of steps whose transaction has been committed.
+     */
+    public long getSuccessfulSteps() {
+        return successfulSteps;
+    }
+
+    /**
+     * @return number of steps whose transaction has been rolled back, or which haven't been committed yet.
+     */
+    public long getFailedSteps() {
+        return Math.max(0, totalSteps - successfulSteps);
+    }
+
+    /**
+     * @return number of batches whose transaction has been committed.
+     */
+    public long getCommittedBatches() {
+        return committedBatches;
+    }
+
+    /**
+     * @return number of batches whose transaction has been rolled back.
+     */
+    public long getRolledBackBatches() {
+        return rolledBackBatches;
+    }
+
+    /**
+     * @return number of input items waiting in the queue, 0 if the executor has no queue.
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return capacity of the queue, 0 if the executor has no queue.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return estimated number of steps of the whole execution, negative if unknown.
+     */
+    public long getEstimatedTotalSteps() {
+        return estimatedTotalSteps;
+    }
+
+    /**
+     * @return time since the execution started in ms.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return <code>true</code> iff the execution has finished.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return average number of steps executed per second since the execution started.
+     */
+    public double getStepsPerSecond() {
+        if (elapsedMillis <= 0) {
+            return 0;
+        }
+
+        return totalSteps * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Estimate the time remaining, assuming the remaining steps are executed at the average rate so far.
+     *
+     * @return estimated time remaining in ms, 0 if finished, negative if unknown.
+     */
+    public long getEstimatedRemainingMillis() {
+        if (finished) {
+            return 0;
+        }
+
+        if (estimatedTotalSteps < 0 || totalSteps == 0 || elapsedMillis <= 0) {
+            return -1;
+        }
+
+        return Math.max(0, estimatedTotalSteps - totalSteps) * elapsedMillis / totalSteps;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder()
+                .append(totalSteps);
+
+        if (estimatedTotalSteps >= 0) {
+            result.append(" of ~").append(estimatedTotalSteps);
+        }
+
+        result.append(" steps (").append(getFailedSteps()).append(" failed) in ")
+                .append(committedBatches).append(" committed and ")
+                .append(rolledBackBatches).append(" rolled back batches, ")
+                .append(String.format("%.1f", getStepsPerSecond())).append(" steps/s");
+
+        if (queueCapacity > 0) {
+            result.append(", queue ").append(queueSize).append("/").append(queueCapacity);
+        }
+
+        result.append(", elapsed ").append(elapsedMillis).append(" ms");
+
+        if (finished) {
+            result.append(", finished");
+        } else if (getEstimatedRemainingMillis() >= 0) {
+            result.append(", ETA ").append(getEstimatedRemainingMillis()).append(" ms");
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+/**
+ * Listener notified of the {@link BatchProgress} of a {@link BatchTransactionExecutor}. Registered using
+ * {@link BatchTransactionExecutor#addProgressListener(BatchProgressListener)}.
+ * <p/>
+ * Executors notify their listeners after every batch, possibly from multiple threads at the same time, so listeners
+ * must be thread-safe and quick. Use {@link LoggingProgressListener} to log the progress periodically.
+ */
+public interface BatchProgressListener {
+
+    /**
+     * Handle progress of the execution.
+     *
+     * @param progress snapshot of the progress.
+     */
+    void onProgress(BatchProgress progress);
+}
@@ -25,4 +25,15 @@ public interface BatchTransactionExecutor {
      * Execute work in batches.
      */
     void execute();
+
+    /**
+     * Register a listener notified of the progress of the execution. Listeners must be registered before the execution
+     * starts. Executors that don't track their progress never notify the listener, which is what this default
+     * implementation, kept for executors written before progress tracking was introduced, does.
+     *
+     * @param listener to register.
+     */
+    default void addProgressListener(BatchProgressListener listener) {
+        //no-op by default
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.List;
+
+/**
+ * A unit of work executed for a whole batch of input items at once, as a part of batch execution by
+ * {@link BatchTransactionExecutor}. An alternative to {@link UnitOfWork} for cheap operations, where the per-item
+ * overhead would dominate, or for operations that benefit from seeing all items of a batch, such as bulk writes.
+ *
+ * @param <T> type of the input items.
+ */
+public interface BatchUnitOfWork<T> {
+
+    /**
+     * Execute the unit of work. If it throws an exception, the transaction of the whole batch is rolled back.
+     *
+     * @param database    against which to execute the work.
+     * @param batch       input items of the batch, never empty. Only valid for the duration of the call.
+     * @param batchNumber current batch number.
+     */
+    void execute(GraphDatabaseService database, List<T> batch, int batchNumber);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+/**
+ * Callback receiving input items that could not be processed by a {@link BatchTransactionExecutor}, even after
+ * retrying, so that they can be stored, reported, or processed later. Must be thread-safe.
+ *
+ * @param <T> type of the input items.
+ */
+public interface DeadLetterCallback<T> {
+
+    /**
+     * Receive an item that could not be processed.
+     *
+     * @param item  that could not be processed.
+     * @param cause of the last failure to process the item.
+     */
+    void deadLetter(T item, RuntimeException cause);
+}
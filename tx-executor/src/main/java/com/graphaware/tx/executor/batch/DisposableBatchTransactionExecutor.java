@@ -16,6 +16,13 @@
 
 package com.graphaware.tx.executor.batch;
 
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.tx.executor.input.SizedInput;
+import org.neo4j.logging.Log;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -23,8 +30,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * After that, it must be discarded.
  */
 public abstract class DisposableBatchTransactionExecutor implements BatchTransactionExecutor {
+    private static final Log LOG = LoggerFactory.getLogger(DisposableBatchTransactionExecutor.class);
 
     private final AtomicBoolean alreadyExecuted = new AtomicBoolean(false);
+    private final List<BatchProgressListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * {@inheritDoc}
@@ -33,6 +42,7 @@ public abstract class DisposableBatchTransactionExecutor implements BatchTransac
     public final void execute() {
         if (alreadyExecuted.compareAndSet(false, true)) {
             doExecute();
+            reportProgress(true);
         } else {
             throw new IllegalStateException("DisposableBatchExecutor must only ever be executed once!");
         }
@@ -42,4 +52,66 @@ public abstract class DisposableBatchTransactionExecutor implements BatchTransac
      * Execute work in batches.
      */
     protected abstract void doExecute();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addProgressListener(BatchProgressListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Take a snapshot of the progress of the execution. Executors that track their progress should override this method,
+     * which returns <code>null</code> by default.
+     *
+     * @param finished <code>true</code> iff the execution has finished.
+     * @return progress, <code>null</code> if not tracked.
+     */
+    protected BatchProgress currentProgress(boolean finished) {
+        return null;
+    }
+
+    /**
+     * Notify registered listeners of the {@link #currentProgress(boolean)}. Called after {@link #doExecute()} with
+     * <code>finished</code> set to <code>true</code>; subclasses should call it after every batch.
+     *
+     * @param finished <code>true</code> iff the execution has finished.
+     */
+    protected final void reportProgress(boolean finished) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        BatchProgress progress = currentProgress(finished);
+        if (progress == null) {
+            return;
+        }
+
+        for (BatchProgressListener listener : listeners) {
+            try {
+                listener.onProgress(progress);
+            } catch (RuntimeException e) {
+                LOG.warn("Progress listener threw an exception", e);
+            }
+        }
+    }
+
+    /**
+     * Estimate the number of items the given input will produce.
+     *
+     * @param input to estimate the size of.
+     * @return estimated number of items, negative if unknown.
+     */
+    protected static long estimatedSize(Iterable<?> input) {
+        if (input instanceof SizedInput) {
+            return ((SizedInput) input).estimatedSize();
+        }
+
+        if (input instanceof Collection) {
+            return ((Collection<?>) input).size();
+        }
+
+        return -1;
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.tx.executor.NullItem;
+import com.graphaware.tx.executor.single.TransactionExecutor;
+import org.neo4j.logging.Log;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes the items of a batch whose transaction has been rolled back again, as configured by
+ * {@link RetryFailedBatches}, for the {@link BatchTransactionExecutor}s that accept it.
+ *
+ * @param <T> type of the input items.
+ */
+final class FailedBatchRetrier<T> {
+    private static final Log LOG = LoggerFactory.getLogger(FailedBatchRetrier.class);
+
+    private final TransactionExecutor executor;
+    private final RetryFailedBatches<? super T> retry;
+    private final UnitOfWork<T> unitOfWork;
+    private final BatchUnitOfWork<T> batchUnitOfWork;
+
+    /**
+     * Create a new retrier. Exactly one of the units of work must be non-<code>null</code>.
+     *
+     * @param executor        executing transactions.
+     * @param retry           strategy for retrying failed batches.
+     * @param unitOfWork      to be executed for each item, <code>null</code> if items are executed a batch at a time.
+     * @param batchUnitOfWork to be executed for each batch of items, <code>null</code> if items are executed one by one.
+     */
+    FailedBatchRetrier(TransactionExecutor executor, RetryFailedBatches<? super T> retry, UnitOfWork<T> unitOfWork, BatchUnitOfWork<T> batchUnitOfWork) {
+        this.executor = executor;
+        this.retry = retry;
+        this.unitOfWork = unitOfWork;
+        this.batchUnitOfWork = batchUnitOfWork;
+    }
+
+    /**
+     * Retry items of a failed batch with backoff, isolating the failing items if retrying doesn't help.
+     *
+     * @param items   of the failed batch.
+     * @param batchNo number of the batch.
+     * @param cause   of the failure.
+     * @return number of items that have been executed successfully.
+     */
+    int retry(List<T> items, int batchNo, RuntimeException cause) {
+        for (int attempt = 1; attempt <= retry.getMaxRetries(); attempt++) {
+            retry.backOff(attempt);
+
+            cause = executeAgain(items, batchNo);
+            if (cause == null) {
+                LOG.info("Batch number " + batchNo + " (" + items.size() + " items) succeeded on retry " + attempt);
+                return items.size();
+            }
+        }
+
+        if (items.size() == 1) {
+            retry.deadLetter(items.get(0), cause);
+            return 0;
+        }
+
+        return isolate(items, batchNo);
+    }
+
+    /**
+     * Execute the halves of a failed batch separately, retrying single failing items and isolating the failing items
+     * of the larger halves further.
+     *
+     * @param items   of the failed batch.
+     * @param batchNo number of the batch.
+     * @return number of items that have been executed successfully.
+     */
+    private int isolate(List<T> items, int batchNo) {
+        int middle = items.size() / 2;
+        int succeeded = 0;
+
+        for (List<T> half : Arrays.asList(items.subList(0, middle), items.subList(middle, items.size()))) {
+            RuntimeException cause = executeAgain(half, batchNo);
+
+            if (cause == null) {
+                succeeded += half.size();
+            } else if (half.size() == 1) {
+                succeeded += retry(half, batchNo, cause);
+            } else {
+                succeeded += isolate(half, batchNo);
+            }
+        }
+
+        return succeeded;
+    }
+
+    /**
+     * Execute the given items of a failed batch in a new transaction.
+     *
+     * @param items   to execute.
+     * @param batchNo number of the batch.
+     * @return the exception that caused the transaction to roll back, <code>null</code> if it succeeded.
+     */
+    private RuntimeException executeAgain(List<T> items, int batchNo) {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        NullItem result = executor.executeInTransaction(database -> {
+            if (batchUnitOfWork != null) {
+                batchUnitOfWork.execute(database, items, batchNo);
+            } else {
+                int step = 0;
+                for (T item : items) {
+                    unitOfWork.execute(database, item, batchNo, ++step);
+                }
+            }
+            return NullItem.getInstance();
+        }, e -> {
+            failure.set(e);
+            retry.handleException(e);
+        });
+
+        return result == null ? failure.get() : null;
+    }
+}
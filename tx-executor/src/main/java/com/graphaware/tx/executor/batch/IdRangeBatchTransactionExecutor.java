@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.tx.executor.NullItem;
+import com.graphaware.tx.executor.input.IdRange;
+import com.graphaware.tx.executor.input.NodeIdRange;
+import com.graphaware.tx.executor.input.RelationshipIdRange;
+import com.graphaware.tx.executor.single.KeepCalmAndCarryOn;
+import com.graphaware.tx.executor.single.SimpleTransactionExecutor;
+import com.graphaware.tx.executor.single.TransactionExecutor;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link BatchTransactionExecutor} which executes a {@link UnitOfWork} for each entity, or a {@link BatchUnitOfWork} for
+ * each batch of entities, in a number of {@link IdRange}s,
+ * e.g. produced by {@link NodeIdRange#split(GraphDatabaseService, int, int)} or
+ * {@link RelationshipIdRange#split(GraphDatabaseService, int, int)}. Each range is scanned and processed by a single
+ * thread, so unlike {@link MultiThreadedBatchTransactionExecutor}, there is no producer thread and no queue shared by
+ * the threads. Splitting into more ranges than there are threads evens out the work when the ranges are unevenly
+ * populated.
+ * <p/>
+ * Each batch covers a block of consecutive IDs of the size of a batch, so batches have fewer steps when some of the IDs
+ * aren't in use.
+ * <p/>
+ * By default, the entities of a batch whose transaction is rolled back are lost. When constructed with
+ * {@link RetryFailedBatches}, failed batches are retried, which is recommended with many threads, as their batches may
+ * deadlock with each other.
+ *
+ * @param <T> type of the input item, on which steps are executed.
+ */
+public class IdRangeBatchTransactionExecutor<T extends Entity> extends DisposableBatchTransactionExecutor {
+    private static final Log LOG = LoggerFactory.getLogger(IdRangeBatchTransactionExecutor.class);
+
+    private final int batchSize;
+    private final List<? extends IdRange<T>> ranges;
+    private final UnitOfWork<T> unitOfWork;
+    private final BatchUnitOfWork<T> batchUnitOfWork;
+    private final int numberOfThreads;
+    private final TransactionExecutor executor;
+    private final RetryFailedBatches<? super T> retry;
+    private final FailedBatchRetrier<T> retrier;
+
+    private final AtomicInteger totalSteps = new AtomicInteger(0);
+    private final AtomicInteger batches = new AtomicInteger(0);
+    private final AtomicInteger successfulSteps = new AtomicInteger(0);
+    private final AtomicInteger committedBatches = new AtomicInteger(0);
+    private final AtomicInteger rolledBackBatches = new AtomicInteger(0);
+    private volatile long startedAt;
+    private volatile long estimatedSteps;
+
+    /**
+     * Create a new executor with as many threads as there are CPU cores.
+     *
+     * @param database   against which to execute batched queries.
+     * @param batchSize  how many IDs are in a single batch.
+     * @param ranges     of IDs to process.
+     * @param unitOfWork to be executed for each entity. Must be thread-safe.
+     */
+    public IdRangeBatchTransactionExecutor(GraphDatabaseService database, int batchSize, List<? extends IdRange<T>> ranges, UnitOfWork<T> unitOfWork) {
+        this(database, batchSize, ranges, unitOfWork, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new executor with as many threads as there are CPU cores.
+     *
+     * @param database        against which to execute batched queries.
+     * @param batchSize       how many IDs are in a single batch.
+     * @param ranges          of IDs to process.
+     * @param batchUnitOfWork to be executed for each batch of entities. Must be thread-safe.
+     */
+    public IdRangeBatchTransactionExecutor(GraphDatabaseService database, int batchSize, List<? extends IdRange<T>> ranges, BatchUnitOfWork<T> batchUnitOfWork) {
+        this(database, batchSize, ranges, batchUnitOfWork, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new executor.
+     *
+     * @param database        against which to execute batched queries.
+     * @param batchSize       how many IDs are in a single batch.
+     * @param ranges          of IDs to process.
+     * @param unitOfWork      to be executed for each entity. Must be thread-safe.
+     * @param numberOfThreads the total number of threads used for the execution.
+     */
+    public IdRangeBatchTransactionExecutor(GraphDatabaseService database, int batchSize, List<? extends IdRange<T>> ranges, UnitOfWork<T> unitOfWork, int numberOfThreads) {
+        this(database, batchSize, ranges, unitOfWork, null, numberOfThreads, null);
+    }
+
+    /**
+     * Create a new executor, which retries batches that fail.
+     *
+     * @param database        against which to execute batched queries.
+     * @param batchSize       how many IDs are in a single batch.
+     * @param ranges          of IDs to process.
+     * @param unitOfWork      to be executed for each entity. Must be thread-safe.
+     * @param numberOfThreads the total number of threads used for the execution.
+     * @param retry           strategy for retrying failed batches.
+     */
+    public IdRangeBatchTransactionExecutor(GraphDatabaseService database, int batchSize, List<? extends IdRange<T>> ranges, UnitOfWork<T> unitOfWork, int numberOfThreads, RetryFailedBatches<? super T> retry) {
+        this(database, batchSize, ranges, unitOfWork, null, numberOfThreads, retry);
+    }
+
+    /**
+     * Create a new executor.
+     *
+     * @param database        against which to execute batched queries.
+     * @param batchSize       how many IDs are in a single batch.
+     * @param ranges          of IDs to process.
+     * @param batchUnitOfWork to be executed for each batch of entities. Must be thread-safe.
+     * @param numberOfThreads the total number of threads used for the execution.
+     */
+    public IdRangeBatchTransactionExecutor(GraphDatabaseService database, int batchSize, List<? extends IdRange<T>> ranges, BatchUnitOfWork<T> batchUnitOfWork, int numberOfThreads) {
+        this(database, batchSize, ranges, null, batchUnitOfWork, numberOfThreads, null);
+    }
+
+    /**
+     * Create a new executor, which retries batches that fail.
+     *
+     * @param database        against which to execute batched queries.
+     * @param batchSize       how many IDs are in a single batch.
+     * @param ranges          of IDs to process.
+     * @param batchUnitOfWork to be executed for each batch of entities. Must be thread-safe.
+     * @param numberOfThreads the total number of threads used for the execution.
+     * @param retry           strategy for retrying failed batches.
+     */
+    public IdRangeBatchTransactionExecutor(GraphDatabaseService database, int batchSize, List<? extends IdRange<T>> ranges, BatchUnitOfWork<T> batchUnitOfWork, int numberOfThreads, RetryFailedBatches<? super T> retry) {
+        this(database, batchSize, ranges, null, batchUnitOfWork, numberOfThreads, retry);
+    }
+
+    private IdRangeBatchTransactionExecutor(GraphDatabaseService database, int batchSize, List<? extends IdRange<T>> ranges, UnitOfWork<T> unitOfWork, BatchUnitOfWork<T> batchUnitOfWork, int numberOfThreads, RetryFailedBatches<? super T> retry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize argument must be greater than zero");
+        }
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("numberOfThreads argument must be greater than zero");
+        }
+
+        this.batchSize = batchSize;
+        this.ranges = ranges;
+        this.unitOfWork = unitOfWork;
+        this.batchUnitOfWork = batchUnitOfWork;
+        this.numberOfThreads = numberOfThreads;
+        this.executor = new SimpleTransactionExecutor(database);
+        this.retry = retry;
+        this.retrier = retry != null ? new FailedBatchRetrier<>(executor, retry, unitOfWork, batchUnitOfWork) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doExecute() {
+        startedAt = System.nanoTime();
+        estimatedSteps = 0;
+        for (IdRange<T> range : ranges) {
+            estimatedSteps += range.estimatedSize();
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(numberOfThreads, ranges.size())));
+
+        for (final IdRange<T> range : ranges) {
+            executorService.submit(() -> {
+                try {
+                    processRange(range);
+                } catch (RuntimeException e) {
+                    LOG.error("Processing of IDs " + range.getFromId() + " - " + (range.getToId() - 1) + " failed, the rest of the range has not been processed.", e);
+                }
+            });
+        }
+
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(1, TimeUnit.DAYS);
+            LOG.debug("Successfully executed " + successfulSteps + " (out of " + totalSteps.get() + " ) steps in " + batches + " batches using " + numberOfThreads + " threads");
+        } catch (InterruptedException e) {
+            LOG.warn("Did not manage to complete batch execution within 24 hours.");
+        }
+
+        if (successfulSteps.get() != totalSteps.get()) {
+            LOG.warn("Failed to execute " + (totalSteps.get() - successfulSteps.get()) + " steps!");
+        }
+    }
+
+    private void processRange(IdRange<T> range) {
+        for (long start = range.getFromId(); start < range.getToId(); start += batchSize) {
+            final long from = start;
+            final long to = Math.min(start + batchSize, range.getToId());
+            final int batchNo = batches.incrementAndGet();
+            final AtomicInteger currentBatchSteps = new AtomicInteger(0);
+            final List<T> taken = retry != null ? new ArrayList<>() : null;
+            final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+            NullItem result = executor.executeInTransaction(database -> {
+                List<T> batch = new ArrayList<>((int) (to - from));
+                for (long id = from; id < to; id++) {
+                    T next = range.fetch(database, id);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+
+                if (batch.isEmpty()) {
+                    return NullItem.getInstance();
+                }
+
+                totalSteps.addAndGet(batch.size());
+                if (taken != null) {
+                    taken.addAll(batch);
+                }
+
+                if (batchUnitOfWork != null) {
+                    batchUnitOfWork.execute(database, batch, batchNo);
+                    currentBatchSteps.set(batch.size());
+                    return NullItem.getInstance();
+                }
+
+                for (T next : batch) {
+                    unitOfWork.execute(database, next, batchNo, currentBatchSteps.incrementAndGet());
+                }
+                return NullItem.getInstance();
+            }, e -> {
+                failure.set(e);
+                (retry != null ? retry : KeepCalmAndCarryOn.getInstance()).handleException(e);
+            });
+
+            if (result != null) {
+                successfulSteps.addAndGet(currentBatchSteps.get());
+                committedBatches.incrementAndGet();
+            } else {
+                LOG.warn("Rolled back transaction for batch number " + batchNo + " (IDs " + from + " - " + (to - 1) + ")");
+                rolledBackBatches.incrementAndGet();
+
+                if (taken != null && !taken.isEmpty()) {
+                    successfulSteps.addAndGet(retrier.retry(taken, batchNo, failure.get()));
+                }
+            }
+
+            reportProgress(false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The estimated number of steps is the number of IDs in all the ranges, so the time remaining is overestimated when
+     * some of the IDs aren't in use.
+     */
+    @Override
+    protected BatchProgress currentProgress(boolean finished) {
+        return new BatchProgress(totalSteps.get(), successfulSteps.get(), committedBatches.get(), rolledBackBatches.get(),
+                0, 0, estimatedSteps, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), finished);
+    }
+}
@@ -27,13 +27,19 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
 import com.graphaware.common.log.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * {@link BatchTransactionExecutor} which executes a {@link UnitOfWork} for each input item. Input items are provided
- * in the form of an {@link Iterable}.
+ * {@link BatchTransactionExecutor} which executes a {@link UnitOfWork} for each input item, or a {@link BatchUnitOfWork}
+ * for each batch of input items. Input items are provided in the form of an {@link Iterable}.
+ * <p/>
+ * By default, the items of a batch whose transaction is rolled back are lost. When constructed with
+ * {@link RetryFailedBatches}, failed batches are retried.
  *
  * @param <T> type of the input item, on which steps are executed.
  */
@@ -42,10 +48,17 @@ public class IterableInputBatchTransactionExecutor<T> extends DisposableBatchTra
 
     private final int batchSize;
     private final UnitOfWork<T> unitOfWork;
+    private final BatchUnitOfWork<T> batchUnitOfWork;
+    private final RetryFailedBatches<? super T> retry;
+    private final FailedBatchRetrier<T> retrier;
 
     protected final AtomicInteger totalSteps = new AtomicInteger(0);
     protected final AtomicInteger batches = new AtomicInteger(0);
     protected final AtomicInteger successfulSteps = new AtomicInteger(0);
+    private final AtomicInteger committedBatches = new AtomicInteger(0);
+    private final AtomicInteger rolledBackBatches = new AtomicInteger(0);
+    private volatile long startedAt;
+    private volatile long estimatedSteps = -1;
     protected final Iterable<T> input;
     protected final TransactionExecutor executor;
 
@@ -62,10 +75,58 @@ public class IterableInputBatchTransactionExecutor<T> extends DisposableBatchTra
      * @param unitOfWork to be executed for each input item. Must be thread-safe.
      */
     public IterableInputBatchTransactionExecutor(GraphDatabaseService database, int batchSize, Iterable<T> input, UnitOfWork<T> unitOfWork) {
+        this(database, batchSize, input, unitOfWork, null, null);
+    }
+
+    /**
+     * Create an instance of IterableInputBatchExecutor, which retries batches that fail.
+     *
+     * @param database   against which to execute batched queries.
+     * @param batchSize  how many {@link UnitOfWork} are in a single batch.
+     * @param input      to the execution. These items are provided to each unit of work, one by one.
+     *                   Please use {@link TransactionalInput} if the input is fetched from the database.
+     * @param unitOfWork to be executed for each input item. Must be thread-safe.
+     * @param retry      strategy for retrying failed batches.
+     */
+    public IterableInputBatchTransactionExecutor(GraphDatabaseService database, int batchSize, Iterable<T> input, UnitOfWork<T> unitOfWork, RetryFailedBatches<? super T> retry) {
+        this(database, batchSize, input, unitOfWork, null, retry);
+    }
+
+    /**
+     * Create an instance of IterableInputBatchExecutor.
+     *
+     * @param database        against which to execute batched queries.
+     * @param batchSize       how many input items are in a single batch.
+     * @param input           to the execution. These items are provided to the unit of work, a batch at a time.
+     *                        Please use {@link TransactionalInput} if the input is fetched from the database.
+     * @param batchUnitOfWork to be executed for each batch of input items. Must be thread-safe.
+     */
+    public IterableInputBatchTransactionExecutor(GraphDatabaseService database, int batchSize, Iterable<T> input, BatchUnitOfWork<T> batchUnitOfWork) {
+        this(database, batchSize, input, null, batchUnitOfWork, null);
+    }
+
+    /**
+     * Create an instance of IterableInputBatchExecutor, which retries batches that fail.
+     *
+     * @param database        against which to execute batched queries.
+     * @param batchSize       how many input items are in a single batch.
+     * @param input           to the execution. These items are provided to the unit of work, a batch at a time.
+     *                        Please use {@link TransactionalInput} if the input is fetched from the database.
+     * @param batchUnitOfWork to be executed for each batch of input items. Must be thread-safe.
+     * @param retry           strategy for retrying failed batches.
+     */
+    public IterableInputBatchTransactionExecutor(GraphDatabaseService database, int batchSize, Iterable<T> input, BatchUnitOfWork<T> batchUnitOfWork, RetryFailedBatches<? super T> retry) {
+        this(database, batchSize, input, null, batchUnitOfWork, retry);
+    }
+
+    private IterableInputBatchTransactionExecutor(GraphDatabaseService database, int batchSize, Iterable<T> input, UnitOfWork<T> unitOfWork, BatchUnitOfWork<T> batchUnitOfWork, RetryFailedBatches<? super T> retry) {
         this.batchSize = batchSize;
         this.unitOfWork = unitOfWork;
+        this.batchUnitOfWork = batchUnitOfWork;
+        this.retry = retry;
         this.input = input;
         this.executor = new SimpleTransactionExecutor(database);
+        this.retrier = retry != null ? new FailedBatchRetrier<>(executor, retry, unitOfWork, batchUnitOfWork) : null;
     }
 
     /**
@@ -78,6 +139,9 @@ public class IterableInputBatchTransactionExecutor<T> extends DisposableBatchTra
     }
 
     protected final void populateQueue() {
+        startedAt = System.nanoTime();
+        estimatedSteps = estimatedSize(input);
+
         new Thread(() -> {
             try {
                 for (T input : IterableInputBatchTransactionExecutor.this.input) {
@@ -101,7 +165,14 @@ public class IterableInputBatchTransactionExecutor<T> extends DisposableBatchTra
 
             final AtomicInteger currentBatchSteps = new AtomicInteger(0);
             final AtomicBoolean polled = new AtomicBoolean(false);
+            final List<T> taken = retry != null ? new ArrayList<>() : null;
+            final AtomicReference<RuntimeException> failure = new AtomicReference<>();
             NullItem result = executor.executeInTransaction(database -> {
+                if (batchUnitOfWork != null) {
+                    executeBatch(database, batchNo, currentBatchSteps, polled, taken);
+                    return NullItem.getInstance();
+                }
+
                 while ((notFinished()) && currentBatchSteps.get() < batchSize) {
                     T next;
                     try {
@@ -113,6 +184,9 @@ public class IterableInputBatchTransactionExecutor<T> extends DisposableBatchTra
                     if (next != null) {
                         polled.set(true);
                         totalSteps.incrementAndGet();
+                        if (taken != null) {
+                            taken.add(next);
+                        }
                         unitOfWork.execute(database, next, batchNo, currentBatchSteps.incrementAndGet());
                     } else {
                         if (!finished.get()) {
@@ -124,21 +198,30 @@ public class IterableInputBatchTransactionExecutor<T> extends DisposableBatchTra
                 }
                 return NullItem.getInstance();
 
-            }, KeepCalmAndCarryOn.getInstance());
+            }, e -> {
+                failure.set(e);
+                (retry != null ? retry : KeepCalmAndCarryOn.getInstance()).handleException(e);
+            });
 
             if (result != null) {
                 successfulSteps.addAndGet(currentBatchSteps.get());
+                committedBatches.incrementAndGet();
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Committed transaction for batch number " + batchNo);
                 }
             } else {
                 LOG.warn("Rolled back transaction for batch number " + batchNo);
+                rolledBackBatches.incrementAndGet();
 
                 if (!polled.get()) {
                     LOG.warn("Throwing away the head of the queue as the transaction seems to have failed before polling...");
                     queue.poll();
+                } else if (taken != null) {
+                    successfulSteps.addAndGet(retrier.retry(taken, batchNo, failure.get()));
                 }
             }
+
+            reportProgress(false);
         }
 
         LOG.debug("Successfully executed " + successfulSteps + " (out of " + totalSteps.get() + " ) steps in " + batches + " batches");
@@ -147,6 +230,56 @@ public class IterableInputBatchTransactionExecutor<T> extends DisposableBatchTra
         }
     }
 
+    /**
+     * Take up to a batch of items from the queue and execute the {@link BatchUnitOfWork} for them.
+     */
+    private void executeBatch(GraphDatabaseService database, int batchNo, AtomicInteger currentBatchSteps, AtomicBoolean polled, List<T> taken) {
+        List<T> batch = new ArrayList<>(Math.min(batchSize, queue.remainingCapacity() + queue.size()));
+
+        while (notFinished() && batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+
+            T next;
+            try {
+                next = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            if (next != null) {
+                batch.add(next);
+            } else if (!finished.get()) {
+                LOG.warn("Waited for over 100ms but no input arrived. Still expecting more input. ");
+            } else {
+                break;
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        polled.set(true);
+        totalSteps.addAndGet(batch.size());
+        if (taken != null) {
+            taken.addAll(batch);
+        }
+        batchUnitOfWork.execute(database, batch, batchNo);
+        currentBatchSteps.set(batch.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BatchProgress currentProgress(boolean finished) {
+        return new BatchProgress(totalSteps.get(), successfulSteps.get(), committedBatches.get(), rolledBackBatches.get(),
+                queue.size(), queue.size() + queue.remainingCapacity(), estimatedSteps,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), finished);
+    }
+
     private boolean notFinished() {
         return !finished.get() || !queue.isEmpty();
     }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import com.graphaware.common.log.LoggerFactory;
+import org.neo4j.logging.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BatchProgressListener} logging the {@link BatchProgress} at INFO level, at most once per the given interval,
+ * and once more when the execution finishes.
+ */
+public class LoggingProgressListener implements BatchProgressListener {
+    private static final Log LOG = LoggerFactory.getLogger(LoggingProgressListener.class);
+
+    private final String name;
+    private final long intervalMs;
+    private final AtomicLong lastLogged = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Create a new listener logging the progress every 10 seconds.
+     *
+     * @param name of the execution, used in log messages.
+     */
+    public LoggingProgressListener(String name) {
+        this(name, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create a new listener.
+     *
+     * @param name     of the execution, used in log messages.
+     * @param interval minimum time between two log messages.
+     * @param unit     of the interval.
+     */
+    public LoggingProgressListener(String name, long interval, TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval argument must not be negative");
+        }
+
+        this.name = name;
+        this.intervalMs = unit.toMillis(interval);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onProgress(BatchProgress progress) {
+        if (progress.isFinished()) {
+            LOG.info(name + ": " + progress);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long last = lastLogged.get();
+        if (now - last >= intervalMs && lastLogged.compareAndSet(last, now)) {
+            LOG.info(name + ": " + progress);
+        }
+    }
+}
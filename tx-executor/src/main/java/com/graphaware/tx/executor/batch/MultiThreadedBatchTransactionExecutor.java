@@ -25,6 +25,10 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Decorator for a {@link IterableInputBatchTransactionExecutor}, which allows it to be executed using multiple threads.
+ * <p/>
+ * The input is produced by a single thread and shared by the other threads through a queue. To process all nodes or
+ * relationships, an {@link IdRangeBatchTransactionExecutor}, where each thread scans its own range of IDs, scales
+ * better.
  */
 public class MultiThreadedBatchTransactionExecutor extends DisposableBatchTransactionExecutor {
     private static final Log LOG = LoggerFactory.getLogger(MultiThreadedBatchTransactionExecutor.class);
@@ -77,5 +81,17 @@ public class MultiThreadedBatchTransactionExecutor extends DisposableBatchTransa
         } catch (InterruptedException e) {
             LOG.warn("Did not manage to complete batch execution within 24 hours.");
         }
+
+        wrappedExecutor.reportProgress(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The listener is registered with the wrapped executor, which tracks the progress of all the threads.
+     */
+    @Override
+    public void addProgressListener(BatchProgressListener listener) {
+        wrappedExecutor.addProgressListener(listener);
     }
 }
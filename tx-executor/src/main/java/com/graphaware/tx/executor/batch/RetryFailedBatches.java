@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.tx.executor.single.ExceptionHandlingStrategy;
+import com.graphaware.tx.executor.single.KeepCalmAndCarryOn;
+import org.neo4j.logging.Log;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link ExceptionHandlingStrategy} for {@link IterableInputBatchTransactionExecutor}s and
+ * {@link IdRangeBatchTransactionExecutor}s that, instead of losing the items of a batch whose transaction has been
+ * rolled back like {@link KeepCalmAndCarryOn} does, executes the batch again.
+ * <p/>
+ * A failed batch is retried up to a maximum number of times, waiting for an exponentially growing, jittered time
+ * before each attempt, so that batches failing because of a deadlock with another thread are unlikely to deadlock
+ * again. If the batch still fails, it is split in halves, which are executed separately, splitting the failing ones
+ * further in order to isolate the items that cause the failure. An item that fails on its own, even after retrying,
+ * is passed to a {@link DeadLetterCallback}.
+ * <p/>
+ * Note that the units of work of the successful items of a failed batch are executed more than once, in different
+ * transactions.
+ *
+ * @param <T> type of the input items.
+ */
+public final class RetryFailedBatches<T> implements ExceptionHandlingStrategy {
+    private static final Log LOG = LoggerFactory.getLogger(RetryFailedBatches.class);
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 10;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 1000;
+
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final DeadLetterCallback<? super T> deadLetterCallback;
+
+    /**
+     * Create an instance of this strategy with default configuration, which logs items that could not be processed.
+     *
+     * @param <T> type of the input items.
+     * @return instance.
+     */
+    public static <T> RetryFailedBatches<T> defaultConfiguration() {
+        return new RetryFailedBatches<>(DEFAULT_MAX_RETRIES, DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS, (item, cause) -> LOG.error("Could not process " + item + ", it has been lost.", cause));
+    }
+
+    private RetryFailedBatches(int maxRetries, long initialBackoffMs, long maxBackoffMs, DeadLetterCallback<? super T> deadLetterCallback) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Maximum number of retries must not be negative");
+        }
+        if (initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs) {
+            throw new IllegalArgumentException("Invalid backoff " + initialBackoffMs + " - " + maxBackoffMs + " ms");
+        }
+
+        this.maxRetries = maxRetries;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.deadLetterCallback = deadLetterCallback;
+    }
+
+    /**
+     * Return a new instance of this strategy with a different maximum number of retries of a failed batch or item.
+     *
+     * @param maxRetries of the new instance. 0 means batches are split into halves straight away.
+     * @return new instance.
+     */
+    public RetryFailedBatches<T> withMaxRetries(int maxRetries) {
+        return new RetryFailedBatches<>(maxRetries, initialBackoffMs, maxBackoffMs, deadLetterCallback);
+    }
+
+    /**
+     * Return a new instance of this strategy with a different backoff.
+     *
+     * @param initialBackoffMs maximum time to wait before the first retry. Doubles with each subsequent retry.
+     * @param maxBackoffMs     maximum time to wait before any retry.
+     * @return new instance.
+     */
+    public RetryFailedBatches<T> withBackoff(long initialBackoffMs, long maxBackoffMs) {
+        return new RetryFailedBatches<>(maxRetries, initialBackoffMs, maxBackoffMs, deadLetterCallback);
+    }
+
+    /**
+     * Return a new instance of this strategy with a different callback for items that could not be processed.
+     *
+     * @param deadLetterCallback of the new instance. Must be thread-safe.
+     * @return new instance.
+     */
+    public RetryFailedBatches<T> withDeadLetterCallback(DeadLetterCallback<? super T> deadLetterCallback) {
+        return new RetryFailedBatches<>(maxRetries, initialBackoffMs, maxBackoffMs, deadLetterCallback);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Logs the exception, the batch is retried by the executor.
+     */
+    @Override
+    public void handleException(RuntimeException e) {
+        LOG.warn("An exception occurred while executing batch, it will be retried", e);
+    }
+
+    /**
+     * @return maximum number of retries of a failed batch or item.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Get the time to wait before a retry. Grows exponentially with the attempt, up to the maximum backoff. The actual
+     * time is a random value between half of that and all of it, so that threads whose batches failed because they
+     * deadlocked with each other don't retry at the same time.
+     *
+     * @param attempt number of the retry, starting at 1.
+     * @return time to wait in ms.
+     */
+    long backoffMs(int attempt) {
+        long backoff = initialBackoffMs;
+        for (int i = 1; i < attempt && backoff < maxBackoffMs; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxBackoffMs);
+
+        if (backoff < 2) {
+            return backoff;
+        }
+
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Wait before a retry.
+     *
+     * @param attempt number of the retry, starting at 1.
+     */
+    void backOff(int attempt) {
+        try {
+            Thread.sleep(backoffMs(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pass an item that could not be processed to the {@link DeadLetterCallback}.
+     *
+     * @param item  that could not be processed.
+     * @param cause of the last failure.
+     */
+    void deadLetter(T item, RuntimeException cause) {
+        try {
+            deadLetterCallback.deadLetter(item, cause);
+        } catch (RuntimeException e) {
+            LOG.error("Dead letter callback failed for " + item, e);
+        }
+    }
+}
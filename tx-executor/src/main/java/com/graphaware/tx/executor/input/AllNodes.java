@@ -18,11 +18,16 @@ package com.graphaware.tx.executor.input;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.kernel.impl.store.NeoStores;
 
 /**
- * {@link TransactionalInput} returning all nodes in the database.
+ * {@link TransactionalInput} returning all nodes in the database, in the order of their IDs. Each batch is fetched in a
+ * new transaction, resuming after the ID of the last node returned. Node IDs not in use are skipped by looking at the
+ * node store.
  */
-public final class AllNodes extends TransactionalInput<Node> {
+public final class AllNodes extends TransactionalInput<Node> implements SizedInput {
+
+    private final GraphDatabaseService database;
 
     /**
      * Create a new input.
@@ -31,6 +36,17 @@ public final class AllNodes extends TransactionalInput<Node> {
      * @param batchSize how many nodes in a batch.
      */
     public AllNodes(GraphDatabaseService database, int batchSize) {
-        super(database, batchSize, GraphDatabaseService::getAllNodes);
+        super(database, batchSize, IdRange.scanAll(NeoStores::getNodeStore, GraphDatabaseService::getNodeById));
+        this.database = database;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The estimate is the number of node IDs in use.
+     */
+    @Override
+    public long estimatedSize() {
+        return NodeIdRange.idsInUse(database);
     }
 }
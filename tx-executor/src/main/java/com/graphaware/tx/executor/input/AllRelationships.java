@@ -16,14 +16,18 @@
 
 package com.graphaware.tx.executor.input;
 
-import com.graphaware.tx.executor.single.TransactionCallback;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.kernel.impl.store.NeoStores;
 
 /**
- * {@link TransactionalInput} returning all relationships in the database.
+ * {@link TransactionalInput} returning all relationships in the database, in the order of their IDs. Each batch is
+ * fetched in a new transaction, resuming after the ID of the last relationship returned. Relationship IDs not in use
+ * are skipped by looking at the relationship store.
  */
-public final class AllRelationships extends TransactionalInput<Relationship> {
+public final class AllRelationships extends TransactionalInput<Relationship> implements SizedInput {
+
+    private final GraphDatabaseService database;
 
     /**
      * Create a new input.
@@ -32,6 +36,17 @@ public final class AllRelationships extends TransactionalInput<Relationship> {
      * @param batchSize how many relationships in a batch.
      */
     public AllRelationships(GraphDatabaseService database, int batchSize) {
-        super(database, batchSize, GraphDatabaseService::getAllRelationships);
+        super(database, batchSize, IdRange.scanAll(NeoStores::getRelationshipStore, GraphDatabaseService::getRelationshipById));
+        this.database = database;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The estimate is the number of relationship IDs in use.
+     */
+    @Override
+    public long estimatedSize() {
+        return RelationshipIdRange.idsInUse(database);
     }
 }
@@ -28,7 +28,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * @param <T> type of the generated input.
  */
-public abstract class GeneratedInput<T> implements Iterable<T>, Iterator<T> {
+public abstract class GeneratedInput<T> implements Iterable<T>, Iterator<T>, SizedInput {
 
     private final int numberOfItems;
     private AtomicInteger generated = new AtomicInteger(0);
@@ -42,6 +42,14 @@ public abstract class GeneratedInput<T> implements Iterable<T>, Iterator<T> {
         this.numberOfItems = numberOfItems;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long estimatedSize() {
+        return numberOfItems;
+    }
+
     /**
      * Generate a new input item.
      *
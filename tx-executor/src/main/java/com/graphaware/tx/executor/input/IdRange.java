@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.input;
+
+import com.graphaware.tx.executor.batch.IdRangeBatchTransactionExecutor;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
+import org.neo4j.kernel.impl.store.CommonAbstractStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@link TransactionalInput} returning all entities with IDs in a range. The ID space of a database can be split into
+ * ranges, so that each range is scanned and processed by a different thread, without the threads sharing anything.
+ * That is what {@link IdRangeBatchTransactionExecutor} does.
+ * <p/>
+ * Each batch is fetched in a new transaction, resuming after the ID of the last entity returned. IDs not in use are
+ * skipped by looking at the store, so only entities that exist are fetched.
+ *
+ * @param <T> type of the entities.
+ */
+public abstract class IdRange<T extends Entity> extends TransactionalInput<T> implements SizedInput {
+
+    private final long fromId;
+    private final long toId;
+    private final CommonAbstractStore<?, ?> store;
+    private final BiFunction<GraphDatabaseService, Long, T> fetcher;
+
+    /**
+     * Construct a new input.
+     *
+     * @param database  to take entities from.
+     * @param batchSize how many entities in a batch.
+     * @param fromId    first ID of the range (inclusive).
+     * @param toId      last ID of the range (exclusive).
+     * @param store     selecting the store of the entities from the database's stores.
+     * @param fetcher   fetching an entity by ID, throwing {@link NotFoundException} if there is no such entity.
+     */
+    protected IdRange(GraphDatabaseService database, int batchSize, long fromId, long toId, Function<NeoStores, ? extends CommonAbstractStore<?, ?>> store, BiFunction<GraphDatabaseService, Long, T> fetcher) {
+        super(database, batchSize, (db, lastSeen) -> scan(db, lastSeen == null ? fromId : lastSeen.getId() + 1, toId, store, fetcher));
+
+        if (fromId < 0 || toId < fromId) {
+            throw new IllegalArgumentException("Invalid ID range " + fromId + " - " + toId);
+        }
+
+        this.fromId = fromId;
+        this.toId = toId;
+        this.store = store.apply(neoStores(database));
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * @return first ID of the range (inclusive).
+     */
+    public long getFromId() {
+        return fromId;
+    }
+
+    /**
+     * @return last ID of the range (exclusive).
+     */
+    public long getToId() {
+        return toId;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The estimate is the number of IDs in the range, which is more than the number of entities when some of the IDs
+     * aren't in use.
+     */
+    @Override
+    public long estimatedSize() {
+        return toId - fromId;
+    }
+
+    /**
+     * Fetch an entity with an ID from this range. Must be called in a transaction.
+     *
+     * @param database to fetch from.
+     * @param id       of the entity.
+     * @return entity, <code>null</code> if there is no entity with the ID.
+     */
+    public T fetch(GraphDatabaseService database, long id) {
+        return fetchOrNull(database, id, store, fetcher);
+    }
+
+    /**
+     * Split the IDs from 0 to the highest ID in use into contiguous ranges of (almost) equal size.
+     *
+     * @param highestIdInUse highest ID in use, negative if there are no IDs in use.
+     * @param ranges         maximum number of ranges. Must be positive.
+     * @return boundaries of the ranges, i.e. one more than the number of ranges. The first is 0, the last is one more
+     * than the highest ID in use. Empty if there are no IDs in use.
+     */
+    protected static List<Long> split(long highestIdInUse, int ranges) {
+        if (ranges <= 0) {
+            throw new IllegalArgumentException("Number of ranges must be positive");
+        }
+
+        List<Long> result = new ArrayList<>();
+        if (highestIdInUse < 0) {
+            return result;
+        }
+
+        long ids = highestIdInUse + 1;
+        long size = Math.max(1, (ids + ranges - 1) / ranges);
+
+        for (long from = 0; from < ids; from += size) {
+            result.add(from);
+        }
+        result.add(ids);
+
+        return result;
+    }
+
+    /**
+     * Get the store of a database, so that the highest IDs in use can be read.
+     *
+     * @param database database.
+     * @return stores.
+     */
+    protected static NeoStores neoStores(GraphDatabaseService database) {
+        return ((GraphDatabaseAPI) database).getDependencyResolver().resolveDependency(RecordStorageEngine.class).testAccessNeoStores();
+    }
+
+    /**
+     * Create a callback for {@link TransactionalInput} returning all entities in the database, in the order of their
+     * IDs. The highest ID in use is read once, when the first batch is fetched.
+     *
+     * @param store   selecting the store of the entities from the database's stores.
+     * @param fetcher fetching an entity by ID, throwing {@link NotFoundException} if there is no such entity.
+     * @return callback.
+     */
+    static <T extends Entity> ResumableCallback<T> scanAll(Function<NeoStores, ? extends CommonAbstractStore<?, ?>> store, BiFunction<GraphDatabaseService, Long, T> fetcher) {
+        long[] toId = new long[1];
+
+        return (db, lastSeen) -> {
+            if (lastSeen == null) {
+                toId[0] = store.apply(neoStores(db)).getHighestPossibleIdInUse() + 1;
+            }
+
+            return scan(db, lastSeen == null ? 0 : lastSeen.getId() + 1, toId[0], store, fetcher);
+        };
+    }
+
+    /**
+     * Get entities with IDs in a range, skipping IDs not in use.
+     *
+     * @param database to fetch from.
+     * @param fromId   first ID (inclusive).
+     * @param toId     last ID (exclusive).
+     * @param store    selecting the store of the entities from the database's stores.
+     * @param fetcher  fetching an entity by ID, throwing {@link NotFoundException} if there is no such entity.
+     * @return entities in the order of their IDs.
+     */
+    static <T> Iterable<T> scan(GraphDatabaseService database, long fromId, long toId, Function<NeoStores, ? extends CommonAbstractStore<?, ?>> store, BiFunction<GraphDatabaseService, Long, T> fetcher) {
+        return () -> new RangeIterator<>(database, fromId, toId, store.apply(neoStores(database)), fetcher);
+    }
+
+    /**
+     * Fetch an entity, unless its ID isn't in use according to the store. {@link NotFoundException} is only caught for
+     * entities deleted in the meantime, IDs not in use are skipped without it.
+     */
+    private static <T> T fetchOrNull(GraphDatabaseService database, long id, CommonAbstractStore<?, ?> store, BiFunction<GraphDatabaseService, Long, T> fetcher) {
+        if (!store.isInUse(id)) {
+            return null;
+        }
+
+        try {
+            return fetcher.apply(database, id);
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Iterator over the entities with IDs in a range, skipping IDs not in use.
+     */
+    private static final class RangeIterator<T> extends PrefetchingIterator<T> {
+
+        private final GraphDatabaseService database;
+        private final long toId;
+        private final CommonAbstractStore<?, ?> store;
+        private final BiFunction<GraphDatabaseService, Long, T> fetcher;
+        private long nextId;
+
+        private RangeIterator(GraphDatabaseService database, long fromId, long toId, CommonAbstractStore<?, ?> store, BiFunction<GraphDatabaseService, Long, T> fetcher) {
+            this.database = database;
+            this.nextId = fromId;
+            this.toId = toId;
+            this.store = store;
+            this.fetcher = fetcher;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected T fetchNextOrNull() {
+            while (nextId < toId) {
+                T next = fetchOrNull(database, nextId++, store, fetcher);
+                if (next != null) {
+                    return next;
+                }
+            }
+
+            return null;
+        }
+    }
+}
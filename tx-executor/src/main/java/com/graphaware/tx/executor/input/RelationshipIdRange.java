@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.input;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.kernel.impl.store.NeoStores;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link IdRange} returning all relationships with IDs in a range.
+ */
+public final class RelationshipIdRange extends IdRange<Relationship> {
+
+    /**
+     * Create a new input.
+     *
+     * @param database  to take relationships from.
+     * @param batchSize how many relationships in a batch.
+     * @param fromId    first ID of the range (inclusive).
+     * @param toId      last ID of the range (exclusive).
+     */
+    public RelationshipIdRange(GraphDatabaseService database, int batchSize, long fromId, long toId) {
+        super(database, batchSize, fromId, toId, NeoStores::getRelationshipStore, GraphDatabaseService::getRelationshipById);
+    }
+
+    /**
+     * Split all relationships in the database into ranges of IDs up to the highest ID in use, which together return the same
+     * relationships as {@link AllRelationships}.
+     *
+     * @param database  to take relationships from.
+     * @param batchSize how many relationships in a batch.
+     * @param ranges    maximum number of ranges. Must be positive.
+     * @return ranges, empty if there are no relationships.
+     */
+    public static List<RelationshipIdRange> split(GraphDatabaseService database, int batchSize, int ranges) {
+        List<Long> boundaries = split(highestIdInUse(database), ranges);
+
+        List<RelationshipIdRange> result = new ArrayList<>();
+        for (int i = 1; i < boundaries.size(); i++) {
+            result.add(new RelationshipIdRange(database, batchSize, boundaries.get(i - 1), boundaries.get(i)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the highest relationship ID in use.
+     *
+     * @param database database.
+     * @return highest ID, negative if there are no relationships.
+     */
+    static long highestIdInUse(GraphDatabaseService database) {
+        return neoStores(database).getRelationshipStore().getHighestPossibleIdInUse();
+    }
+
+    /**
+     * Get the number of relationship IDs in use.
+     *
+     * @param database database.
+     * @return number of IDs in use.
+     */
+    static long idsInUse(GraphDatabaseService database) {
+        return neoStores(database).getRelationshipStore().getNumberOfIdsInUse();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.input;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * A specification of how to fetch a page of input items in a transaction, resuming after the last item of the previous
+ * page. Used by {@link TransactionalInput} to read its input in a new transaction for each batch.
+ *
+ * @param <T> type of fetched input.
+ */
+public interface ResumableCallback<T> {
+
+    /**
+     * Fetch the items following the given one. This method is guaranteed to run in the context of a transaction.
+     *
+     * @param database from which to fetch input, against which the transaction is running.
+     * @param lastSeen last item of the previous page, <code>null</code> for the first page. Has been fetched in a
+     *                 transaction that is already closed.
+     * @return items following the last seen one, in the same order in which they would have been returned in a single
+     * transaction. Only as many as a batch are consumed before this method is called again.
+     */
+    Iterable<T> doInTransaction(GraphDatabaseService database, T lastSeen) throws Exception;
+}
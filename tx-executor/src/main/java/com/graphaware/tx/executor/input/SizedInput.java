@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.input;
+
+import com.graphaware.tx.executor.batch.BatchProgress;
+import com.graphaware.tx.executor.batch.BatchTransactionExecutor;
+
+/**
+ * Input to a {@link BatchTransactionExecutor}, which can estimate the number of items it will produce, so that the
+ * {@link BatchProgress} of the execution has an estimated time remaining.
+ */
+public interface SizedInput {
+
+    /**
+     * Estimate the total number of items this input will produce. The estimate needn't be exact.
+     *
+     * @return estimated number of items, negative if unknown.
+     */
+    long estimatedSize();
+}
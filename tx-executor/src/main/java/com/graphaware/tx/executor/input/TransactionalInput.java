@@ -19,6 +19,7 @@ package com.graphaware.tx.executor.input;
 import com.graphaware.tx.executor.batch.BatchTransactionExecutor;
 import com.graphaware.tx.executor.single.TransactionCallback;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Resource;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.helpers.collection.PrefetchingIterator;
 import org.neo4j.logging.Log;
@@ -30,6 +31,10 @@ import java.util.Objects;
 /**
  * An {@link Iterable}, items of which are retrieved from the database in batches. Intended to be used as
  * input to implementations of {@link BatchTransactionExecutor}.
+ * <p/>
+ * When constructed with a {@link ResumableCallback}, the transaction is closed after each batch and the next batch is
+ * fetched in a new transaction, resuming after the last item returned, so the memory used does not grow with the
+ * size of the input. With a {@link TransactionCallback}, all items are fetched in a single transaction.
  *
  * @param <T> type of fetched input.
  */
@@ -38,7 +43,9 @@ public class TransactionalInput<T> extends PrefetchingIterator<T> implements Ite
 
     private final GraphDatabaseService database;
     private final TransactionCallback<Iterable<T>> callback;
+    private final ResumableCallback<T> resumableCallback;
     private Iterator<T> iterator;
+    private T lastSeen;
     private volatile int count = 0;
     private volatile Transaction tx;
     private final int batchSize;
@@ -51,14 +58,29 @@ public class TransactionalInput<T> extends PrefetchingIterator<T> implements Ite
      * @param callback  which actually retrieves an iterable from the database.
      */
     public TransactionalInput(GraphDatabaseService database, int batchSize, TransactionCallback<Iterable<T>> callback) {
+        this(database, batchSize, Objects.requireNonNull(callback), null);
+    }
+
+    /**
+     * Construct a new input, which fetches each batch in a new transaction.
+     *
+     * @param database  from which to fetch input, must not be <code>null</code>.
+     * @param batchSize size of batches in which input if fetched. Must be positive.
+     * @param callback  which actually retrieves the items following the last one of the previous batch.
+     */
+    public TransactionalInput(GraphDatabaseService database, int batchSize, ResumableCallback<T> callback) {
+        this(database, batchSize, null, Objects.requireNonNull(callback));
+    }
+
+    private TransactionalInput(GraphDatabaseService database, int batchSize, TransactionCallback<Iterable<T>> callback, ResumableCallback<T> resumableCallback) {
         Objects.requireNonNull(database);
         if (batchSize <= 0) {
             throw new IllegalArgumentException("batchSize argument must be greater than zero");
         }
-        Objects.requireNonNull(callback);
 
         this.database = database;
         this.callback = callback;
+        this.resumableCallback = resumableCallback;
         this.batchSize = batchSize;
     }
 
@@ -81,11 +103,14 @@ public class TransactionalInput<T> extends PrefetchingIterator<T> implements Ite
         }
 
         int i = ++count % batchSize;
-        if (i == 0) {
-            //The next line is commented out because of a bug in Neo that will hopefully be resolved in 3.3.
+        if (i == 0 && resumableCallback != null) {
+            //An iterator can't outlive its transaction because of a bug in Neo that will hopefully be resolved in 3.3.
             //See here: https://docs.google.com/document/d/1vlmaGyLgwyBeQUeBiEjfpAAMOh0WvjcCQpfdS0P1TFY/edit#
-            //Functionality is preserved, but this may eat up all the memory in large graphs...
-            //closeTx();
+            //Resumable inputs therefore throw the iterator away and start a new one in the next transaction.
+            //Other inputs keep the transaction open, which may eat up all the memory in large graphs...
+            lastSeen = next;
+            closeIterator();
+            closeTx();
         }
 
         return next;
@@ -94,13 +119,21 @@ public class TransactionalInput<T> extends PrefetchingIterator<T> implements Ite
     private void createIteratorIfNeeded() {
         if (iterator == null) {
             try {
-                iterator = callback.doInTransaction(database).iterator();
+                Iterable<T> iterable = resumableCallback != null ? resumableCallback.doInTransaction(database, lastSeen) : callback.doInTransaction(database);
+                iterator = iterable.iterator();
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         }
     }
 
+    private void closeIterator() {
+        if (iterator instanceof Resource) {
+            ((Resource) iterator).close();
+        }
+        iterator = null;
+    }
+
     private void beginTxIfNeeded() {
         if (tx == null) {
             tx = database.beginTx();
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.executor.batch;
+
+import com.graphaware.tx.executor.input.AllNodes;
+import com.graphaware.tx.executor.input.NodeIdRange;
+import com.graphaware.tx.executor.input.RelationshipIdRange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.backup.OnlineBackupSettings;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.shell.ShellSettings;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.graphaware.common.util.DatabaseUtils.registerShutdownHook;
+import static com.graphaware.common.util.IterableUtils.count;
+import static org.junit.Assert.*;
+import static org.neo4j.graphdb.RelationshipType.withName;
+import static org.neo4j.kernel.configuration.Settings.FALSE;
+
+/**
+ * Unit test for {@link IdRangeBatchTransactionExecutor}.
+ */
+public class IdRangeBatchTransactionExecutorTest {
+
+    private GraphDatabaseService database;
+
+    @Before
+    public void setUp() {
+        database = new TestGraphDatabaseFactory()
+                .newImpermanentDatabaseBuilder()
+                .setConfig(OnlineBackupSettings.online_backup_enabled, FALSE)
+                .setConfig(ShellSettings.remote_shell_enabled, FALSE)
+                .newGraphDatabase();
+
+        registerShutdownHook(database);
+
+        try (Transaction tx = database.beginTx()) {
+            Node previous = null;
+            for (int i = 0; i < 1000; i++) {
+                Node node = database.createNode();
+                if (previous != null) {
+                    previous.createRelationshipTo(node, withName("NEXT"));
+                }
+                previous = node;
+            }
+            tx.success();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            for (long id = 0; id < 1000; id += 7) {
+                Node node = database.getNodeById(id);
+                for (Relationship relationship : node.getRelationships()) {
+                    relationship.delete();
+                }
+                node.delete();
+            }
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void idSpaceShouldBeSplitIntoRanges() {
+        List<NodeIdRange> ranges = NodeIdRange.split(database, 100, 4);
+
+        assertEquals(4, ranges.size());
+        assertEquals(0, ranges.get(0).getFromId());
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1).getToId(), ranges.get(i).getFromId());
+        }
+        assertEquals(1000, ranges.get(3).getToId());
+    }
+
+    @Test
+    public void rangeShouldBeUsableAsTransactionalInput() {
+        long total = 0;
+        for (NodeIdRange range : NodeIdRange.split(database, 100, 3)) {
+            total += count(range);
+        }
+
+        assertEquals(1000 - 143, total);
+    }
+
+    @Test
+    public void eachNodeShouldBeProcessedExactlyOnce() {
+        final Set<Long> processed = ConcurrentHashMap.newKeySet();
+
+        new IdRangeBatchTransactionExecutor<>(database, 50, NodeIdRange.split(database, 50, 16), (db, node, batchNumber, stepNumber) -> {
+            assertTrue(processed.add(node.getId()));
+            node.setProperty("processed", true);
+        }, 4).execute();
+
+        assertEquals(1000 - 143, processed.size());
+
+        try (Transaction tx = database.beginTx()) {
+            for (Node node : database.getAllNodes()) {
+                assertTrue(node.hasProperty("processed"));
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void eachRelationshipShouldBeProcessedExactlyOnce() {
+        final Set<Long> processed = ConcurrentHashMap.newKeySet();
+
+        new IdRangeBatchTransactionExecutor<>(database, 50, RelationshipIdRange.split(database, 50, 8), (db, relationship, batchNumber, stepNumber) -> {
+            assertTrue(processed.add(relationship.getId()));
+        }, 4).execute();
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(count(database.getAllRelationships()), processed.size());
+            tx.success();
+        }
+    }
+
+    @Test
+    public void batchUnitOfWorkShouldReceiveExistingNodesOfEachBatch() {
+        final Set<Long> processed = ConcurrentHashMap.newKeySet();
+
+        new IdRangeBatchTransactionExecutor<>(database, 70, NodeIdRange.split(database, 70, 4), (BatchUnitOfWork<Node>) (db, batch, batchNumber) -> {
+            assertTrue(batch.size() <= 70);
+            for (Node node : batch) {
+                assertTrue(processed.add(node.getId()));
+            }
+        }, 2).execute();
+
+        assertEquals(1000 - 143, processed.size());
+    }
+
+    @Test
+    public void failingNodeShouldBeIsolatedWhenRetryingFailedBatches() {
+        final List<Long> deadLetters = Collections.synchronizedList(new ArrayList<Long>());
+
+        new IdRangeBatchTransactionExecutor<>(database, 50, NodeIdRange.split(database, 50, 4), (db, node, batchNumber, stepNumber) -> {
+            if (node.getId() == 500) {
+                throw new RuntimeException("Deliberate failure");
+            }
+            node.setProperty("processed", true);
+        }, 2, RetryFailedBatches.<Node>defaultConfiguration().withBackoff(0, 0).withDeadLetterCallback((node, cause) -> deadLetters.add(node.getId()))).execute();
+
+        assertEquals(Collections.singletonList(500L), deadLetters);
+
+        try (Transaction tx = database.beginTx()) {
+            for (Node node : database.getAllNodes()) {
+                assertEquals(node.getId() != 500, node.hasProperty("processed"));
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void progressShouldBeReportedWithIdsAsEstimate() {
+        final List<BatchProgress> reported = Collections.synchronizedList(new ArrayList<BatchProgress>());
+
+        BatchTransactionExecutor executor = new IdRangeBatchTransactionExecutor<>(database, 100, NodeIdRange.split(database, 100, 4), (UnitOfWork<Node>) (db, node, batchNumber, stepNumber) -> node.setProperty("processed", true), 2);
+        executor.addProgressListener(reported::add);
+        executor.execute();
+
+        BatchProgress last = reported.get(reported.size() - 1);
+        assertTrue(last.isFinished());
+        assertEquals(1000 - 143, last.getTotalSteps());
+        assertEquals(1000 - 143, last.getSuccessfulSteps());
+        assertEquals(1000, last.getEstimatedTotalSteps());
+        assertEquals(0, last.getQueueCapacity());
+    }
+
+    @Test
+    public void allNodesShouldEstimateTheirNumber() {
+        long estimate = new AllNodes(database, 100).estimatedSize();
+
+        assertTrue(estimate >= 1000 - 143 && estimate <= 1000);
+    }
+
+    @Test
+    public void emptyDatabaseShouldHaveNoRanges() {
+        GraphDatabaseService empty = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        try {
+            assertTrue(NodeIdRange.split(empty, 100, 4).isEmpty());
+        } finally {
+            empty.shutdown();
+        }
+    }
+}
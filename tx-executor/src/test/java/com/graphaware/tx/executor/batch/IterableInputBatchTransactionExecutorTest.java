@@ -16,8 +16,10 @@
 
 package com.graphaware.tx.executor.batch;
 
+import com.graphaware.tx.executor.NullItem;
 import com.graphaware.tx.executor.input.AllNodes;
 import com.graphaware.tx.executor.input.AllNodesWithLabel;
+import com.graphaware.tx.executor.input.NoInput;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -30,13 +32,16 @@ import org.neo4j.kernel.configuration.Settings;
 import org.neo4j.shell.ShellSettings;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.graphaware.common.util.DatabaseUtils.registerShutdownHook;
 import static com.graphaware.common.util.IterableUtils.countNodes;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.neo4j.kernel.configuration.Settings.*;
 
 /**
@@ -169,4 +174,166 @@ public class IterableInputBatchTransactionExecutorTest {
 
         assertEquals(2, count.get());
     }
+
+    @Test
+    public void batchUnitOfWorkShouldReceiveWholeBatches() {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        BatchTransactionExecutor executor = new IterableInputBatchTransactionExecutor<>(database, 4, new NoInput(10), (BatchUnitOfWork<NullItem>) (database, batch, batchNumber) -> {
+            batchSizes.add(batch.size());
+            for (NullItem ignored : batch) {
+                database.createNode();
+            }
+        });
+
+        executor.execute();
+
+        assertEquals(Arrays.asList(4, 4, 2), batchSizes);
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(10, countNodes(database));
+        }
+    }
+
+    @Test
+    public void failingBatchUnitOfWorkShouldRollBackWholeBatch() {
+        BatchTransactionExecutor executor = new IterableInputBatchTransactionExecutor<>(database, 3, new NoInput(9), (BatchUnitOfWork<NullItem>) (database, batch, batchNumber) -> {
+            for (NullItem ignored : batch) {
+                database.createNode();
+            }
+            if (batchNumber == 2) {
+                throw new RuntimeException("Testing exception");
+            }
+        });
+
+        executor.execute();
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(6, countNodes(database));
+        }
+    }
+
+    @Test
+    public void batchUnitOfWorkShouldWorkInMultipleThreads() {
+        BatchTransactionExecutor executor = new MultiThreadedBatchTransactionExecutor(new IterableInputBatchTransactionExecutor<>(database, 100, new NoInput(10_000), (BatchUnitOfWork<NullItem>) (database, batch, batchNumber) -> {
+            for (NullItem ignored : batch) {
+                database.createNode();
+            }
+        }), 4);
+
+        executor.execute();
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(10_000, countNodes(database));
+        }
+    }
+
+    @Test
+    public void poisonItemShouldBeIsolatedAndDeadLettered() {
+        final List<String> deadLetters = Collections.synchronizedList(new ArrayList<String>());
+        List<String> names = Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+
+        new IterableInputBatchTransactionExecutor<>(database, 4, names, (UnitOfWork<String>) (database, name, batchNumber, stepNumber) -> {
+            if ("5".equals(name)) {
+                throw new RuntimeException("Poison");
+            }
+            database.createNode().setProperty("name", name);
+        }, RetryFailedBatches.<String>defaultConfiguration().withBackoff(0, 0).withDeadLetterCallback((item, cause) -> deadLetters.add(item))).execute();
+
+        assertEquals(Collections.singletonList("5"), deadLetters);
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(9, countNodes(database));
+        }
+    }
+
+    @Test
+    public void transientFailureShouldBeRetried() {
+        final AtomicInteger failures = new AtomicInteger(2);
+        final List<NullItem> deadLetters = Collections.synchronizedList(new ArrayList<NullItem>());
+
+        new IterableInputBatchTransactionExecutor<>(database, 5, new NoInput(20), (BatchUnitOfWork<NullItem>) (database, batch, batchNumber) -> {
+            for (NullItem ignored : batch) {
+                database.createNode();
+            }
+            if (batchNumber == 2 && failures.getAndDecrement() > 0) {
+                throw new RuntimeException("Deadlock, maybe");
+            }
+        }, RetryFailedBatches.<NullItem>defaultConfiguration().withBackoff(1, 5).withDeadLetterCallback((item, cause) -> deadLetters.add(item))).execute();
+
+        assertTrue(deadLetters.isEmpty());
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(20, countNodes(database));
+        }
+    }
+
+    @Test
+    public void backoffShouldGrowExponentiallyWithJitter() {
+        RetryFailedBatches<Object> retry = RetryFailedBatches.defaultConfiguration().withBackoff(10, 100);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(retry.backoffMs(1) >= 5 && retry.backoffMs(1) <= 10);
+            assertTrue(retry.backoffMs(2) >= 10 && retry.backoffMs(2) <= 20);
+            assertTrue(retry.backoffMs(10) >= 50 && retry.backoffMs(10) <= 100);
+        }
+    }
+
+    @Test
+    public void progressShouldBeReportedAfterEveryBatch() {
+        final List<BatchProgress> reported = Collections.synchronizedList(new ArrayList<BatchProgress>());
+
+        BatchTransactionExecutor executor = new IterableInputBatchTransactionExecutor<>(database, 10, new NoInput(100), (BatchUnitOfWork<NullItem>) (database, batch, batchNumber) -> {
+            for (NullItem ignored : batch) {
+                database.createNode();
+            }
+            if (batchNumber == 3) {
+                throw new RuntimeException("Deliberate failure");
+            }
+        });
+        executor.addProgressListener(reported::add);
+        executor.execute();
+
+        assertTrue(reported.size() > 10);
+        BatchProgress last = reported.get(reported.size() - 1);
+        assertTrue(last.isFinished());
+        assertEquals(100, last.getTotalSteps());
+        assertEquals(90, last.getSuccessfulSteps());
+        assertEquals(10, last.getFailedSteps());
+        assertEquals(1, last.getRolledBackBatches());
+        assertTrue(last.getCommittedBatches() >= 9);
+        assertEquals(100, last.getEstimatedTotalSteps());
+        assertEquals(10_000, last.getQueueCapacity());
+        assertEquals(0, last.getEstimatedRemainingMillis());
+
+        for (BatchProgress progress : reported) {
+            assertTrue(progress.getTotalSteps() <= 100);
+        }
+    }
+
+    @Test
+    public void progressShouldBeReportedForAllThreads() {
+        final List<BatchProgress> reported = Collections.synchronizedList(new ArrayList<BatchProgress>());
+
+        BatchTransactionExecutor executor = new MultiThreadedBatchTransactionExecutor(new IterableInputBatchTransactionExecutor<>(database, 100, new NoInput(10_000), (BatchUnitOfWork<NullItem>) (database, batch, batchNumber) -> {
+            for (NullItem ignored : batch) {
+                database.createNode();
+            }
+        }), 4);
+        executor.addProgressListener(reported::add);
+        executor.execute();
+
+        BatchProgress last = reported.get(reported.size() - 1);
+        assertTrue(last.isFinished());
+        assertEquals(10_000, last.getTotalSteps());
+        assertEquals(10_000, last.getSuccessfulSteps());
+        assertEquals(0, last.getRolledBackBatches());
+    }
+
+    @Test
+    public void remainingTimeShouldBeEstimatedFromAverageRate() {
+        BatchProgress progress = new BatchProgress(250, 240, 5, 0, 100, 10_000, 1000, 5000, false);
+
+        assertEquals(50.0, progress.getStepsPerSecond(), 0.001);
+        assertEquals(10, progress.getFailedSteps());
+        assertEquals(15_000, progress.getEstimatedRemainingMillis());
+        assertEquals(-1, new BatchProgress(250, 250, 5, 0, 0, 0, -1, 5000, false).getEstimatedRemainingMillis());
+    }
 }
@@ -20,18 +20,23 @@ import com.graphaware.test.data.CypherPopulator;
 import com.graphaware.test.data.DatabasePopulator;
 import com.graphaware.test.integration.DatabaseIntegrationTest;
 import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
+import com.graphaware.tx.executor.input.AllNodes;
 import com.graphaware.tx.executor.input.TransactionalInput;
 import com.graphaware.tx.executor.single.TransactionCallback;
 import org.junit.Test;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
@@ -142,4 +147,52 @@ public class TransactionalInputTest extends EmbeddedDatabaseIntegrationTest {
         assertEquals(4, nodes.size());
         assertEquals(noTx + 1, monitor.getNumberOfCommittedTransactions());
     }
+
+    @Test
+    public void resumableInputShouldUseNewTransactionForEachBatch() {
+        TransactionCounters monitor = ((GraphDatabaseAPI) getDatabase()).getDependencyResolver().resolveDependency(TransactionCounters.class);
+        long noTx = monitor.getNumberOfCommittedTransactions();
+
+        List<Long> ids = new ArrayList<>();
+        for (Node node : new AllNodes(getDatabase(), 2)) {
+            ids.add(node.getId());
+        }
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), ids);
+        assertEquals(noTx + 3, monitor.getNumberOfCommittedTransactions());
+    }
+
+    @Test
+    public void resumableInputShouldResumeAfterLastSeenItem() {
+        List<String> names = new ArrayList<>();
+
+        TransactionalInput<String> input = new TransactionalInput<>(getDatabase(), 3, (database, lastSeen) -> {
+            List<String> result = new ArrayList<>();
+            for (int i = lastSeen == null ? 0 : Integer.parseInt(lastSeen) + 1; i < 10; i++) {
+                result.add(String.valueOf(i));
+            }
+            return result;
+        });
+
+        for (String name : input) {
+            names.add(name);
+        }
+
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), names);
+    }
+
+    @Test
+    public void resumableInputShouldSkipDeletedEntities() {
+        try (Transaction tx = getDatabase().beginTx()) {
+            getDatabase().getNodeById(1).delete();
+            tx.success();
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (Node node : new AllNodes(getDatabase(), 1)) {
+            ids.add(node.getId());
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList(0L, 2L, 3L)), ids);
+    }
 }
@@ -19,6 +19,7 @@ package com.graphaware.writer.neo4j;
 import com.graphaware.writer.Writer;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A {@link Writer} into Neo4j database.
@@ -40,6 +41,22 @@ public interface Neo4jWriter extends Writer {
      */
     void write(Runnable task, String id);
 
+    /**
+     * Write to the database without waiting for the result of the write, allowing the task to be superseded. Tasks with
+     * equal keys are expected to be idempotent updates of the same data (e.g. setting the same property of the same
+     * node), so that only the latest of them needs to be executed. Writers that don't support superseding tasks execute
+     * all of them, like {@link #write(Runnable, String)}.
+     * <p/>
+     * By default, tasks are never superseded, the key is ignored.
+     *
+     * @param key  of the data the task writes. Must implement {@link Object#equals(Object)} and {@link Object#hashCode()}.
+     * @param task that writes to the database.
+     * @param id   of the task for logging purposes.
+     */
+    default void write(Object key, Runnable task, String id) {
+        write(task, id);
+    }
+
     /**
      * Write to the database.
      *
@@ -51,4 +68,29 @@ public interface Neo4jWriter extends Writer {
      * or if it didn't execute successfully.
      */
     <T> T write(Callable<T> task, String id, int waitMillis);
+
+    /**
+     * Submit a write to the database without blocking the calling thread.
+     * <p/>
+     * By default, the task is written by {@link #write(Callable, String, int)}, waiting for as long as it takes, so the
+     * calling thread blocks until the write is complete and the returned future is always done. Writers that write
+     * asynchronously should override this method.
+     *
+     * @param task that writes to the database and returns a result.
+     * @param id   of the task for logging purposes.
+     * @param <T>  type of the tasks return value.
+     * @return future completed with the value returned by the task, or exceptionally if the task failed or could not be
+     * accepted for execution.
+     */
+    default <T> CompletableFuture<T> submit(Callable<T> task, String id) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        try {
+            result.complete(write(task, id, Integer.MAX_VALUE));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.neo4j;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Batch size for {@link BatchWriter} that adapts to observed transaction latency and queue depth, aiming for a target
+ * latency per batch.
+ * <p/>
+ * The per-task cost is tracked as an exponentially weighted moving average of batch latency divided by batch size.
+ * From that, the batch size that would take the target latency is derived. When it is smaller than the current batch
+ * size, the batch size shrinks to it straight away, to keep lock hold times and GC pressure down. When it is larger,
+ * the batch size grows (at most doubling per batch) only if there is a backlog in the queue that would fill a larger
+ * batch, so that small bursts aren't held up. The batch size always stays between the configured minimum and maximum.
+ * <p/>
+ * Updated by the writer's processing thread only, {@link #getCurrent()} can be read from any thread.
+ */
+public class AdaptiveBatchSize {
+
+    public static final int DEFAULT_MIN_BATCH_SIZE = 1;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 10_000;
+
+    private static final double SMOOTHING = 0.3;
+
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+
+    private volatile int current;
+    private double nanosPerTask = -1;
+
+    /**
+     * Construct a new adaptive batch size, starting at the minimum.
+     *
+     * @param min             minimum batch size, must be positive.
+     * @param max             maximum batch size, must not be smaller than the minimum.
+     * @param targetLatencyMs target latency of a single batch in milliseconds, must be positive.
+     */
+    public AdaptiveBatchSize(int min, int max, long targetLatencyMs) {
+        isTrue(min > 0, "Minimum batch size must be positive");
+        isTrue(max >= min, "Maximum batch size must not be smaller than minimum batch size");
+        isTrue(targetLatencyMs > 0, "Target latency must be positive");
+
+        this.min = min;
+        this.max = max;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.current = min;
+    }
+
+    /**
+     * @return current batch size.
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * Record a finished batch and adjust the batch size.
+     *
+     * @param size         number of tasks in the batch.
+     * @param latencyNanos time it took to execute and commit the batch.
+     * @param queueDepth   number of tasks waiting in the queue after the batch.
+     */
+    public void batchFinished(int size, long latencyNanos, int queueDepth) {
+        if (size <= 0) {
+            return;
+        }
+
+        double sample = (double) latencyNanos / size;
+        nanosPerTask = nanosPerTask < 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * nanosPerTask;
+
+        long ideal = nanosPerTask <= 0 ? max : (long) (targetNanos / nanosPerTask);
+
+        int next = current;
+        if (ideal < current) {
+            next = (int) ideal;
+        } else if (ideal > current && queueDepth > current) {
+            next = (int) Math.min(ideal, Math.min(2L * current, queueDepth));
+        }
+
+        current = Math.max(min, Math.min(max, next));
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public long getTargetLatencyMs() {
+        return TimeUnit.NANOSECONDS.toMillis(targetNanos);
+    }
+}
@@ -16,27 +16,34 @@
 
 package com.graphaware.writer.neo4j;
 
-import com.graphaware.tx.executor.batch.IterableInputBatchTransactionExecutor;
-import com.graphaware.tx.executor.batch.UnitOfWork;
+import com.graphaware.writer.service.OverflowPolicy;
+import com.graphaware.writer.service.WaitStrategy;
+import com.graphaware.writer.service.WorkQueue;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.logging.Log;
 import com.graphaware.common.log.LoggerFactory;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.RunnableFuture;
 
 /**
  * {@link SingleThreadedWriter} that writes tasks in batches. This is more performant but dangerous,
  * since a single task's failure can roll back the whole batch. This is here for experiments, not for production.
+ * <p/>
+ * The futures of tasks are completed only once the transaction of their batch has been committed. When it is rolled
+ * back, they are completed exceptionally, so that nobody sees a write succeed that has never happened.
+ * <p/>
+ * The batch size is either fixed, or an {@link AdaptiveBatchSize} that is tuned towards a target latency per batch.
  */
 public class BatchWriter extends SingleThreadedWriter implements Neo4jWriter {
 
     private static final Log LOG = LoggerFactory.getLogger(BatchWriter.class);
     public static final int DEFAULT_BATCH_SIZE = 1000;
     private final int batchSize;
+    private final AdaptiveBatchSize adaptiveBatchSize;
 
     /**
      * Construct a new writer with a default queue capacity of 10,000 and a batch size of 1,000.
@@ -46,6 +53,8 @@ public class BatchWriter extends SingleThreadedWriter implements Neo4jWriter {
     public BatchWriter(GraphDatabaseService database) {
         super(database);
         this.batchSize = DEFAULT_BATCH_SIZE;
+        this.adaptiveBatchSize = null;
+        publishCurrentBatchSize();
     }
 
     /**
@@ -58,6 +67,99 @@ public class BatchWriter extends SingleThreadedWriter implements Neo4jWriter {
     public BatchWriter(GraphDatabaseService database, int queueCapacity, int batchSize) {
         super(database, queueCapacity);
         this.batchSize = batchSize;
+        this.adaptiveBatchSize = null;
+        publishCurrentBatchSize();
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queueCapacity  capacity of the queue.
+     * @param batchSize      batch size.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    public BatchWriter(GraphDatabaseService database, int queueCapacity, int batchSize, OverflowPolicy overflowPolicy) {
+        super(database, queueCapacity, overflowPolicy);
+        this.batchSize = batchSize;
+        this.adaptiveBatchSize = null;
+        publishCurrentBatchSize();
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database     to write to.
+     * @param queue        queue of tasks.
+     * @param waitStrategy strategy for waiting for tasks.
+     * @param batchSize    batch size.
+     */
+    public BatchWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy, int batchSize) {
+        super(database, queue, waitStrategy);
+        this.batchSize = batchSize;
+        this.adaptiveBatchSize = null;
+        publishCurrentBatchSize();
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queue          queue of tasks.
+     * @param waitStrategy   strategy for waiting for tasks.
+     * @param batchSize      batch size.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    public BatchWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy, int batchSize, OverflowPolicy overflowPolicy) {
+        super(database, queue, waitStrategy, overflowPolicy);
+        this.batchSize = batchSize;
+        this.adaptiveBatchSize = null;
+        publishCurrentBatchSize();
+    }
+
+    /**
+     * Construct a new writer with adaptive batch size.
+     *
+     * @param database          to write to.
+     * @param queueCapacity     capacity of the queue.
+     * @param adaptiveBatchSize batch size, must not be shared with other writers.
+     * @param overflowPolicy    what to do when the queue is full.
+     */
+    public BatchWriter(GraphDatabaseService database, int queueCapacity, AdaptiveBatchSize adaptiveBatchSize, OverflowPolicy overflowPolicy) {
+        super(database, queueCapacity, overflowPolicy);
+        this.batchSize = adaptiveBatchSize.getMax();
+        this.adaptiveBatchSize = adaptiveBatchSize;
+        publishCurrentBatchSize();
+    }
+
+    /**
+     * Construct a new writer with adaptive batch size.
+     *
+     * @param database          to write to.
+     * @param queue             queue of tasks.
+     * @param waitStrategy      strategy for waiting for tasks.
+     * @param adaptiveBatchSize batch size, must not be shared with other writers.
+     * @param overflowPolicy    what to do when the queue is full.
+     */
+    public BatchWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy, AdaptiveBatchSize adaptiveBatchSize, OverflowPolicy overflowPolicy) {
+        super(database, queue, waitStrategy, overflowPolicy);
+        this.batchSize = adaptiveBatchSize.getMax();
+        this.adaptiveBatchSize = adaptiveBatchSize;
+        publishCurrentBatchSize();
+    }
+
+    /**
+     * Publish the batch size currently in use through the writer's metrics.
+     */
+    private void publishCurrentBatchSize() {
+        getMetrics().setCurrentBatchSizeGauge(this::getCurrentBatchSize);
+    }
+
+    /**
+     * @return the batch size currently in use, also published as {@link com.graphaware.writer.service.WriterMetrics#getCurrentBatchSize()}.
+     */
+    public int getCurrentBatchSize() {
+        return adaptiveBatchSize != null ? adaptiveBatchSize.getCurrent() : batchSize;
     }
 
     /**
@@ -65,36 +167,123 @@ public class BatchWriter extends SingleThreadedWriter implements Neo4jWriter {
      */
     @Override
     protected <T> RunnableFuture<T> createTask(Callable<T> task) {
-        return new FutureTask<>(task);
+        return new BatchTask<>(task);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    protected final void runOneIteration() throws Exception {
+    protected final void processQueue() throws Exception {
         if (queue.isEmpty()) {
             return;
         }
 
-        List<RunnableFuture<?>> tasks = new LinkedList<>();
+        if (adaptiveBatchSize != null) {
+            processAdaptively();
+            return;
+        }
+
+        List<RunnableFuture<?>> tasks = new ArrayList<>();
         queue.drainTo(tasks);
 
-        new IterableInputBatchTransactionExecutor<>(database, batchSize, tasks, new UnitOfWork<RunnableFuture<?>>() {
-            @Override
-            public void execute(GraphDatabaseService database, RunnableFuture<?> input, int batchNumber, int stepNumber) {
+        for (int from = 0; from < tasks.size(); from += batchSize) {
+            processBatch(tasks.subList(from, Math.min(from + batchSize, tasks.size())));
+        }
+    }
+
+    /**
+     * Process the tasks that are in the queue now in batches of the current adaptive size, each in its own transaction,
+     * feeding the latency of each committed batch back to the {@link AdaptiveBatchSize}. Rolled back batches are not
+     * fed back, as their latency doesn't reflect the cost of the tasks.
+     */
+    private void processAdaptively() {
+        int remaining = queue.size();
+        List<RunnableFuture<?>> batch = new ArrayList<>();
+
+        while (remaining > 0) {
+            int size = Math.min(adaptiveBatchSize.getCurrent(), remaining);
+
+            RunnableFuture<?> task;
+            while (batch.size() < size && (task = queue.poll()) != null) {
+                batch.add(task);
+            }
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            if (processBatch(batch)) {
+                adaptiveBatchSize.batchFinished(batch.size(), System.nanoTime() - start, queue.size());
+            }
+
+            remaining -= batch.size();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Process the given tasks in a single transaction. Complete their futures once it has been committed, or
+     * exceptionally if it has been rolled back.
+     *
+     * @param batch of tasks to process.
+     * @return <code>true</code> iff the transaction has been committed.
+     */
+    private boolean processBatch(List<RunnableFuture<?>> batch) {
+        try (Transaction tx = database.beginTx()) {
+            for (RunnableFuture<?> input : batch) {
                 processInput(input);
             }
-        }).execute();
+            tx.success();
+        } catch (RuntimeException e) {
+            LOG.warn("Batch of " + batch.size() + " tasks failed to commit.", e);
+            for (RunnableFuture<?> input : batch) {
+                rolledBack(input, e);
+            }
+            return false;
+        }
+
+        for (RunnableFuture<?> input : batch) {
+            committed(input);
+        }
+        return true;
     }
 
     /**
-     * Perform the processing of the given {@link RunnableFuture}.
+     * {@inheritDoc}
+     * <p/>
+     * Runs the task in its own transaction.
+     */
+    @Override
+    protected void runInCallingThread(RunnableFuture<?> task) {
+        try (Transaction tx = database.beginTx()) {
+            processInput(task);
+            tx.success();
+        } catch (RuntimeException e) {
+            rolledBack(task, e);
+            throw e;
+        }
+
+        committed(task);
+    }
+
+    /**
+     * Perform the processing of the given {@link RunnableFuture} in the current transaction.
      * Can be overridden to add extra logging, timing, etc.
+     * <p/>
+     * Tasks created by this writer hold their result back until their transaction has been committed or rolled back,
+     * other tasks are completed straight away.
      *
      * @param input to process.
      */
     protected void processInput(RunnableFuture<?> input) {
+        RunnableFuture<?> task = unwrap(input);
+        if (task instanceof BatchTask) {
+            ((BatchTask<?>) task).callInCurrentTransaction();
+            return;
+        }
+
         try {
             input.run();
             input.get();
@@ -102,4 +291,90 @@ public class BatchWriter extends SingleThreadedWriter implements Neo4jWriter {
             LOG.warn("Execution threw an exception.", e);
         }
     }
+
+    /**
+     * Complete the future of a task, whose transaction has been committed.
+     *
+     * @param input processed task.
+     */
+    private void committed(RunnableFuture<?> input) {
+        RunnableFuture<?> task = unwrap(input);
+        if (task instanceof BatchTask) {
+            ((BatchTask<?>) task).committed();
+        }
+    }
+
+    /**
+     * Complete the future of a task, whose transaction has been rolled back, exceptionally.
+     *
+     * @param input processed task.
+     * @param cause of the rollback.
+     */
+    private void rolledBack(RunnableFuture<?> input, RuntimeException cause) {
+        RunnableFuture<?> task = unwrap(input);
+        if (task instanceof BatchTask) {
+            ((BatchTask<?>) task).rolledBack(cause);
+        }
+    }
+
+    /**
+     * {@link CompletableFutureTask} that can be executed in the transaction of a batch, and is completed only once the
+     * transaction has been committed or rolled back. Only used by the writer's processing thread.
+     *
+     * @param <T> type of the result.
+     */
+    static class BatchTask<T> extends CompletableFutureTask<T> {
+
+        private final Callable<T> task;
+        private T result;
+        private Exception failure;
+
+        /**
+         * Create a new task.
+         *
+         * @param task to execute.
+         */
+        BatchTask(Callable<T> task) {
+            super(task);
+            this.task = task;
+        }
+
+        /**
+         * Execute the task in the current transaction, holding its result back.
+         */
+        private void callInCurrentTransaction() {
+            if (isDone()) {
+                return;
+            }
+
+            try {
+                result = task.call();
+                failure = null;
+            } catch (Exception e) {
+                LOG.warn("Execution threw an exception.", e);
+                result = null;
+                failure = e;
+            }
+        }
+
+        /**
+         * Complete the task with its result, as its transaction has been committed.
+         */
+        private void committed() {
+            if (failure != null) {
+                setException(failure);
+            } else {
+                set(result);
+            }
+        }
+
+        /**
+         * Complete the task exceptionally, as its transaction has been rolled back.
+         *
+         * @param cause of the rollback, used unless the task failed itself.
+         */
+        private void rolledBack(RuntimeException cause) {
+            setException(failure != null ? failure : cause);
+        }
+    }
 }
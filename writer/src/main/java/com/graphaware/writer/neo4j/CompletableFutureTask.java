@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.neo4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * {@link FutureTask} that can complete a {@link CompletableFuture} once it is done, no matter whether it has been run,
+ * completed by its writer in some other way, or cancelled.
+ *
+ * @param <T> type of the result.
+ */
+public class CompletableFutureTask<T> extends FutureTask<T> {
+
+    private final long createdAt = System.nanoTime();
+    private volatile CompletableFuture<T> completion;
+
+    /**
+     * Create a new task.
+     *
+     * @param callable to run.
+     */
+    public CompletableFutureTask(Callable<T> callable) {
+        super(callable);
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at which this task was created.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Get a {@link CompletableFuture} that is completed when this task is done.
+     *
+     * @return completable future.
+     */
+    public CompletableFuture<T> toCompletableFuture() {
+        if (completion == null) {
+            synchronized (this) {
+                if (completion == null) {
+                    completion = new CompletableFuture<>();
+                }
+            }
+        }
+
+        if (isDone()) {
+            done();
+        }
+
+        return completion;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done() {
+        CompletableFuture<T> completion = this.completion;
+
+        if (completion == null) {
+            return;
+        }
+
+        if (isCancelled()) {
+            completion.cancel(false);
+            return;
+        }
+
+        try {
+            completion.complete(get());
+        } catch (ExecutionException e) {
+            completion.completeExceptionally(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completion.completeExceptionally(e);
+        }
+    }
+}
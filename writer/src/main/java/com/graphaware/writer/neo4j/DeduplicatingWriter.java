@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.neo4j;
+
+import com.graphaware.writer.service.OverflowPolicy;
+import com.graphaware.writer.service.WaitStrategy;
+import com.graphaware.writer.service.WorkQueue;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * {@link BatchWriter} that lets the latest task written with a key by {@link #write(Object, Runnable, String)} supersede
+ * the tasks with an equal key that are still waiting in the queue. Bursts of idempotent updates of the same data thus
+ * collapse into a single write per key per drain of the queue.
+ * <p/>
+ * A superseded task is never executed. The task superseding it takes its place in the queue, rather than being
+ * appended to its end, so it is executed earlier than it would have been without deduplication. Once a task has been
+ * taken from the queue, tasks with an equal key are queued again. Tasks written without a key are never superseded.
+ */
+public class DeduplicatingWriter extends BatchWriter {
+
+    private final ConcurrentMap<Object, Latest> queued = new ConcurrentHashMap<>();
+    private final LongAdder superseded = new LongAdder();
+
+    /**
+     * Construct a new writer with a default queue capacity of 10,000 and a batch size of 1,000.
+     *
+     * @param database to write to.
+     */
+    public DeduplicatingWriter(GraphDatabaseService database) {
+        super(database);
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database      to write to.
+     * @param queueCapacity capacity of the queue.
+     * @param batchSize     batch size.
+     */
+    public DeduplicatingWriter(GraphDatabaseService database, int queueCapacity, int batchSize) {
+        super(database, queueCapacity, batchSize);
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queueCapacity  capacity of the queue.
+     * @param batchSize      batch size.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    public DeduplicatingWriter(GraphDatabaseService database, int queueCapacity, int batchSize, OverflowPolicy overflowPolicy) {
+        super(database, queueCapacity, batchSize, overflowPolicy);
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queue          queue of tasks.
+     * @param waitStrategy   strategy for waiting for tasks.
+     * @param batchSize      batch size.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    public DeduplicatingWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy, int batchSize, OverflowPolicy overflowPolicy) {
+        super(database, queue, waitStrategy, batchSize, overflowPolicy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * If a task with an equal key is still waiting in the queue, it is replaced by the given task.
+     */
+    @Override
+    public void write(Object key, Runnable task, String id) {
+        notNull(key);
+        notNull(task);
+
+        while (true) {
+            Latest existing = queued.get(key);
+
+            if (existing != null && existing.supersede(task)) {
+                superseded.increment();
+                return;
+            }
+
+            Latest latest = new Latest(key, task);
+            if (existing == null ? queued.putIfAbsent(key, latest) == null : queued.replace(key, existing, latest)) {
+                boolean enqueued = false;
+                try {
+                    enqueued = enqueue(new KeyedTask(latest), latest, id) != null;
+                } finally {
+                    if (!enqueued) {
+                        latest.take();
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Tasks with an equal key can be queued again.
+     */
+    @Override
+    protected void dropped(RunnableFuture<?> task) {
+        super.dropped(task);
+
+        RunnableFuture<?> unwrapped = unwrap(task);
+        if (unwrapped instanceof KeyedTask) {
+            ((KeyedTask) unwrapped).latest.take();
+        }
+    }
+
+    /**
+     * @return number of tasks that have been superseded by a later task with an equal key, and thus never executed.
+     */
+    public long getSupersededCount() {
+        return superseded.sum();
+    }
+
+    /**
+     * The latest task written with a key, as long as it hasn't been taken from the queue.
+     */
+    private final class Latest implements Callable<Object> {
+
+        private final Object key;
+        private Runnable task;
+        private boolean taken;
+
+        private Latest(Object key, Runnable task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        /**
+         * Replace the task by a later one, unless it has already been taken from the queue.
+         *
+         * @param later task.
+         * @return true iff the task has been replaced.
+         */
+        private synchronized boolean supersede(Runnable later) {
+            if (taken) {
+                return false;
+            }
+
+            task = later;
+            return true;
+        }
+
+        /**
+         * Take the task, so that it can't be superseded any more and later tasks with an equal key are queued again.
+         *
+         * @return the latest task.
+         */
+        private Runnable take() {
+            Runnable result;
+            synchronized (this) {
+                taken = true;
+                result = task;
+            }
+
+            queued.remove(key, this);
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object call() throws Exception {
+            take().run();
+            return null;
+        }
+    }
+
+    /**
+     * Queued task executing the {@link Latest} task written with a key.
+     */
+    private static final class KeyedTask extends BatchTask<Object> {
+
+        private final Latest latest;
+
+        private KeyedTask(Latest latest) {
+            super(latest);
+            this.latest = latest;
+        }
+    }
+}
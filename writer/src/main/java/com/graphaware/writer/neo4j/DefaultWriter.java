@@ -22,6 +22,7 @@ import org.neo4j.logging.Log;
 import com.graphaware.common.log.LoggerFactory;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A {@link Neo4jWriter} that writes to the database using the same thread that is submitting the task and blocks
@@ -61,4 +62,22 @@ public class DefaultWriter extends BaseNeo4jWriter {
 
         return result;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Note that the thread blocks until the write is complete, the returned future is always done.
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(Callable<T> task, String id) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        try {
+            result.complete(write(task, id, 0));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
 }
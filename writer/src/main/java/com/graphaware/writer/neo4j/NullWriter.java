@@ -17,6 +17,7 @@
 package com.graphaware.writer.neo4j;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A {@link Neo4jWriter} that throws an {@link UnsupportedOperationException} any time it is used for writing. Its
@@ -59,12 +60,23 @@ public final class NullWriter implements Neo4jWriter {
         throwException();
     }
 
+    @Override
+    public void write(Object key, Runnable task, String id) {
+        throwException();
+    }
+
     @Override
     public <T> T write(Callable<T> task, String id, int waitMillis) {
         throwException();
         return null;
     }
 
+    @Override
+    public <T> CompletableFuture<T> submit(Callable<T> task, String id) {
+        throwException();
+        return null;
+    }
+
     private void throwException() {
         throw new UnsupportedOperationException("NullWriter should not be used for writing to the database. Are you using it in batch inserter mode?");
     }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.neo4j;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.writer.service.OverflowPolicy;
+import com.graphaware.writer.service.WriterMetrics;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.logging.Log;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RunnableFuture;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * A {@link Neo4jWriter} that spreads tasks over a number of lanes, each of which is a single thread writing each task in
+ * a separate transaction, like {@link TxPerTaskWriter}. The lane is chosen by hashing the task's ID, which thus acts as
+ * a partition key: tasks with the same ID are always written by the same lane, in the order in which they have been
+ * submitted. Tasks with different IDs can be written concurrently, so callers should use IDs that identify the part of
+ * the graph the task writes to, e.g. the ID of the entity being updated. Tasks submitted without an ID all share a lane.
+ * <p/>
+ * Since lanes write concurrently, their transactions can deadlock. A task whose transaction fails with
+ * {@link DeadlockDetectedException} is retried in a new transaction up to a configurable number of times, with
+ * a short back-off, before the failure is reported.
+ * <p/>
+ * Each lane has its own queue and {@link OverflowPolicy}.
+ */
+public class PartitionedWriter extends BaseNeo4jWriter {
+
+    private static final Log LOG = LoggerFactory.getLogger(PartitionedWriter.class);
+
+    public static final int DEFAULT_LANES = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_DEADLOCK_RETRIES = 3;
+    private static final long DEADLOCK_BACKOFF_MS = 10;
+
+    private final Lane[] lanes;
+
+    /**
+     * Construct a new writer with {@link #DEFAULT_LANES} lanes, each with a default queue capacity of
+     * {@link SingleThreadedWriter#DEFAULT_QUEUE_CAPACITY}, retrying deadlocked tasks {@link #DEFAULT_DEADLOCK_RETRIES} times.
+     *
+     * @param database to write to.
+     */
+    public PartitionedWriter(GraphDatabaseService database) {
+        this(database, DEFAULT_LANES, SingleThreadedWriter.DEFAULT_QUEUE_CAPACITY, DEFAULT_DEADLOCK_RETRIES, OverflowPolicy.dropNewest());
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database        to write to.
+     * @param lanes           number of lanes, must be positive.
+     * @param queueCapacity   capacity of each lane's queue.
+     * @param deadlockRetries how many times to retry a task that failed because of a deadlock, 0 for no retries.
+     * @param overflowPolicy  what to do when a lane's queue is full.
+     */
+    public PartitionedWriter(GraphDatabaseService database, int lanes, int queueCapacity, int deadlockRetries, OverflowPolicy overflowPolicy) {
+        super(database);
+
+        isTrue(lanes > 0, "Number of lanes must be positive");
+        isTrue(deadlockRetries >= 0, "Number of deadlock retries must not be negative");
+
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(database, queueCapacity, deadlockRetries, overflowPolicy);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @PostConstruct
+    @Override
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.start();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @PreDestroy
+    @Override
+    public void stop() {
+        for (Lane lane : lanes) {
+            lane.stop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The ID is used to choose the lane the task is written by.
+     */
+    @Override
+    public <T> T write(Callable<T> task, String id, int waitMillis) {
+        return lanes[laneIndex(id)].write(task, id, waitMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The key is used to choose the lane the task is written by, so that tasks with equal keys are written in order.
+     */
+    @Override
+    public void write(Object key, Runnable task, String id) {
+        lanes[laneIndex(key)].write(key, task, id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The ID is used to choose the lane the task is written by.
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(Callable<T> task, String id) {
+        return lanes[laneIndex(id)].submit(task, id);
+    }
+
+    /**
+     * @return metrics of each lane, in the order of lanes.
+     */
+    public List<WriterMetrics> getLaneMetrics() {
+        List<WriterMetrics> result = new ArrayList<>();
+
+        for (Lane lane : lanes) {
+            result.add(lane.getMetrics());
+        }
+
+        return result;
+    }
+
+    /**
+     * @return number of lanes.
+     */
+    public int getLanes() {
+        return lanes.length;
+    }
+
+    /**
+     * Get the index of the lane that writes tasks with the given ID or key.
+     *
+     * @param id of a task, or its key, can be <code>null</code>.
+     * @return index of the lane.
+     */
+    int laneIndex(Object id) {
+        if (id == null) {
+            return 0;
+        }
+
+        int hash = id.hashCode();
+        hash ^= (hash >>> 16);
+
+        return (hash & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    /**
+     * A single lane, writing each task in a separate transaction, retrying on deadlocks.
+     */
+    private static class Lane extends SingleThreadedWriter {
+
+        private final int deadlockRetries;
+
+        private Lane(GraphDatabaseService database, int queueCapacity, int deadlockRetries, OverflowPolicy overflowPolicy) {
+            super(database, queueCapacity, overflowPolicy);
+            this.deadlockRetries = deadlockRetries;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected <T> RunnableFuture<T> createTask(final Callable<T> task) {
+            return new CompletableFutureTask<>(() -> {
+                int attempt = 0;
+
+                while (true) {
+                    try (Transaction tx = database.beginTx()) {
+                        T result = task.call();
+                        tx.success();
+                        return result;
+                    } catch (Exception e) {
+                        if (!isDeadlock(e) || attempt >= deadlockRetries) {
+                            LOG.warn("Execution threw an exception.", e);
+                            throw e;
+                        }
+
+                        attempt++;
+                        LOG.debug("Deadlock detected, retrying task (attempt " + attempt + " of " + deadlockRetries + ")");
+                        Thread.sleep(DEADLOCK_BACKOFF_MS * attempt);
+                    }
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void processQueue() throws Exception {
+            try {
+                RunnableFuture<?> r;
+                while ((r = queue.poll()) != null) {
+                    r.run();
+                }
+            } catch (Exception e) {
+                LOG.error("Error running from the queue", e);
+            }
+        }
+
+        private boolean isDeadlock(Throwable e) {
+            while (e != null) {
+                if (e instanceof DeadlockDetectedException) {
+                    return true;
+                }
+                e = e.getCause();
+            }
+            return false;
+        }
+    }
+}
@@ -16,13 +16,17 @@
 
 package com.graphaware.writer.neo4j;
 
+import com.graphaware.writer.service.OverflowPolicy;
 import com.graphaware.writer.service.QueueBackedScheduledService;
+import com.graphaware.writer.service.WaitStrategy;
+import com.graphaware.writer.service.WorkQueue;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
 import com.graphaware.common.log.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.io.Serializable;
 import java.util.concurrent.*;
 
 import static java.util.concurrent.Executors.callable;
@@ -31,7 +35,11 @@ import static java.util.concurrent.Executors.callable;
  * A {@link Neo4jWriter} that maintains a queue of tasks and writes to the database in a single thread by constantly
  * pulling the tasks from the head of the queue.
  * <p/>
- * If the queue capacity is full, tasks are dropped and a warning is logged.
+ * What happens when the queue is full is determined by an {@link OverflowPolicy}. By default, tasks are dropped and a
+ * warning is logged. With {@link OverflowPolicy.Type#SPILL}, only tasks that are {@link Serializable} and whose result
+ * nobody waits for can be spilled to disk, as a task is re-created when replayed. Tasks written with a positive wait
+ * time and tasks {@link #submit(Callable, String) submitted} for a future wait for room in the queue instead, and are
+ * rejected if there is none within the policy's timeout.
  * <p/>
  * Note that {@link #start()} must be called in order to start processing the queue and {@link #stop()} should be called
  * before the application is shut down.
@@ -61,6 +69,43 @@ public abstract class SingleThreadedWriter extends QueueBackedScheduledService<R
         this.database = database;
     }
 
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queueCapacity  capacity of the queue.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    protected SingleThreadedWriter(GraphDatabaseService database, int queueCapacity, OverflowPolicy overflowPolicy) {
+        super(queueCapacity, overflowPolicy);
+        this.database = database;
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database     to write to.
+     * @param queue        queue of tasks.
+     * @param waitStrategy strategy for waiting for tasks.
+     */
+    protected SingleThreadedWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy) {
+        super(queue, waitStrategy);
+        this.database = database;
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queue          queue of tasks.
+     * @param waitStrategy   strategy for waiting for tasks.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    protected SingleThreadedWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        super(queue, waitStrategy, overflowPolicy);
+        this.database = database;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -87,10 +132,12 @@ public abstract class SingleThreadedWriter extends QueueBackedScheduledService<R
 
     /**
      * {@inheritDoc}
+     * <p/>
+     * A {@link Serializable} task remains serializable when adapted to a {@link Callable}, so that it can be spilled.
      */
     @Override
     public void write(Runnable task, String id) {
-        write(callable(task), id, 0);
+        write(task instanceof Serializable ? new SerializableRunnableAdapter(task) : callable(task), id, 0);
     }
 
     /**
@@ -114,23 +161,151 @@ public abstract class SingleThreadedWriter extends QueueBackedScheduledService<R
      * not been overridden to block in such situations.
      */
     protected final <T> T offer(final Callable<T> task, String id, int waitMillis) {
+        RunnableFuture<T> futureTask = enqueue(createTask(task), task, id, waitMillis > 0);
+
+        if (futureTask == null) {
+            return null;
+        }
+
+        if (waitMillis <= 0) {
+            //no need to wait, caller not interested in result
+            return null;
+        }
+
+        return block(futureTask, id, waitMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * If the queue is too full, the returned future is completed exceptionally with a {@link RejectedExecutionException}.
+     * If the task is dropped from the queue later, the future is cancelled. The task is never spilled to disk, so that
+     * the future completes.
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(final Callable<T> task, String id) {
+        RunnableFuture<T> created = createTask(task);
+
+        CompletableFutureTask<T> futureTask;
+        if (created instanceof CompletableFutureTask) {
+            futureTask = (CompletableFutureTask<T>) created;
+        } else {
+            futureTask = new CompletableFutureTask<>(() -> {
+                created.run();
+                try {
+                    return created.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            });
+        }
+
+        CompletableFuture<T> result = futureTask.toCompletableFuture();
+
+        if (enqueue(futureTask, task, id, true) == null) {
+            result.completeExceptionally(new RejectedExecutionException("Could not write task " + id + " to queue as it is too full"));
+        }
+
+        return result;
+    }
+
+    /**
+     * Put a task, whose result nobody waits for, in the queue.
+     *
+     * @param futureTask to put in the queue.
+     * @param task       the future has been created from.
+     * @param id         of the task for logging purposes.
+     * @param <T>        type of the processing result.
+     * @return the future that has been queued, <code>null</code> if the queue was too full.
+     */
+    protected final <T> RunnableFuture<T> enqueue(RunnableFuture<T> futureTask, Callable<T> task, String id) {
+        return enqueue(futureTask, task, id, false);
+    }
+
+    /**
+     * Put a task in the queue.
+     *
+     * @param futureTask to put in the queue.
+     * @param task       the future has been created from.
+     * @param id         of the task for logging purposes.
+     * @param awaited    <code>true</code> iff someone waits for the future, in which case the task is never spilled to
+     *                   disk, as the future of a spilled task would never complete.
+     * @param <T>        type of the processing result.
+     * @return the future that has been queued, <code>null</code> if the queue was too full.
+     */
+    protected final <T> RunnableFuture<T> enqueue(RunnableFuture<T> futureTask, Callable<T> task, String id, boolean awaited) {
         if (!state().equals(State.NEW) && !state().equals(State.STARTING) && !state().equals(State.RUNNING)) {
             throw new IllegalStateException("Service is not running!");
         }
 
-        RunnableFuture<T> futureTask = createTask(task);
+        if (!awaited && getOverflowPolicy().getType() == OverflowPolicy.Type.SPILL) {
+            futureTask = new SpillableTask<>(futureTask, task);
+        }
 
         if (!offer(futureTask)) {
             LOG.warn("Could not write task " + id + " to queue as it is too full. We're losing taks now.");
             return null;
         }
 
-        if (waitMillis <= 0) {
-            //no need to wait, caller not interested in result
-            return null;
+        return futureTask;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Runs the task directly, which is appropriate for tasks that manage their own transactions. Writers whose tasks
+     * don't should override this method.
+     */
+    @Override
+    protected void runInCallingThread(RunnableFuture<?> task) {
+        task.run();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Cancels the task, so that callers waiting for its result don't wait in vain.
+     */
+    @Override
+    protected void dropped(RunnableFuture<?> task) {
+        task.cancel(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Tasks are put in the queue as soon as they have been created, so this is the time of creation of
+     * {@link CompletableFutureTask}s.
+     */
+    @Override
+    protected long enqueuedAt(RunnableFuture<?> task) {
+        RunnableFuture<?> unwrapped = unwrap(task);
+
+        if (unwrapped instanceof CompletableFutureTask) {
+            return ((CompletableFutureTask<?>) unwrapped).getCreatedAt();
         }
 
-        return block(futureTask, id, waitMillis);
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object toSpillable(RunnableFuture<?> task) {
+        if (task instanceof SpillableTask && ((SpillableTask<?>) task).callable instanceof Serializable) {
+            return ((SpillableTask<?>) task).callable;
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RunnableFuture<?> fromSpillable(Object spilled) {
+        return createTask((Callable<?>) spilled);
     }
 
     /**
@@ -141,6 +316,21 @@ public abstract class SingleThreadedWriter extends QueueBackedScheduledService<R
      */
     protected abstract <T> RunnableFuture<T> createTask(final Callable<T> task);
 
+    /**
+     * Unwrap a task taken from the queue, so that it is the task created by {@link #createTask(Callable)}. Completing
+     * the unwrapped task completes the queued one as well.
+     *
+     * @param task taken from the queue.
+     * @return task created by {@link #createTask(Callable)}.
+     */
+    protected final RunnableFuture<?> unwrap(RunnableFuture<?> task) {
+        if (task instanceof SpillableTask) {
+            return ((SpillableTask<?>) task).delegate;
+        }
+
+        return task;
+    }
+
     /**
      * Block until the given task is executed, or until a timeout occurs.
      *
@@ -168,4 +358,68 @@ public abstract class SingleThreadedWriter extends QueueBackedScheduledService<R
 
         return null;
     }
+
+    /**
+     * {@link Callable} that runs a {@link Serializable} {@link Runnable}, so that it can be spilled to disk, which the
+     * adapter returned by {@link java.util.concurrent.Executors#callable(Runnable)} can't.
+     */
+    private static final class SerializableRunnableAdapter implements Callable<Object>, Serializable {
+
+        private final Runnable task;
+
+        private SerializableRunnableAdapter(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public Object call() {
+            task.run();
+            return null;
+        }
+    }
+
+    /**
+     * {@link RunnableFuture} that remembers the {@link Callable} it has been created from, so that the callable can be
+     * spilled to disk.
+     */
+    private static final class SpillableTask<T> implements RunnableFuture<T> {
+
+        private final RunnableFuture<T> delegate;
+        private final Callable<T> callable;
+
+        private SpillableTask(RunnableFuture<T> delegate, Callable<T> callable) {
+            this.delegate = delegate;
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return delegate.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return delegate.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return delegate.isDone();
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            return delegate.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.get(timeout, unit);
+        }
+    }
 }
@@ -16,21 +16,41 @@
 
 package com.graphaware.writer.neo4j;
 
+import com.graphaware.writer.service.OverflowPolicy;
+import com.graphaware.writer.service.WaitStrategy;
+import com.graphaware.writer.service.WorkQueue;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.logging.Log;
 import com.graphaware.common.log.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.Assert.isTrue;
 
 /**
  * {@link SingleThreadedWriter} that writes each task in a separate transaction.
+ * <p/>
+ * Optionally, consecutive queued tasks can be coalesced into a single transaction, bounded by the number of tasks and
+ * by how long the transaction stays open. This saves a commit per task, which matters a lot for many tiny writes. The
+ * result (or exception) of each task is the same as if it ran in its own transaction: when a task fails, the coalesced
+ * transaction is rolled back, the tasks before the failing one are re-run in a new coalesced transaction, and the
+ * failing task runs in a transaction of its own. Tasks can thus be executed more than once, so they should not have
+ * side effects outside of the database. When a coalesced transaction fails to commit, all its tasks are re-run in a
+ * transaction per task.
  */
 public class TxPerTaskWriter extends SingleThreadedWriter implements Neo4jWriter {
 
     private static final Log LOG = LoggerFactory.getLogger(TxPerTaskWriter.class);
+    public static final int DEFAULT_MAX_TASKS_PER_TRANSACTION = 1;
+    public static final long DEFAULT_MAX_TRANSACTION_MILLIS = 100;
+
+    private final int maxTasksPerTransaction;
+    private final long maxTransactionNanos;
 
     /**
      * Construct a new writer with a default queue capacity of 10,000.
@@ -39,6 +59,8 @@ public class TxPerTaskWriter extends SingleThreadedWriter implements Neo4jWriter
      */
     public TxPerTaskWriter(GraphDatabaseService database) {
         super(database);
+        this.maxTasksPerTransaction = DEFAULT_MAX_TASKS_PER_TRANSACTION;
+        this.maxTransactionNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_TRANSACTION_MILLIS);
     }
 
     /**
@@ -49,6 +71,90 @@ public class TxPerTaskWriter extends SingleThreadedWriter implements Neo4jWriter
      */
     public TxPerTaskWriter(GraphDatabaseService database, int queueCapacity) {
         super(database, queueCapacity);
+        this.maxTasksPerTransaction = DEFAULT_MAX_TASKS_PER_TRANSACTION;
+        this.maxTransactionNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_TRANSACTION_MILLIS);
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queueCapacity  capacity of the queue.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    public TxPerTaskWriter(GraphDatabaseService database, int queueCapacity, OverflowPolicy overflowPolicy) {
+        super(database, queueCapacity, overflowPolicy);
+        this.maxTasksPerTransaction = DEFAULT_MAX_TASKS_PER_TRANSACTION;
+        this.maxTransactionNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_TRANSACTION_MILLIS);
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database     to write to.
+     * @param queue        queue of tasks.
+     * @param waitStrategy strategy for waiting for tasks.
+     */
+    public TxPerTaskWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy) {
+        super(database, queue, waitStrategy);
+        this.maxTasksPerTransaction = DEFAULT_MAX_TASKS_PER_TRANSACTION;
+        this.maxTransactionNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_TRANSACTION_MILLIS);
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param database       to write to.
+     * @param queue          queue of tasks.
+     * @param waitStrategy   strategy for waiting for tasks.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    public TxPerTaskWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        super(database, queue, waitStrategy, overflowPolicy);
+        this.maxTasksPerTransaction = DEFAULT_MAX_TASKS_PER_TRANSACTION;
+        this.maxTransactionNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_TRANSACTION_MILLIS);
+    }
+
+    /**
+     * Construct a new writer that coalesces tasks into transactions.
+     *
+     * @param database               to write to.
+     * @param queueCapacity          capacity of the queue.
+     * @param overflowPolicy         what to do when the queue is full.
+     * @param maxTasksPerTransaction maximum number of tasks coalesced into a single transaction, 1 for no coalescing.
+     * @param maxTransactionMillis   maximum time in ms a coalesced transaction stays open before it is committed.
+     */
+    public TxPerTaskWriter(GraphDatabaseService database, int queueCapacity, OverflowPolicy overflowPolicy, int maxTasksPerTransaction, long maxTransactionMillis) {
+        super(database, queueCapacity, overflowPolicy);
+        isTrue(maxTasksPerTransaction > 0, "Max tasks per transaction must be positive");
+        isTrue(maxTransactionMillis > 0, "Max transaction millis must be positive");
+        this.maxTasksPerTransaction = maxTasksPerTransaction;
+        this.maxTransactionNanos = TimeUnit.MILLISECONDS.toNanos(maxTransactionMillis);
+    }
+
+    /**
+     * Construct a new writer that coalesces tasks into transactions.
+     *
+     * @param database               to write to.
+     * @param queue                  queue of tasks.
+     * @param waitStrategy           strategy for waiting for tasks.
+     * @param overflowPolicy         what to do when the queue is full.
+     * @param maxTasksPerTransaction maximum number of tasks coalesced into a single transaction, 1 for no coalescing.
+     * @param maxTransactionMillis   maximum time in ms a coalesced transaction stays open before it is committed.
+     */
+    public TxPerTaskWriter(GraphDatabaseService database, WorkQueue<RunnableFuture<?>> queue, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy, int maxTasksPerTransaction, long maxTransactionMillis) {
+        super(database, queue, waitStrategy, overflowPolicy);
+        isTrue(maxTasksPerTransaction > 0, "Max tasks per transaction must be positive");
+        isTrue(maxTransactionMillis > 0, "Max transaction millis must be positive");
+        this.maxTasksPerTransaction = maxTasksPerTransaction;
+        this.maxTransactionNanos = TimeUnit.MILLISECONDS.toNanos(maxTransactionMillis);
+    }
+
+    /**
+     * @return maximum number of tasks coalesced into a single transaction, 1 if tasks aren't coalesced.
+     */
+    public int getMaxTasksPerTransaction() {
+        return maxTasksPerTransaction;
     }
 
     /**
@@ -56,7 +162,7 @@ public class TxPerTaskWriter extends SingleThreadedWriter implements Neo4jWriter
      */
     @Override
     protected <T> RunnableFuture<T> createTask(final Callable<T> task) {
-        return new FutureTask<>(new Callable<T>() {
+        return new TxTask<>(task, new Callable<T>() {
             @Override
             public T call() {
                 try (Transaction tx = database.beginTx()) {
@@ -75,7 +181,12 @@ public class TxPerTaskWriter extends SingleThreadedWriter implements Neo4jWriter
      * {@inheritDoc}
      */
     @Override
-    protected void runOneIteration() throws Exception {
+    protected void processQueue() throws Exception {
+        if (maxTasksPerTransaction > 1) {
+            processCoalesced();
+            return;
+        }
+
         try {
             RunnableFuture<?> r = queue.poll();
 
@@ -91,4 +202,126 @@ public class TxPerTaskWriter extends SingleThreadedWriter implements Neo4jWriter
             LOG.error("Error running from the queue", e);
         }
     }
+
+    /**
+     * Process the tasks in the queue, coalescing them into groups of at most {@link #maxTasksPerTransaction}.
+     */
+    private void processCoalesced() {
+        List<TxTask<?>> group = new ArrayList<>();
+
+        RunnableFuture<?> r;
+        while ((r = queue.poll()) != null) {
+            try {
+                RunnableFuture<?> task = unwrap(r);
+                if (task.isDone()) {
+                    continue;
+                }
+
+                if (!(task instanceof TxTask)) {
+                    r.run();
+                    continue;
+                }
+
+                group.add((TxTask<?>) task);
+
+                if (group.size() >= maxTasksPerTransaction) {
+                    runCoalesced(group);
+                    group.clear();
+                }
+            } catch (Exception e) {
+                LOG.error("Error running from the queue", e);
+            }
+        }
+
+        try {
+            runCoalesced(group);
+        } catch (Exception e) {
+            LOG.error("Error running from the queue", e);
+        }
+    }
+
+    /**
+     * Run the given tasks in as few transactions as possible, so that each task's result is the same as if it ran in
+     * its own transaction.
+     *
+     * @param tasks to run.
+     */
+    private void runCoalesced(List<TxTask<?>> tasks) {
+        int from = 0;
+
+        while (from < tasks.size()) {
+            if (tasks.size() - from == 1) {
+                tasks.get(from).run();
+                return;
+            }
+
+            Object[] results = new Object[tasks.size() - from];
+            int executed = 0;
+            int failed = -1;
+            long deadline = System.nanoTime() + maxTransactionNanos;
+
+            try (Transaction tx = database.beginTx()) {
+                while (from + executed < tasks.size()) {
+                    try {
+                        results[executed] = tasks.get(from + executed).callInCurrentTransaction();
+                    } catch (Exception e) {
+                        failed = from + executed;
+                        break;
+                    }
+
+                    executed++;
+
+                    if (System.nanoTime() - deadline >= 0) {
+                        break;
+                    }
+                }
+
+                if (failed < 0) {
+                    tx.success();
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Coalesced transaction of " + executed + " tasks failed to commit, running them in a transaction per task.", e);
+                for (int i = from; i < from + executed; i++) {
+                    tasks.get(i).run();
+                }
+                from += executed;
+                continue;
+            }
+
+            if (failed >= 0) {
+                runCoalesced(tasks.subList(from, failed));
+                tasks.get(failed).run();
+                from = failed + 1;
+                continue;
+            }
+
+            for (int i = 0; i < executed; i++) {
+                tasks.get(from + i).complete(results[i]);
+            }
+            from += executed;
+        }
+    }
+
+    /**
+     * {@link CompletableFutureTask} that runs in its own transaction, but remembers the original {@link Callable}, so that it can
+     * be called in a transaction shared with other tasks.
+     */
+    private static final class TxTask<T> extends CompletableFutureTask<T> {
+
+        private final Callable<T> task;
+
+        private TxTask(Callable<T> task, Callable<T> taskInOwnTransaction) {
+            super(taskInOwnTransaction);
+            this.task = task;
+        }
+
+        private T callInCurrentTransaction() throws Exception {
+            return task.call();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object result) {
+            set((T) result);
+        }
+    }
 }
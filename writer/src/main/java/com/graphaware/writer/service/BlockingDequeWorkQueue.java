@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.writer.service;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WorkQueue} backed by a {@link LinkedBlockingDeque}. Allocates a node per task and uses a single lock for both
+ * producers and the consumer; {@link RingBufferWorkQueue} is usually a better choice.
+ *
+ * @param <E> type of the tasks.
+ */
+public class BlockingDequeWorkQueue<E> implements WorkQueue<E> {
+
+    private final int capacity;
+    private final LinkedBlockingDeque<E> queue;
+
+    /**
+     * Construct a new queue.
+     *
+     * @param capacity of the queue.
+     */
+    public BlockingDequeWorkQueue(int capacity) {
+        this.capacity = capacity;
+        this.queue = new LinkedBlockingDeque<>(capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(E task) {
+        return queue.offer(task);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(E task, long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.offer(task, timeout, unit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E poll() {
+        return queue.poll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E evictOldest() {
+        return queue.pollFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(Collection<? super E> target) {
+        return queue.drainTo(target);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * {@link WaitStrategy} that waits for the first task using another strategy, then lingers for a while to let more tasks
+ * accumulate in the queue, so that small bursts of tasks are processed together rather than one by one.
+ * <p/>
+ * Lingering stops early when the queue holds at least a configurable number of tasks (by default, when it is full),
+ * in which case the producer that offered the last of them wakes the consumer up. Lingering therefore never adds more
+ * than the linger time to the latency of a task.
+ */
+public class LingeringWaitStrategy implements WaitStrategy {
+
+    private final WaitStrategy delegate;
+    private final long lingerNanos;
+    private final int flushSize;
+
+    private volatile Thread lingerer;
+    private volatile WorkQueue<?> lingeringOn;
+
+    /**
+     * Construct a new strategy that stops lingering when the queue is full.
+     *
+     * @param delegate strategy for waiting for the first task.
+     * @param linger   maximum time to linger after the first task has arrived.
+     * @param unit     unit of the linger time.
+     */
+    public LingeringWaitStrategy(WaitStrategy delegate, long linger, TimeUnit unit) {
+        this(delegate, linger, unit, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Construct a new strategy.
+     *
+     * @param delegate  strategy for waiting for the first task.
+     * @param linger    maximum time to linger after the first task has arrived.
+     * @param unit      unit of the linger time.
+     * @param flushSize number of tasks in the queue that stops lingering. Capped at the queue's capacity.
+     */
+    public LingeringWaitStrategy(WaitStrategy delegate, long linger, TimeUnit unit, int flushSize) {
+        notNull(delegate);
+        isTrue(linger >= 0);
+        isTrue(flushSize > 0);
+
+        this.delegate = delegate;
+        this.lingerNanos = unit.toNanos(linger);
+        this.flushSize = flushSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void await(WorkQueue<?> queue, long timeout, TimeUnit unit) {
+        delegate.await(queue, timeout, unit);
+
+        if (queue.isEmpty() || lingerNanos == 0) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + lingerNanos;
+        lingeringOn = queue;
+        lingerer = Thread.currentThread();
+        try {
+            long remaining;
+            while (!isFlushable(queue) && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            lingerer = null;
+            lingeringOn = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void signal() {
+        delegate.signal();
+
+        Thread thread = lingerer;
+        WorkQueue<?> queue = lingeringOn;
+        if (thread != null && queue != null && isFlushable(queue)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private boolean isFlushable(WorkQueue<?> queue) {
+        return queue.size() >= Math.min(flushSize, queue.capacity());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link WorkQueue} decorator that records tasks entering and leaving the queue into {@link WriterMetrics}.
+ *
+ * @param <E> type of the tasks.
+ */
+class MeteredWorkQueue<E> implements WorkQueue<E> {
+
+    private final WorkQueue<E> delegate;
+    private final WriterMetrics metrics;
+    private final ToLongFunction<E> enqueuedAt;
+
+    /**
+     * Construct a new queue.
+     *
+     * @param delegate   queue to decorate.
+     * @param metrics    to record into.
+     * @param enqueuedAt function returning the {@link System#nanoTime()} at which a task was enqueued, negative if unknown.
+     */
+    MeteredWorkQueue(WorkQueue<E> delegate, WriterMetrics metrics, ToLongFunction<E> enqueuedAt) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(E task) {
+        return enqueued(delegate.offer(task));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(E task, long timeout, TimeUnit unit) throws InterruptedException {
+        return enqueued(delegate.offer(task, timeout, unit));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E poll() {
+        E task = delegate.poll();
+
+        if (task != null) {
+            dequeued(task);
+        }
+
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E evictOldest() {
+        E task = delegate.evictOldest();
+
+        if (task != null) {
+            metrics.dropped();
+        }
+
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(final Collection<? super E> target) {
+        return delegate.drainTo(new AbstractCollection<E>() {
+            @Override
+            public boolean add(E task) {
+                dequeued(task);
+                return target.add(task);
+            }
+
+            @Override
+            public Iterator<E> iterator() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int size() {
+                return target.size();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int capacity() {
+        return delegate.capacity();
+    }
+
+    private boolean enqueued(boolean offered) {
+        if (offered) {
+            metrics.enqueued();
+        }
+        return offered;
+    }
+
+    private void dequeued(E task) {
+        long enqueuedAt = this.enqueuedAt.applyAsLong(task);
+        metrics.dequeued(enqueuedAt < 0 ? -1 : System.nanoTime() - enqueuedAt);
+    }
+}
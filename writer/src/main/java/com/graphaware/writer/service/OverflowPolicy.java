@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import java.io.File;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Policy determining what a {@link QueueBackedScheduledService} does with a task when its queue is full. Immutable.
+ */
+public final class OverflowPolicy {
+
+    public static final long DEFAULT_TIMEOUT_MS = 10_000;
+
+    /**
+     * Types of overflow policies.
+     */
+    public enum Type {
+
+        /**
+         * Drop the new task and log a warning. This is the default.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Drop the oldest task in the queue to make room for the new one and log a warning. Requires a {@link WorkQueue}
+         * that supports {@link WorkQueue#evictOldest()}.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Block the offering thread until there is room in the queue, or until a timeout elapses, in which case the
+         * task is dropped.
+         */
+        BLOCK,
+
+        /**
+         * Execute the task in the offering thread. Not supported by all services.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Append the task to a local disk log, which is replayed into the queue as it drains. Tasks that can't be
+         * serialized are handled as with {@link #BLOCK}.
+         */
+        SPILL
+    }
+
+    private static final OverflowPolicy DROP_NEWEST = new OverflowPolicy(Type.DROP_NEWEST, DEFAULT_TIMEOUT_MS, null);
+    private static final OverflowPolicy DROP_OLDEST = new OverflowPolicy(Type.DROP_OLDEST, DEFAULT_TIMEOUT_MS, null);
+    private static final OverflowPolicy CALLER_RUNS = new OverflowPolicy(Type.CALLER_RUNS, DEFAULT_TIMEOUT_MS, null);
+
+    private final Type type;
+    private final long timeoutMs;
+    private final File spillDirectory;
+
+    /**
+     * @return policy dropping new tasks when the queue is full.
+     */
+    public static OverflowPolicy dropNewest() {
+        return DROP_NEWEST;
+    }
+
+    /**
+     * @return policy dropping the oldest tasks when the queue is full.
+     */
+    public static OverflowPolicy dropOldest() {
+        return DROP_OLDEST;
+    }
+
+    /**
+     * @param timeoutMs maximum time to block for.
+     * @return policy blocking the offering thread when the queue is full.
+     */
+    public static OverflowPolicy block(long timeoutMs) {
+        return new OverflowPolicy(Type.BLOCK, timeoutMs, null);
+    }
+
+    /**
+     * @return policy executing tasks in the offering thread when the queue is full.
+     */
+    public static OverflowPolicy callerRuns() {
+        return CALLER_RUNS;
+    }
+
+    /**
+     * @param spillDirectory directory in which the spill log will be created.
+     * @return policy spilling tasks to disk when the queue is full, blocking for up to {@link #DEFAULT_TIMEOUT_MS} for
+     * tasks that can't be spilled.
+     */
+    public static OverflowPolicy spill(File spillDirectory) {
+        return spill(spillDirectory, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * @param spillDirectory directory in which the spill log will be created.
+     * @param timeoutMs      maximum time to block for tasks that can't be spilled.
+     * @return policy spilling tasks to disk when the queue is full.
+     */
+    public static OverflowPolicy spill(File spillDirectory, long timeoutMs) {
+        notNull(spillDirectory);
+        return new OverflowPolicy(Type.SPILL, timeoutMs, spillDirectory);
+    }
+
+    private OverflowPolicy(Type type, long timeoutMs, File spillDirectory) {
+        isTrue(timeoutMs >= 0, "Timeout must not be negative");
+
+        this.type = type;
+        this.timeoutMs = timeoutMs;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        OverflowPolicy that = (OverflowPolicy) o;
+
+        if (timeoutMs != that.timeoutMs) return false;
+        if (type != that.type) return false;
+        if (spillDirectory != null ? !spillDirectory.equals(that.spillDirectory) : that.spillDirectory != null) return false;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + (int) (timeoutMs ^ (timeoutMs >>> 32));
+        result = 31 * result + (spillDirectory != null ? spillDirectory.hashCode() : 0);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return type + (type == Type.BLOCK || type == Type.SPILL ? " (" + timeoutMs + " ms)" : "");
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.writer.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link WaitStrategy} that parks the consumer thread until it is unparked by a producer calling {@link #signal()}.
+ * Producers only pay for an unpark when the consumer is actually parked.
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+
+    private volatile Thread waiter;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void await(WorkQueue<?> queue, long timeout, TimeUnit unit) {
+        if (!queue.isEmpty()) {
+            return;
+        }
+
+        waiter = Thread.currentThread();
+        try {
+            //check again after announcing ourselves, a producer might have missed us
+            if (queue.isEmpty()) {
+                LockSupport.parkNanos(this, unit.toNanos(timeout));
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void signal() {
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
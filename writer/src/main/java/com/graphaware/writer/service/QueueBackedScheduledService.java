@@ -20,16 +20,27 @@ import com.google.common.util.concurrent.AbstractScheduledService;
 import org.neo4j.logging.Log;
 import com.graphaware.common.log.LoggerFactory;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.ScheduledExecutorService;
+import java.io.IOException;
+import java.io.Serializable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * A {@link AbstractScheduledService} that maintains a queue of tasks and executes them in a single thread by constantly
  * pulling the tasks from the head of the queue.
  * <p/>
- * By default, if the queue capacity is full, tasks are dropped and a warning is logged.
+ * The queue is a {@link WorkQueue}, by default a {@link RingBufferWorkQueue}. Between iterations, the processing thread
+ * waits for tasks according to a {@link WaitStrategy}, by default a {@link ParkingWaitStrategy}, so that it is woken
+ * up as soon as a task is offered rather than polling the queue at a fixed rate. When there is nothing to do, the
+ * processing thread waits indefinitely (unless {@link #maxIdleWaitNanos()} says otherwise), so an idle service doesn't
+ * consume any CPU. Wrapping the strategy in a {@link LingeringWaitStrategy} lets small bursts of tasks accumulate in
+ * the queue before they are processed together.
+ * <p/>
+ * What happens when the queue is full is determined by an {@link OverflowPolicy}. By default, tasks are dropped and a
+ * warning is logged.
+ * <p/>
+ * Tasks entering and leaving the queue, dropped tasks, and the processing of tasks are recorded in {@link WriterMetrics},
+ * available from {@link #getMetrics()}.
  * <p/>
  * Note that {@link #start()} must be called in order to start processing the queue and {@link #stop()} should be called
  * before the application is shut down.
@@ -37,12 +48,15 @@ import java.util.concurrent.TimeUnit;
 public abstract class QueueBackedScheduledService<E> extends AbstractScheduledService {
 
     private static final Log LOG = LoggerFactory.getLogger(QueueBackedScheduledService.class);
-    private static final int LOGGING_INTERVAL_MS = 5000;
+    private static final long STOP_SIGNAL_INTERVAL_MS = 10;
     public static final int DEFAULT_QUEUE_CAPACITY = 10000;
 
     private final int queueCapacity;
-    protected final LinkedBlockingDeque<E> queue;
-    private final ScheduledExecutorService queueSizeLogger = Executors.newSingleThreadScheduledExecutor();
+    protected final WorkQueue<E> queue;
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private final SpillLog spillLog;
+    private final WriterMetrics metrics;
 
     /**
      * Construct a new service with a default queue capacity of {@link #DEFAULT_QUEUE_CAPACITY}.
@@ -57,8 +71,44 @@ public abstract class QueueBackedScheduledService<E> extends AbstractScheduledSe
      * @param queueCapacity capacity of the queue.
      */
     protected QueueBackedScheduledService(int queueCapacity) {
-        this.queueCapacity = queueCapacity;
-        queue = new LinkedBlockingDeque<>(queueCapacity);
+        this(queueCapacity, OverflowPolicy.dropNewest());
+    }
+
+    /**
+     * Construct a new service with a queue appropriate for the given overflow policy, i.e. a {@link BlockingDequeWorkQueue}
+     * for {@link OverflowPolicy.Type#DROP_OLDEST} and a {@link RingBufferWorkQueue} otherwise.
+     *
+     * @param queueCapacity  capacity of the queue.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    protected QueueBackedScheduledService(int queueCapacity, OverflowPolicy overflowPolicy) {
+        this(overflowPolicy.getType() == OverflowPolicy.Type.DROP_OLDEST ? new BlockingDequeWorkQueue<E>(queueCapacity) : new RingBufferWorkQueue<E>(queueCapacity), new ParkingWaitStrategy(), overflowPolicy);
+    }
+
+    /**
+     * Construct a new service, dropping new tasks when the queue is full.
+     *
+     * @param queue        queue of tasks.
+     * @param waitStrategy strategy for waiting for tasks.
+     */
+    protected QueueBackedScheduledService(WorkQueue<E> queue, WaitStrategy waitStrategy) {
+        this(queue, waitStrategy, OverflowPolicy.dropNewest());
+    }
+
+    /**
+     * Construct a new service.
+     *
+     * @param queue          queue of tasks.
+     * @param waitStrategy   strategy for waiting for tasks.
+     * @param overflowPolicy what to do when the queue is full.
+     */
+    protected QueueBackedScheduledService(WorkQueue<E> queue, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        this.queueCapacity = queue.capacity();
+        this.metrics = new WriterMetrics(queue::size, queue.capacity());
+        this.queue = new MeteredWorkQueue<>(queue, metrics, this::enqueuedAt);
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.spillLog = overflowPolicy.getType() == OverflowPolicy.Type.SPILL ? new SpillLog(overflowPolicy.getSpillDirectory()) : null;
     }
 
     /**
@@ -67,31 +117,102 @@ public abstract class QueueBackedScheduledService<E> extends AbstractScheduledSe
     public void start() {
         startAsync();
         awaitRunning();
-        queueSizeLogger.scheduleWithFixedDelay(new Runnable() {
-            @Override
-            public void run() {
-                if (logEmptyQueue() || !queue.isEmpty()) {
-                    LOG.info("Queue size: " + queue.size());
-                }
-            }
-        }, 5, loggingFrequencyMs(), TimeUnit.MILLISECONDS);
     }
 
     /**
      * Stop the processing of tasks.
      */
     public void stop() {
-        queueSizeLogger.shutdownNow();
         stopAsync();
-        awaitTerminated();
+        while (true) {
+            waitStrategy.signal();
+            try {
+                awaitTerminated(STOP_SIGNAL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                //the processing thread might have started waiting after the signal, wake it up again
+            }
+        }
+    }
+
+    /**
+     * Wait for tasks according to the {@link WaitStrategy} and {@link #processQueue()}, recording the tasks taken from
+     * the queue as a batch.
+     * <p/>
+     * Subclasses should implement {@link #processQueue()} rather than override this method. Subclasses written before
+     * {@link #processQueue()} was introduced, which override this method, still work, but bypass the wait strategy, the
+     * replaying of spilled tasks, and the batch metrics.
+     *
+     * @throws Exception in case processing fails.
+     */
+    @Override
+    protected void runOneIteration() throws Exception {
+        replaySpilled();
+        waitStrategy.await(queue, maxIdleWaitNanos(), TimeUnit.NANOSECONDS);
+
+        long dequeued = metrics.getDequeuedCount();
+        long start = System.nanoTime();
+
+        processQueue();
+
+        long batchSize = metrics.getDequeuedCount() - dequeued;
+        if (batchSize > 0) {
+            metrics.batchProcessed((int) batchSize, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return metrics of this service.
+     */
+    public WriterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the maximum time the processing thread waits for tasks when the queue is empty. By default, it waits until a
+     * task is offered or the service is stopped. Intended to be overridden by services that have work pending outside
+     * of the queue, such as failed tasks to be retried.
+     *
+     * @return maximum time to wait in nanoseconds, {@link Long#MAX_VALUE} to wait indefinitely.
+     */
+    protected long maxIdleWaitNanos() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Process the tasks currently in the queue. Called repeatedly from a single thread, after waiting for tasks to
+     * arrive. Note that the queue can be empty when this method is called.
+     * <p/>
+     * Does nothing by default, so that subclasses that override {@link #runOneIteration()} instead keep working. All
+     * other subclasses must override this method.
+     *
+     * @throws Exception in case processing fails.
+     */
+    protected void processQueue() throws Exception {
+        //no-op by default
     }
 
     /**
      * {@inheritDoc}
+     * <p/>
+     * Processes the tasks that are still in the queue.
      */
     @Override
     protected void shutDown() throws Exception {
-        runOneIteration();
+        processQueue();
+
+        //subclasses overriding runOneIteration() instead of processQueue() process the queue there
+        if (!queue.isEmpty()) {
+            runOneIteration();
+        }
+
+        if (spillLog != null) {
+            while (!spillLog.isEmpty()) {
+                replaySpilled();
+                processQueue();
+            }
+            spillLog.close();
+        }
     }
 
     /**
@@ -102,26 +223,210 @@ public abstract class QueueBackedScheduledService<E> extends AbstractScheduledSe
      * @return true iff the task was accepted.
      */
     protected boolean offer(E futureTask) {
-        return queue.offer(futureTask);
+        if (overflowPolicy.getType() == OverflowPolicy.Type.SPILL) {
+            return droppedUnless(offerOrSpill(futureTask));
+        }
+
+        if (signalIf(queue.offer(futureTask))) {
+            return true;
+        }
+
+        switch (overflowPolicy.getType()) {
+            case DROP_NEWEST:
+                metrics.dropped();
+                return false;
+            case DROP_OLDEST:
+                return offerDroppingOldest(futureTask);
+            case BLOCK:
+                return droppedUnless(offerBlocking(futureTask));
+            case CALLER_RUNS:
+                runInCallingThread(futureTask);
+                return true;
+            default:
+                throw new IllegalStateException("Unknown overflow policy " + overflowPolicy);
+        }
+    }
+
+    /**
+     * Offer a task to the queue for processing, waiting for space to become available if the queue is full. Intended
+     * to be used by overrides of {@link #offer(Object)} that prefer blocking to losing tasks.
+     *
+     * @param futureTask to offer to the queue.
+     * @param timeout    how long to wait for space.
+     * @param unit       unit of the timeout.
+     * @return true iff the task was accepted.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    protected final boolean offer(E futureTask, long timeout, TimeUnit unit) throws InterruptedException {
+        return signalIf(queue.offer(futureTask, timeout, unit));
+    }
+
+    /**
+     * @return policy determining what happens when the queue is full.
+     */
+    protected final OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Execute a task in the calling thread, because the queue is full and the overflow policy is
+     * {@link OverflowPolicy.Type#CALLER_RUNS}. Not supported by default, intended to be overridden.
+     *
+     * @param task to execute.
+     */
+    protected void runInCallingThread(E task) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support running tasks in the calling thread");
     }
 
+    /**
+     * Called when a task has been evicted from the queue to make room for a newer one. No-op by default, intended to be
+     * overridden.
+     *
+     * @param task dropped task.
+     */
+    protected void dropped(E task) {
+    }
 
     /**
-     * Return <code>true</code> iff empty queue should be logged. Defaults to <code>false</code>, intended to be overridden.
+     * Get the time at which a task was put in the queue, so that the time it spent in the queue can be recorded.
+     * Unknown by default, intended to be overridden.
      *
-     * @return true iff empty queue should be logged.
+     * @param task task.
+     * @return {@link System#nanoTime()} at which the task was put in the queue, negative if unknown.
      */
-    protected boolean logEmptyQueue() {
-        return false;
+    protected long enqueuedAt(E task) {
+        return -1;
     }
 
     /**
-     * How often in ms should the queue size be reported to the log.
+     * Convert a task to a {@link Serializable} object that can be spilled to disk. By default, the task itself is
+     * spilled if it is serializable. Intended to be overridden together with {@link #fromSpillable(Object)}.
      *
-     * @return logging interval in ms. The default is {@link #LOGGING_INTERVAL_MS}, intended to be overridden.
+     * @param task to convert.
+     * @return object to spill, <code>null</code> if the task can't be spilled.
      */
-    protected long loggingFrequencyMs() {
-        return LOGGING_INTERVAL_MS;
+    protected Object toSpillable(E task) {
+        return task instanceof Serializable ? task : null;
+    }
+
+    /**
+     * Convert an object read from the spill log back to a task.
+     *
+     * @param spilled object produced by {@link #toSpillable(Object)}.
+     * @return task.
+     */
+    @SuppressWarnings("unchecked")
+    protected E fromSpillable(Object spilled) {
+        return (E) spilled;
+    }
+
+    private boolean offerDroppingOldest(E futureTask) {
+        while (!queue.offer(futureTask)) {
+            E evicted = queue.evictOldest();
+            if (evicted != null) {
+                LOG.warn("Queue is full, dropping the oldest task.");
+                dropped(evicted);
+            }
+        }
+
+        waitStrategy.signal();
+        return true;
+    }
+
+    private boolean offerBlocking(E futureTask) {
+        try {
+            return offer(futureTask, overflowPolicy.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Offer a task to the queue, unless the spill log isn't empty, in which case the task is spilled too, so that the
+     * tasks are processed in order. Tasks that can't be spilled wait until the spill log has been replayed and there
+     * is room in the queue.
+     */
+    private boolean offerOrSpill(E futureTask) {
+        synchronized (spillLog) {
+            if (spillLog.isEmpty() && signalIf(queue.offer(futureTask))) {
+                return true;
+            }
+
+            Object spillable = toSpillable(futureTask);
+            if (spillable != null) {
+                try {
+                    spillLog.append(spillable);
+                    waitStrategy.signal();
+                    return true;
+                } catch (IOException e) {
+                    LOG.warn("Could not spill task to disk, will wait for room in the queue instead.", e);
+                }
+            }
+
+            long deadline = System.currentTimeMillis() + overflowPolicy.getTimeoutMs();
+            try {
+                while (!(spillLog.isEmpty() && queue.offer(futureTask))) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    spillLog.wait(Math.min(remaining, 10));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            waitStrategy.signal();
+            return true;
+        }
+    }
+
+    /**
+     * Move as many spilled tasks into the queue as there is room for. Only called by the processing thread. Producers
+     * don't offer to the queue while there are spilled tasks, so the room can't be taken away in the meantime.
+     * <p/>
+     * Tasks that can't be read back from the {@link SpillLog} are counted as dropped.
+     */
+    private void replaySpilled() {
+        if (spillLog == null) {
+            return;
+        }
+
+        synchronized (spillLog) {
+            while (!spillLog.isEmpty() && queue.size() < queue.capacity()) {
+                int spilled = spillLog.size();
+                try {
+                    Object task = spillLog.poll();
+                    if (task != null && !queue.offer(fromSpillable(task))) {
+                        throw new IllegalStateException("Queue did not accept a replayed task, this is a bug");
+                    }
+                } catch (IOException e) {
+                    int lost = spilled - spillLog.size();
+                    LOG.error("Could not read spilled tasks, " + lost + " of them have been lost.", e);
+                    for (int i = 0; i < lost; i++) {
+                        metrics.dropped();
+                    }
+                }
+            }
+
+            spillLog.notifyAll();
+        }
+    }
+
+    private boolean droppedUnless(boolean offered) {
+        if (!offered) {
+            metrics.dropped();
+        }
+        return offered;
+    }
+
+    private boolean signalIf(boolean offered) {
+        if (offered) {
+            waitStrategy.signal();
+        }
+        return offered;
     }
 
     /**
@@ -129,7 +434,8 @@ public abstract class QueueBackedScheduledService<E> extends AbstractScheduledSe
      */
     @Override
     protected Scheduler scheduler() {
-        return Scheduler.newFixedDelaySchedule(0, 5, TimeUnit.MILLISECONDS);
+        //waiting for tasks is done by the wait strategy, so iterations follow each other immediately
+        return Scheduler.newFixedDelaySchedule(0, 1, TimeUnit.NANOSECONDS);
     }
 
     /**
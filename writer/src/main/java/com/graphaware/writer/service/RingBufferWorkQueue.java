@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.writer.service;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Lock-free, multi-producer/single-consumer {@link WorkQueue} backed by a preallocated ring buffer.
+ * <p/>
+ * Producers claim a slot by a CAS on the tail sequence and then publish the task into it; the consumer takes tasks
+ * in sequence order and frees the slots. No allocation happens per task. A slot that has been claimed but not yet
+ * published looks empty to the consumer, which simply picks it up in the next round.
+ * <p/>
+ * Only a single thread may call {@link #poll()} and {@link #drainTo(Collection)} at any one time.
+ *
+ * @param <E> type of the tasks.
+ */
+public class RingBufferWorkQueue<E> implements WorkQueue<E> {
+
+    private static final long OFFER_BACKOFF_NS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLong head = new AtomicLong(); //next sequence to be consumed, only written by the consumer
+    private final AtomicLong tail = new AtomicLong(); //next sequence to be claimed by a producer
+
+    /**
+     * Construct a new queue.
+     *
+     * @param capacity of the queue. The underlying buffer is rounded up to the nearest power of two.
+     */
+    public RingBufferWorkQueue(int capacity) {
+        isTrue(capacity > 0, "Capacity must be positive");
+        isTrue(capacity <= 1 << 30, "Capacity too large");
+
+        this.capacity = capacity;
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(E task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        buffer.lazySet(index(sequence), task);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer(E task, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (!offer(task)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(this, OFFER_BACKOFF_NS);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E poll() {
+        long sequence = head.get();
+        int index = index(sequence);
+
+        E task = buffer.get(index);
+        if (task == null) {
+            return null;
+        }
+
+        buffer.lazySet(index, null);
+        head.lazySet(sequence + 1);
+
+        return task;
+    }
+
+    /**
+     * Not supported, only the single consumer may take tasks out of the queue.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public E evictOldest() {
+        throw new UnsupportedOperationException("Ring buffer only supports a single consumer, use " + BlockingDequeWorkQueue.class.getSimpleName() + " instead");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo(Collection<? super E> target) {
+        int drained = 0;
+
+        E task;
+        while ((task = poll()) != null) {
+            target.add(task);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        long consumed = head.get();
+        long claimed = tail.get();
+
+        return (int) Math.max(0, Math.min(claimed - consumed, capacity));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Local append-only disk log of serialized objects, read back in the order in which they were appended. Each record is
+ * a length-prefixed, Java-serialized object. Once all records have been read, the log file is truncated so that it
+ * doesn't grow indefinitely.
+ * <p/>
+ * When the log can't be read, e.g. because the file has been truncated, the boundaries of the remaining records are
+ * unknown, so the rest of the log is discarded.
+ * <p/>
+ * The log lives in a temporary file that is created on first append and deleted by {@link #close()}; it is not meant
+ * to survive a restart. Thread-safe.
+ */
+public class SpillLog implements Closeable {
+
+    private final File directory;
+
+    private File file;
+    private FileChannel channel;
+    private long writePosition;
+    private long readPosition;
+    private int size;
+
+    /**
+     * Construct a new log.
+     *
+     * @param directory in which to create the log file.
+     */
+    public SpillLog(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Append an object to the log.
+     *
+     * @param object to append.
+     * @throws IOException if the object can't be serialized (in which case nothing is appended), or the log can't be written.
+     */
+    public synchronized void append(Object object) throws IOException {
+        byte[] bytes = serialize(object);
+
+        if (channel == null) {
+            open();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes).flip();
+
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+
+        size++;
+    }
+
+    /**
+     * Remove and return the oldest object in the log.
+     *
+     * @return object or <code>null</code> if the log is empty.
+     * @throws IOException if the object can't be deserialized, in which case it is skipped, or if the log can't be read,
+     *                     in which case the rest of the log, including the object, is discarded.
+     */
+    public synchronized Object poll() throws IOException {
+        if (size == 0) {
+            return null;
+        }
+
+        ByteBuffer bytes;
+        try {
+            int length = read(readPosition, 4).getInt();
+            if (length < 0 || readPosition + 4 + length > writePosition) {
+                throw new EOFException("Corrupt record of " + length + " bytes in spill log " + file.getAbsolutePath());
+            }
+            bytes = read(readPosition + 4, length);
+        } catch (IOException e) {
+            int discarded = size;
+            discard();
+            throw new IOException("Could not read spill log " + file.getAbsolutePath() + ", " + discarded + " objects have been discarded", e);
+        }
+
+        readPosition += 4 + bytes.capacity();
+        size--;
+
+        if (size == 0) {
+            channel.truncate(0);
+            readPosition = 0;
+            writePosition = 0;
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.array()))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return number of objects in the log.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return <code>true</code> iff there are no objects in the log.
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Close and delete the log. Any objects still in it are lost.
+     *
+     * @throws IOException if the log can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+
+        channel.close();
+        Files.deleteIfExists(file.toPath());
+
+        channel = null;
+        file = null;
+        size = 0;
+        readPosition = 0;
+        writePosition = 0;
+    }
+
+    private void discard() {
+        size = 0;
+        readPosition = 0;
+        writePosition = 0;
+
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            //the stale content is overwritten by subsequent appends
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory.toPath());
+        file = File.createTempFile("graphaware-spill-", ".log", directory);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of spill log " + file.getAbsolutePath());
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+
+        return bytes.toByteArray();
+    }
+}
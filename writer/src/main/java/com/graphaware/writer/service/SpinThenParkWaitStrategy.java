@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.writer.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WaitStrategy} that busy-spins for a while before parking the consumer thread like {@link ParkingWaitStrategy}.
+ * Lowers the latency of picking up tasks that arrive in quick succession, at the cost of burning some CPU.
+ */
+public class SpinThenParkWaitStrategy extends ParkingWaitStrategy {
+
+    public static final int DEFAULT_SPIN_TRIES = 1000;
+
+    private final int spinTries;
+
+    /**
+     * Construct a new strategy spinning {@link #DEFAULT_SPIN_TRIES} times before parking.
+     */
+    public SpinThenParkWaitStrategy() {
+        this(DEFAULT_SPIN_TRIES);
+    }
+
+    /**
+     * Construct a new strategy.
+     *
+     * @param spinTries how many times to check the queue before parking.
+     */
+    public SpinThenParkWaitStrategy(int spinTries) {
+        this.spinTries = spinTries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void await(WorkQueue<?> queue, long timeout, TimeUnit unit) {
+        for (int i = 0; i < spinTries; i++) {
+            if (!queue.isEmpty()) {
+                return;
+            }
+        }
+
+        super.await(queue, timeout, unit);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.writer.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Strategy for the consumer thread of a {@link QueueBackedScheduledService} to wait for tasks to arrive in a
+ * {@link WorkQueue}.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Wait until the queue isn't empty, until {@link #signal()} is called, or until the timeout elapses, whichever comes
+     * first. Called by the consumer thread only. May return spuriously.
+     *
+     * @param queue   to wait for.
+     * @param timeout maximum time to wait.
+     * @param unit    unit of the timeout.
+     */
+    void await(WorkQueue<?> queue, long timeout, TimeUnit unit);
+
+    /**
+     * Wake up the consumer thread if it is waiting. Called by producers after a task has been offered, so must be cheap
+     * when there is no one waiting.
+     */
+    void signal();
+}
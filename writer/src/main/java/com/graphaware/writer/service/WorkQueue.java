@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.writer.service;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded queue of tasks used by {@link QueueBackedScheduledService}. Tasks can be offered by any number of threads,
+ * but they are only ever taken out of the queue by a single consumer thread, so implementations are free to rely on that.
+ *
+ * @param <E> type of the tasks.
+ */
+public interface WorkQueue<E> {
+
+    /**
+     * Offer a task to the queue without waiting.
+     *
+     * @param task to offer, must not be <code>null</code>.
+     * @return <code>true</code> iff the task was accepted, <code>false</code> if the queue is full.
+     */
+    boolean offer(E task);
+
+    /**
+     * Offer a task to the queue, waiting up to the given time for space to become available.
+     *
+     * @param task    to offer, must not be <code>null</code>.
+     * @param timeout how long to wait.
+     * @param unit    unit of the timeout.
+     * @return <code>true</code> iff the task was accepted, <code>false</code> if the queue was still full when the timeout elapsed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    boolean offer(E task, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Take the task from the head of the queue. Must only be called by the consumer thread.
+     *
+     * @return task or <code>null</code> if the queue is empty.
+     */
+    E poll();
+
+    /**
+     * Remove the task at the head of the queue in order to make room for a new one. Unlike {@link #poll()}, this can
+     * be called by any thread. Optional operation.
+     *
+     * @return removed task or <code>null</code> if the queue is empty.
+     * @throws UnsupportedOperationException if the queue only supports a single consumer.
+     */
+    E evictOldest();
+
+    /**
+     * Move all available tasks to the given collection. Must only be called by the consumer thread.
+     *
+     * @param target to move the tasks to.
+     * @return number of moved tasks.
+     */
+    int drainTo(Collection<? super E> target);
+
+    /**
+     * @return approximate number of tasks in the queue.
+     */
+    int size();
+
+    /**
+     * @return <code>true</code> iff the queue is (approximately) empty.
+     */
+    boolean isEmpty();
+
+    /**
+     * @return maximum number of tasks the queue can hold.
+     */
+    int capacity();
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import com.graphaware.common.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of a {@link QueueBackedScheduledService}: depth of its queue, numbers and rates of tasks entering and leaving
+ * the queue, number of dropped tasks, how long tasks wait in the queue, and how long it takes to process the tasks
+ * taken from the queue in one go (a batch), along with the sizes of such batches.
+ * <p/>
+ * Rates are exponentially weighted moving averages over roughly one minute. They are only brought up to date when read,
+ * so recording a task never does more than increment a counter.
+ */
+public class WriterMetrics implements WriterMetricsMXBean {
+
+    private static final long RATE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final IntSupplier queueDepth;
+    private final int queueCapacity;
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dequeued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Rate enqueueRate = new Rate(enqueued);
+    private final Rate dequeueRate = new Rate(dequeued);
+    private final LatencyHistogram timeInQueue = new LatencyHistogram();
+    private final LatencyHistogram processing = new LatencyHistogram();
+    private final LatencyHistogram batchSize = new LatencyHistogram();
+    private volatile IntSupplier currentBatchSize = () -> 0;
+
+    /**
+     * Construct new metrics.
+     *
+     * @param queueDepth    supplier of the current depth of the queue.
+     * @param queueCapacity capacity of the queue.
+     */
+    public WriterMetrics(IntSupplier queueDepth, int queueCapacity) {
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Set the source of the writer's current batch size, for writers whose batch size changes over time.
+     *
+     * @param currentBatchSize batch size source.
+     */
+    public void setCurrentBatchSizeGauge(IntSupplier currentBatchSize) {
+        this.currentBatchSize = currentBatchSize;
+    }
+
+    /**
+     * Record a task entering the queue.
+     */
+    public void enqueued() {
+        enqueued.increment();
+    }
+
+    /**
+     * Record a task leaving the queue to be processed.
+     *
+     * @param nanosInQueue how long the task has been in the queue, negative if unknown.
+     */
+    public void dequeued(long nanosInQueue) {
+        dequeued.increment();
+
+        if (nanosInQueue >= 0) {
+            timeInQueue.record(nanosInQueue);
+        }
+    }
+
+    /**
+     * Record a task that has been dropped, because there was no room for it in the queue.
+     */
+    public void dropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Record a batch of tasks taken from the queue having been processed.
+     *
+     * @param size  number of tasks in the batch.
+     * @param nanos how long the processing took.
+     */
+    public void batchProcessed(int size, long nanos) {
+        batchSize.record(size);
+        processing.record(nanos);
+    }
+
+    /**
+     * @return how long tasks waited in the queue.
+     */
+    public LatencyHistogram getTimeInQueue() {
+        return timeInQueue;
+    }
+
+    /**
+     * @return how long it took to process batches of tasks.
+     */
+    public LatencyHistogram getProcessingLatency() {
+        return processing;
+    }
+
+    /**
+     * @return sizes of processed batches of tasks.
+     */
+    public LatencyHistogram getBatchSizes() {
+        return batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDequeuedCount() {
+        return dequeued.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getEnqueueRate() {
+        return enqueueRate.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getDequeueRate() {
+        return dequeueRate.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeInQueue50thPercentileMicros() {
+        return micros(timeInQueue.getValueAtPercentile(50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeInQueue99thPercentileMicros() {
+        return micros(timeInQueue.getValueAtPercentile(99));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeInQueueMaxMicros() {
+        return micros(timeInQueue.getMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getProcessingCount() {
+        return processing.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getProcessingMeanMicros() {
+        return micros(processing.getMean());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getProcessing50thPercentileMicros() {
+        return micros(processing.getValueAtPercentile(50));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getProcessing99thPercentileMicros() {
+        return micros(processing.getValueAtPercentile(99));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getProcessingMaxMicros() {
+        return micros(processing.getMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBatchSizeMean() {
+        return batchSize.getMean();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBatchSize99thPercentile() {
+        return batchSize.getValueAtPercentile(99);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBatchSizeMax() {
+        return batchSize.getMax();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCurrentBatchSize() {
+        return currentBatchSize.getAsInt();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        enqueued.reset();
+        dequeued.reset();
+        dropped.reset();
+        enqueueRate.reset();
+        dequeueRate.reset();
+        timeInQueue.reset();
+        processing.reset();
+        batchSize.reset();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Exponentially weighted moving average of the rate at which a counter grows, updated whenever it is read.
+     */
+    private static final class Rate {
+
+        private final LongAdder counter;
+        private long lastCount;
+        private long lastNanos = System.nanoTime();
+        private double rate;
+
+        private Rate(LongAdder counter) {
+            this.counter = counter;
+        }
+
+        private synchronized double get() {
+            long now = System.nanoTime();
+            long elapsed = now - lastNanos;
+
+            if (elapsed > 0) {
+                long count = counter.sum();
+                double instantRate = (count - lastCount) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+                double alpha = 1 - Math.exp(-(double) elapsed / RATE_WINDOW_NANOS);
+
+                rate += alpha * (instantRate - rate);
+                lastCount = count;
+                lastNanos = now;
+            }
+
+            return rate;
+        }
+
+        private synchronized void reset() {
+            lastCount = 0;
+            lastNanos = System.nanoTime();
+            rate = 0;
+        }
+    }
+}
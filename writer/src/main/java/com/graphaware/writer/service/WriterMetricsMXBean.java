@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+/**
+ * JMX view of {@link WriterMetrics}. All latencies are in microseconds, rates are per second.
+ */
+public interface WriterMetricsMXBean {
+
+    long getQueueDepth();
+
+    long getQueueCapacity();
+
+    long getEnqueuedCount();
+
+    long getDequeuedCount();
+
+    long getDroppedCount();
+
+    double getEnqueueRate();
+
+    double getDequeueRate();
+
+    long getTimeInQueue50thPercentileMicros();
+
+    long getTimeInQueue99thPercentileMicros();
+
+    long getTimeInQueueMaxMicros();
+
+    long getProcessingCount();
+
+    long getProcessingMeanMicros();
+
+    long getProcessing50thPercentileMicros();
+
+    long getProcessing99thPercentileMicros();
+
+    long getProcessingMaxMicros();
+
+    long getBatchSizeMean();
+
+    long getBatchSize99thPercentile();
+
+    long getBatchSizeMax();
+
+    /**
+     * @return maximum number of tasks the writer currently takes from the queue at once, 0 for writers without a batch
+     * size.
+     */
+    long getCurrentBatchSize();
+
+    /**
+     * Forget everything recorded so far.
+     */
+    void reset();
+}
@@ -17,26 +17,46 @@
 package com.graphaware.writer.thirdparty;
 
 import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.writer.service.OverflowPolicy;
 import com.graphaware.writer.service.QueueBackedScheduledService;
+import com.graphaware.writer.service.WaitStrategy;
+import com.graphaware.writer.service.WorkQueue;
 import org.neo4j.logging.Log;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
 
 /**
  * Abstract base-class for {@link ThirdPartyWriter} implementations, backed by a {@link QueueBackedScheduledService}.
+ * <p/>
+ * Optionally, the writer can be backed by a {@link WriteJournal}. Operations are then journaled before they are accepted
+ * and acknowledged once they have been processed without being retried. Operations that don't fit in the queue (or in
+ * the queue of retries) are kept in the journal only and read back when there is room, so nothing is lost when the
+ * third-party system is down for a long time, or when the database is restarted in the meantime.
  */
 public abstract class BaseThirdPartyWriter extends QueueBackedScheduledService<Collection<WriteOperation<?>>> implements ThirdPartyWriter {
 
     private static final Log LOG = LoggerFactory.getLogger(BaseThirdPartyWriter.class);
+    public static final long RETRY_INTERVAL_MS = 100;
+
+    //only accessed by the processing thread
+    private final Deque<Collection<WriteOperation<?>>> retries = new ArrayDeque<>();
+    private final Set<Collection<WriteOperation<?>>> retried = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final WriteJournal journal;
+    //positions of journaled operations that are only in the journal, guarded by itself
+    private final Deque<Long> evicted = new ArrayDeque<>();
 
     /**
      * Construct a new writer with a default queue capacity of {@link #DEFAULT_QUEUE_CAPACITY}.
      */
     protected BaseThirdPartyWriter() {
         super();
+        this.journal = null;
     }
 
     /**
@@ -46,21 +66,113 @@ public abstract class BaseThirdPartyWriter extends QueueBackedScheduledService<C
      */
     protected BaseThirdPartyWriter(int queueCapacity) {
         super(queueCapacity);
+        this.journal = null;
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param queueCapacity  capacity of the queue.
+     * @param overflowPolicy what to do when the queue is full. {@link OverflowPolicy.Type#CALLER_RUNS} is not supported,
+     *                       as operations must be processed by a single thread.
+     */
+    protected BaseThirdPartyWriter(int queueCapacity, OverflowPolicy overflowPolicy) {
+        super(queueCapacity, overflowPolicy);
+        isTrue(overflowPolicy.getType() != OverflowPolicy.Type.CALLER_RUNS, "Third-party writers do not support " + overflowPolicy);
+        this.journal = null;
+    }
+
+    /**
+     * Construct a new writer backed by a journal. Operations that don't fit in the queue are kept in the journal, so
+     * no {@link OverflowPolicy} applies. Operations recovered by the journal are processed first.
+     *
+     * @param queueCapacity capacity of the queue.
+     * @param journal       to journal operations in. Will be closed when this writer stops.
+     */
+    protected BaseThirdPartyWriter(int queueCapacity, WriteJournal journal) {
+        super(queueCapacity);
+        notNull(journal);
+        this.journal = journal;
+        this.evicted.addAll(journal.getRecovered());
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param queue        queue of operations.
+     * @param waitStrategy strategy for waiting for operations.
+     */
+    protected BaseThirdPartyWriter(WorkQueue<Collection<WriteOperation<?>>> queue, WaitStrategy waitStrategy) {
+        super(queue, waitStrategy);
+        this.journal = null;
+    }
+
+    /**
+     * Construct a new writer.
+     *
+     * @param queue          queue of operations.
+     * @param waitStrategy   strategy for waiting for operations.
+     * @param overflowPolicy what to do when the queue is full. {@link OverflowPolicy.Type#CALLER_RUNS} is not supported,
+     *                       as operations must be processed by a single thread.
+     */
+    protected BaseThirdPartyWriter(WorkQueue<Collection<WriteOperation<?>>> queue, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        super(queue, waitStrategy, overflowPolicy);
+        isTrue(overflowPolicy.getType() != OverflowPolicy.Type.CALLER_RUNS, "Third-party writers do not support " + overflowPolicy);
+        this.journal = null;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    protected void runOneIteration() throws Exception {
-        if (queue.isEmpty()) {
-            return;
+    protected void processQueue() throws Exception {
+        boolean succeeded;
+
+        do {
+            if (retries.isEmpty() && queue.isEmpty() && !hasEvicted()) {
+                return;
+            }
+
+            List<Collection<WriteOperation<?>>> tasks = new LinkedList<>(retries);
+            retries.clear();
+            queue.drainTo(tasks);
+            reloadEvicted(tasks);
+
+            processOperations(tasks);
+
+            succeeded = retried.isEmpty();
+            acknowledge(tasks);
+
+            //keep reading operations from the journal for as long as the third-party system accepts them
+        } while (succeeded && hasEvicted());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Wakes up after {@link #RETRY_INTERVAL_MS} when there are operations to be retried or read back from the journal.
+     */
+    @Override
+    protected long maxIdleWaitNanos() {
+        if (retries.isEmpty() && !hasEvicted()) {
+            return super.maxIdleWaitNanos();
         }
 
-        List<Collection<WriteOperation<?>>> tasks = new LinkedList<>();
-        queue.drainTo(tasks);
+        return TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MS);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Closes the journal, if there is one. Operations that haven't been processed stay in it.
+     */
+    @Override
+    protected void shutDown() throws Exception {
+        super.shutDown();
 
-        processOperations(tasks);
+        if (journal != null) {
+            journal.close();
+        }
     }
 
     /**
@@ -81,7 +193,8 @@ public abstract class BaseThirdPartyWriter extends QueueBackedScheduledService<C
 
     /**
      * Offer a collection of {@link WriteOperation}s, typically all the operations performed within the context of a single
-     * transaction, to the queue for processing. If the queue is full, the operations will be dropped and a warning logged.
+     * transaction, to the queue for processing. If the queue is full, the {@link OverflowPolicy} applies; unless the
+     * operations are accepted by it, they will be dropped and a warning logged.
      *
      * @param operations to process.
      * @param id         of the operations for logging purposes.
@@ -91,6 +204,15 @@ public abstract class BaseThirdPartyWriter extends QueueBackedScheduledService<C
             throw new IllegalStateException("Service is not running!");
         }
 
+        if (journal != null) {
+            try {
+                offerJournaled(new JournaledOperations(operations, journal.append(operations)));
+                return;
+            } catch (IOException e) {
+                LOG.error("Could not journal operations " + id + ", they will be lost if the database is restarted.", e);
+            }
+        }
+
         if (!offer(operations)) {
             LOG.warn("Could not write task " + id + " to queue as it is too full. We're losing tasks now.");
         }
@@ -105,7 +227,8 @@ public abstract class BaseThirdPartyWriter extends QueueBackedScheduledService<C
     protected abstract void processOperations(List<Collection<WriteOperation<?>>> operations);
 
     /**
-     * A convenience method for failure scenarios, which will insert the provided operations into the front of the queue.
+     * A convenience method for failure scenarios, which will make sure the provided operations are processed before
+     * any operations in the queue in the next round. Must only be called from {@link #processOperations(List)}.
      *
      * @param operations to retry.
      */
@@ -113,9 +236,115 @@ public abstract class BaseThirdPartyWriter extends QueueBackedScheduledService<C
         Collections.reverse(operations);
 
         for (Collection<WriteOperation<?>> collection : operations) {
-            if (!queue.offerFirst(collection)) {
+            retried.add(collection);
+
+            if (retries.size() + queue.size() >= queue.capacity()) {
+                if (collection instanceof JournaledOperations) {
+                    synchronized (evicted) {
+                        evicted.addFirst(((JournaledOperations) collection).position);
+                    }
+                    continue;
+                }
+
                 LOG.warn("Could not retry failed tasks as the queue is too full. We're losing tasks now.");
+                getMetrics().dropped();
+                continue;
+            }
+            retries.addFirst(collection);
+        }
+    }
+
+    /**
+     * Offer journaled operations to the queue, unless there are operations that are only in the journal, in which case
+     * these operations are only kept in the journal too, so that operations are processed in order.
+     *
+     * @param operations to offer.
+     */
+    private void offerJournaled(JournaledOperations operations) {
+        synchronized (evicted) {
+            if (evicted.isEmpty() && offer(operations)) {
+                return;
+            }
+
+            evicted.addLast(operations.position);
+        }
+    }
+
+    private boolean hasEvicted() {
+        synchronized (evicted) {
+            return !evicted.isEmpty();
+        }
+    }
+
+    /**
+     * Read operations that are only in the journal, for as long as there is room for them.
+     *
+     * @param tasks to add the operations to.
+     */
+    private void reloadEvicted(List<Collection<WriteOperation<?>>> tasks) {
+        if (journal == null) {
+            return;
+        }
+
+        synchronized (evicted) {
+            while (!evicted.isEmpty() && tasks.size() < queue.capacity()) {
+                long position = evicted.pollFirst();
+                try {
+                    tasks.add(new JournaledOperations(journal.read(position), position));
+                } catch (IOException e) {
+                    LOG.error("Could not read journaled operations, they have been lost.", e);
+                    acknowledge(position);
+                }
+            }
+        }
+    }
+
+    /**
+     * Acknowledge processed operations that have not been retried.
+     *
+     * @param tasks that have been processed.
+     */
+    private void acknowledge(List<Collection<WriteOperation<?>>> tasks) {
+        if (journal != null) {
+            for (Collection<WriteOperation<?>> task : tasks) {
+                if (task instanceof JournaledOperations && !retried.contains(task)) {
+                    acknowledge(((JournaledOperations) task).position);
+                }
             }
         }
+
+        retried.clear();
+    }
+
+    private void acknowledge(long position) {
+        try {
+            journal.acknowledge(position);
+        } catch (IOException e) {
+            LOG.warn("Could not acknowledge journaled operations, they will be processed again after a restart.", e);
+        }
+    }
+
+    /**
+     * Operations together with their position in the journal.
+     */
+    private static final class JournaledOperations extends AbstractCollection<WriteOperation<?>> {
+
+        private final Collection<WriteOperation<?>> operations;
+        private final long position;
+
+        private JournaledOperations(Collection<WriteOperation<?>> operations, long position) {
+            this.operations = operations;
+            this.position = position;
+        }
+
+        @Override
+        public Iterator<WriteOperation<?>> iterator() {
+            return operations.iterator();
+        }
+
+        @Override
+        public int size() {
+            return operations.size();
+        }
     }
 }
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.common.serialize.Serializer;
+import org.neo4j.logging.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Durable, append-only journal of {@link WriteOperation} batches, stored in memory-mapped segment files and serialized
+ * using Kryo (see {@link Serializer}).
+ * <p/>
+ * Each appended batch is identified by its position in the journal and stays there until it is acknowledged. Once all
+ * batches in a segment have been acknowledged, the segment file is deleted. When a journal is opened in a directory
+ * that contains segments of a previous journal, the batches that had not been acknowledged are recovered.
+ * <p/>
+ * Each record consists of its length, an acknowledgement flag, and the serialized batch. The length is written last,
+ * so that a record that has not been fully written is ignored on recovery. Records survive a crash of the JVM, as they
+ * are written to the OS page cache; they are only guaranteed to survive a crash of the OS when {@link #flush()} has been
+ * called since they were written. Thread-safe.
+ */
+public class WriteJournal implements Closeable {
+
+    private static final Log LOG = LoggerFactory.getLogger(WriteJournal.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_SIZE = 5;
+    private static final byte PENDING = 0;
+    private static final byte ACKNOWLEDGED = 1;
+
+    private final File directory;
+    private final int segmentSize;
+    private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+    private final List<Long> recovered = new ArrayList<>();
+
+    private Segment current;
+
+    /**
+     * Open a journal with the default segment size of 16 MB.
+     *
+     * @param directory to keep the journal in. Created if it doesn't exist.
+     * @throws IOException if the journal can't be opened.
+     */
+    public WriteJournal(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open a journal.
+     *
+     * @param directory   to keep the journal in. Created if it doesn't exist.
+     * @param segmentSize size of a segment file in bytes. Batches larger than this get a segment of their own.
+     * @throws IOException if the journal can't be opened.
+     */
+    public WriteJournal(File directory, int segmentSize) throws IOException {
+        notNull(directory);
+        isTrue(segmentSize > HEADER_SIZE, "Segment size must be greater than " + HEADER_SIZE);
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory.toPath());
+        recover();
+    }
+
+    /**
+     * Get the positions of batches that were appended to the journal before it was last closed (or before the JVM
+     * crashed), but had not been acknowledged when this journal was opened.
+     *
+     * @return positions of recovered batches, in the order in which they were appended.
+     */
+    public synchronized List<Long> getRecovered() {
+        return new ArrayList<>(recovered);
+    }
+
+    /**
+     * Append a batch of operations to the journal.
+     *
+     * @param operations to append.
+     * @return position of the batch in the journal.
+     * @throws IOException if the batch can't be written.
+     */
+    public synchronized long append(Collection<WriteOperation<?>> operations) throws IOException {
+        byte[] bytes = Serializer.toByteArray(operations.toArray(new WriteOperation<?>[operations.size()]));
+        int recordSize = HEADER_SIZE + bytes.length;
+
+        if (current == null || current.writeOffset + recordSize > current.buffer.capacity()) {
+            current = createSegment(current == null ? 0 : current.number + 1, Math.max(segmentSize, recordSize));
+        }
+
+        int offset = current.writeOffset;
+        ByteBuffer record = current.buffer.duplicate();
+        record.position(offset + 4);
+        record.put(PENDING).put(bytes);
+        current.buffer.putInt(offset, bytes.length);
+
+        current.writeOffset += recordSize;
+        current.pending++;
+
+        return position(current.number, offset);
+    }
+
+    /**
+     * Read a batch of operations from the journal.
+     *
+     * @param position of the batch.
+     * @return operations.
+     * @throws IOException if the batch can't be read.
+     */
+    public synchronized Collection<WriteOperation<?>> read(long position) throws IOException {
+        Segment segment = segment(position);
+        int offset = offset(position);
+
+        byte[] bytes = new byte[segment.buffer.getInt(offset)];
+        ByteBuffer record = segment.buffer.duplicate();
+        record.position(offset + HEADER_SIZE);
+        record.get(bytes);
+
+        try {
+            WriteOperation<?>[] operations = Serializer.fromByteArray(bytes);
+            return new ArrayList<>(Arrays.asList(operations));
+        } catch (RuntimeException e) {
+            throw new IOException("Could not read batch at position " + position + " of journal in " + directory.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Acknowledge that a batch has been processed, so that it doesn't have to be kept in the journal any longer.
+     *
+     * @param position of the batch.
+     * @throws IOException if the acknowledgement can't be written.
+     */
+    public synchronized void acknowledge(long position) throws IOException {
+        Segment segment = segment(position);
+        int offset = offset(position);
+
+        if (segment.buffer.get(offset + 4) == ACKNOWLEDGED) {
+            return;
+        }
+
+        segment.buffer.put(offset + 4, ACKNOWLEDGED);
+        segment.pending--;
+
+        if (segment.pending == 0 && segment != current) {
+            deleteSegment(segment);
+        }
+    }
+
+    /**
+     * Force all changes of the journal to the storage device.
+     */
+    public synchronized void flush() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * @return number of segment files the journal currently consists of.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Flush and close the journal. Batches that have not been acknowledged are recovered when a journal is opened in the
+     * same directory next time.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+
+        if (current != null && current.pending == 0) {
+            deleteSegment(current);
+        }
+
+        segments.clear();
+        current = null;
+    }
+
+    private void recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            throw new IOException("Could not list files in " + directory.getAbsolutePath());
+        }
+
+        Arrays.sort(files);
+
+        for (File file : files) {
+            int number = Integer.parseInt(file.getName().substring(SEGMENT_PREFIX.length(), file.getName().length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(number, file, map(file, file.length()));
+
+            int offset = 0;
+            while (offset + HEADER_SIZE <= segment.buffer.capacity()) {
+                int length = segment.buffer.getInt(offset);
+                if (length <= 0 || offset + HEADER_SIZE + length > segment.buffer.capacity()) {
+                    break;
+                }
+
+                if (segment.buffer.get(offset + 4) == PENDING) {
+                    segment.pending++;
+                    recovered.add(position(number, offset));
+                }
+
+                offset += HEADER_SIZE + length;
+            }
+
+            segment.writeOffset = offset;
+            segments.put(number, segment);
+            current = segment;
+        }
+
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment.pending == 0 && segment != current) {
+                deleteSegment(segment);
+            }
+        }
+
+        if (!recovered.isEmpty()) {
+            LOG.info("Recovered " + recovered.size() + " unprocessed batches of operations from journal in " + directory.getAbsolutePath());
+        }
+    }
+
+    private Segment createSegment(int number, int size) throws IOException {
+        if (current != null && current.pending == 0) {
+            deleteSegment(current);
+        }
+
+        File file = new File(directory, String.format("%s%010d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        Segment segment = new Segment(number, file, map(file, size));
+        segments.put(number, segment);
+
+        return segment;
+    }
+
+    private void deleteSegment(Segment segment) throws IOException {
+        segments.remove(segment.number);
+        Files.deleteIfExists(segment.file.toPath());
+    }
+
+    private MappedByteBuffer map(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private Segment segment(long position) throws IOException {
+        Segment segment = segments.get((int) (position >>> 32));
+        if (segment == null) {
+            throw new IOException("No segment for position " + position + " in journal in " + directory.getAbsolutePath());
+        }
+        return segment;
+    }
+
+    private static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    private static int offset(long position) {
+        return (int) position;
+    }
+
+    /**
+     * A single memory-mapped segment file.
+     */
+    private static final class Segment {
+
+        private final int number;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int writeOffset;
+        private int pending;
+
+        private Segment(int number, File file, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.neo4j;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for {@link AdaptiveBatchSize}.
+ */
+public class AdaptiveBatchSizeTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void shouldStartAtMinimum() {
+        assertEquals(10, new AdaptiveBatchSize(10, 1000, 100).getCurrent());
+    }
+
+    @Test
+    public void shouldGrowTowardsTargetOnlyWithBacklog() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(10, 1000, 100);
+
+        //1 ms per 10 tasks, ideal is 1000, but no backlog
+        batchSize.batchFinished(10, MS, 0);
+        assertEquals(10, batchSize.getCurrent());
+
+        //with backlog, grow at most twice per batch
+        batchSize.batchFinished(10, MS, 5000);
+        assertEquals(20, batchSize.getCurrent());
+
+        batchSize.batchFinished(20, 2 * MS, 5000);
+        assertEquals(40, batchSize.getCurrent());
+
+        //not beyond backlog
+        batchSize.batchFinished(40, 4 * MS, 50);
+        assertEquals(50, batchSize.getCurrent());
+
+        for (int i = 0; i < 20; i++) {
+            batchSize.batchFinished(batchSize.getCurrent(), batchSize.getCurrent() * MS / 10, 5000);
+        }
+        assertEquals(1000, batchSize.getCurrent());
+    }
+
+    @Test
+    public void shouldShrinkImmediatelyWhenTooSlow() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(10, 1000, 100);
+
+        for (int i = 0; i < 20; i++) {
+            batchSize.batchFinished(batchSize.getCurrent(), batchSize.getCurrent() * MS / 10, 5000);
+        }
+        assertEquals(1000, batchSize.getCurrent());
+
+        //suddenly 1 ms per task
+        for (int i = 0; i < 10; i++) {
+            batchSize.batchFinished(batchSize.getCurrent(), batchSize.getCurrent() * MS, 5000);
+        }
+        assertEquals(100, batchSize.getCurrent(), 5);
+
+        //never below minimum
+        batchSize.batchFinished(batchSize.getCurrent(), 100_000 * MS, 5000);
+        assertEquals(10, batchSize.getCurrent());
+    }
+}
@@ -18,14 +18,19 @@ package com.graphaware.writer.neo4j;
 
 import com.graphaware.common.util.IterableUtils;
 import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
+import com.graphaware.writer.service.OverflowPolicy;
 import org.junit.Test;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -255,6 +260,104 @@ public class BatchWriterTest extends EmbeddedDatabaseIntegrationTest {
         }
     }
 
+    @Test
+    public void adaptiveWriterShouldExecuteAllTasksWithinBatchSizeBounds() throws InterruptedException {
+        BatchWriter adaptiveWriter = new BatchWriter(getDatabase(), 10_000, new AdaptiveBatchSize(5, 50, 100), OverflowPolicy.dropNewest());
+        adaptiveWriter.start();
+
+        for (int i = 0; i < 1000; i++) {
+            adaptiveWriter.write(() -> getDatabase().createNode());
+        }
+
+        adaptiveWriter.stop();
+
+        assertTrue(adaptiveWriter.getCurrentBatchSize() >= 5);
+        assertTrue(adaptiveWriter.getCurrentBatchSize() <= 50);
+        assertEquals(adaptiveWriter.getCurrentBatchSize(), adaptiveWriter.getMetrics().getCurrentBatchSize());
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(1000, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void submittedTasksShouldCompleteFutures() throws Exception {
+        CompletableFuture<Long> first = writer.submit(() -> getDatabase().createNode().getId(), "test");
+        CompletableFuture<Long> second = writer.submit(() -> getDatabase().createNode().getId(), "test");
+
+        assertNotEquals(first.get(1, TimeUnit.SECONDS), second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void submittedTasksShouldFailWhenTheirBatchIsRolledBack() throws Exception {
+        try (Transaction tx = getDatabase().beginTx()) {
+            getDatabase().createNode().createRelationshipTo(getDatabase().createNode(), RelationshipType.withName("test"));
+            tx.success();
+        }
+
+        writer.stop();
+        writer = new BatchWriter(getDatabase());
+
+        CompletableFuture<Long> created = writer.submit(() -> getDatabase().createNode().getId(), "create");
+        CompletableFuture<Object> deleted = writer.submit(() -> {
+            getDatabase().getNodeById(0).delete();
+            return null;
+        }, "delete");
+
+        writer.start();
+
+        for (CompletableFuture<?> future : Arrays.asList(created, deleted)) {
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                //expected
+            }
+        }
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(2, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void rolledBackBatchesShouldNotAdaptBatchSize() throws Exception {
+        try (Transaction tx = getDatabase().beginTx()) {
+            getDatabase().createNode().createRelationshipTo(getDatabase().createNode(), RelationshipType.withName("test"));
+            tx.success();
+        }
+
+        final AtomicInteger finished = new AtomicInteger();
+        BatchWriter adaptiveWriter = new BatchWriter(getDatabase(), 100, new AdaptiveBatchSize(5, 50, 100) {
+            @Override
+            public void batchFinished(int size, long latencyNanos, int queueDepth) {
+                finished.incrementAndGet();
+                super.batchFinished(size, latencyNanos, queueDepth);
+            }
+        }, OverflowPolicy.dropNewest());
+
+        CompletableFuture<Object> deleted = adaptiveWriter.submit(() -> {
+            getDatabase().getNodeById(0).delete();
+            return null;
+        }, "delete");
+
+        adaptiveWriter.start();
+
+        try {
+            deleted.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            //expected
+        }
+
+        adaptiveWriter.stop();
+
+        assertEquals(0, finished.get());
+        assertEquals(5, adaptiveWriter.getCurrentBatchSize());
+    }
+
     private void waitABit() {
         try {
             Thread.sleep(200);
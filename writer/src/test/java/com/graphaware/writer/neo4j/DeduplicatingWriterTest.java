@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.neo4j;
+
+import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link DeduplicatingWriter}.
+ */
+public class DeduplicatingWriterTest extends EmbeddedDatabaseIntegrationTest {
+
+    private DeduplicatingWriter writer;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        writer = new DeduplicatingWriter(getDatabase());
+        writer.start();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        release.countDown();
+        writer.stop();
+        super.tearDown();
+    }
+
+    @Test
+    public void latestTaskWithSameKeyShouldWin() {
+        blockWriter();
+
+        for (int i = 0; i < 100; i++) {
+            writer.write("score", record("score-" + i), "score");
+        }
+
+        release.countDown();
+        writer.stop();
+
+        assertEquals(Collections.singletonList("score-99"), executed);
+        assertEquals(99, writer.getSupersededCount());
+    }
+
+    @Test
+    public void tasksWithDifferentKeysShouldAllBeExecuted() {
+        blockWriter();
+
+        for (int i = 0; i < 10; i++) {
+            writer.write("a", record("a-" + i), "a");
+            writer.write("b", record("b-" + i), "b");
+        }
+
+        release.countDown();
+        writer.stop();
+
+        assertEquals(2, executed.size());
+        assertTrue(executed.contains("a-9"));
+        assertTrue(executed.contains("b-9"));
+    }
+
+    @Test
+    public void tasksWithoutKeyShouldNeverBeSuperseded() {
+        blockWriter();
+
+        for (int i = 0; i < 10; i++) {
+            writer.write(record("task-" + i), "task");
+        }
+
+        release.countDown();
+        writer.stop();
+
+        assertEquals(10, executed.size());
+        assertEquals(0, writer.getSupersededCount());
+    }
+
+    @Test
+    public void taskShouldBeQueuedAgainOnceTakenFromQueue() throws InterruptedException {
+        writer.write("score", record("first"), "score");
+        waitFor(1);
+
+        writer.write("score", record("second"), "score");
+        waitFor(2);
+
+        assertEquals(2, executed.size());
+        assertEquals(0, writer.getSupersededCount());
+    }
+
+    private void blockWriter() {
+        final CountDownLatch blocked = new CountDownLatch(1);
+
+        writer.write(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "blocking");
+
+        try {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                getDatabase().createNode().setProperty("name", name);
+                executed.add(name);
+            }
+        };
+    }
+
+    private void waitFor(int tasks) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executed.size() < tasks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.neo4j.graphdb.Transaction;
 
 import java.io.IOException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -99,4 +100,30 @@ public class DefaultWriterTest extends EmbeddedDatabaseIntegrationTest {
             }
         }, "test", 10);
     }
+
+    @Test
+    public void submittedTaskShouldCompleteFuture() throws Exception {
+        CompletableFuture<Boolean> result = writer.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                getDatabase().createNode();
+                return true;
+            }
+        }, "test");
+
+        assertTrue(result.isDone());
+        assertTrue(result.get());
+    }
+
+    @Test
+    public void failedSubmittedTaskShouldCompleteFutureExceptionally() {
+        CompletableFuture<Boolean> result = writer.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                throw new IOException("Deliberate Testing Exception");
+            }
+        }, "test");
+
+        assertTrue(result.isCompletedExceptionally());
+    }
 }
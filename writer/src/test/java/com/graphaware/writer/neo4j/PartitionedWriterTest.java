@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.neo4j;
+
+import com.graphaware.common.util.IterableUtils;
+import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
+import com.graphaware.writer.service.OverflowPolicy;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.DeadlockDetectedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link PartitionedWriter}.
+ */
+public class PartitionedWriterTest extends EmbeddedDatabaseIntegrationTest {
+
+    private PartitionedWriter writer;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        writer = new PartitionedWriter(getDatabase(), 4, 1000, 3, OverflowPolicy.block(10_000));
+        writer.start();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        writer.stop();
+        super.tearDown();
+    }
+
+    @Test
+    public void shouldExecuteRunnable() {
+        writer.write(new Runnable() {
+            @Override
+            public void run() {
+                getDatabase().createNode();
+            }
+        });
+
+        waitABit();
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(1, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void sameKeyAlwaysMapsToSameLane() {
+        assertEquals(0, writer.laneIndex(null));
+        for (int i = 0; i < 100; i++) {
+            String key = "key" + i;
+            int lane = writer.laneIndex(key);
+            assertTrue(lane >= 0 && lane < writer.getLanes());
+            assertEquals(lane, writer.laneIndex(new String(key)));
+        }
+    }
+
+    @Test
+    public void tasksWithSameKeyAreExecutedInOrder() {
+        final Map<String, List<Integer>> executed = new HashMap<>();
+        for (int k = 0; k < 10; k++) {
+            executed.put("key" + k, Collections.synchronizedList(new ArrayList<Integer>()));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            for (int k = 0; k < 10; k++) {
+                final String key = "key" + k;
+                final int sequence = i;
+                writer.write(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        getDatabase().createNode();
+                        executed.get(key).add(sequence);
+                        return null;
+                    }
+                }, key, 0);
+            }
+        }
+
+        writer.stop();
+
+        for (List<Integer> sequences : executed.values()) {
+            assertEquals(100, sequences.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, (int) sequences.get(i));
+            }
+        }
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(1000, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void deadlockedTaskShouldBeRetried() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        Boolean result = writer.write(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                getDatabase().createNode();
+                if (attempts.incrementAndGet() < 3) {
+                    throw new DeadlockDetectedException("Deliberate Testing Deadlock");
+                }
+                return true;
+            }
+        }, "test", 1000);
+
+        assertTrue(result);
+        assertEquals(3, attempts.get());
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(1, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void deadlockedTaskShouldFailWhenRetriesAreExhausted() {
+        writer.write(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                throw new DeadlockDetectedException("Deliberate Testing Deadlock");
+            }
+        }, "test", 1000);
+    }
+
+    private void waitABit() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -19,16 +19,27 @@ package com.graphaware.writer.neo4j;
 import com.graphaware.common.util.IterableUtils;
 import com.graphaware.test.integration.DatabaseIntegrationTest;
 import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
+import com.graphaware.writer.service.OverflowPolicy;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -37,6 +48,9 @@ import static org.junit.Assert.*;
  */
 public class TxPerTaskWriterTest extends EmbeddedDatabaseIntegrationTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private Neo4jWriter writer;
 
     @Override
@@ -296,6 +310,248 @@ public class TxPerTaskWriterTest extends EmbeddedDatabaseIntegrationTest {
         }
     }
 
+    @Test
+    public void tasksCanBeCoalescedIntoFewerTransactions() throws InterruptedException {
+        final AtomicInteger commits = new AtomicInteger();
+        getDatabase().registerTransactionEventHandler(new TransactionEventHandler.Adapter<Void>() {
+            @Override
+            public void afterCommit(TransactionData data, Void state) {
+                commits.incrementAndGet();
+            }
+        });
+
+        writer.stop();
+        writer = new TxPerTaskWriter(getDatabase(), 1000, OverflowPolicy.block(10_000), 100, 1000);
+
+        final Callable<Long> task = new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return getDatabase().createNode().getId();
+            }
+        };
+
+        for (int i = 0; i < 500; i++) {
+            writer.write(task, "test", 0);
+        }
+
+        writer.start();
+        Long lastId = writer.write(task, "test", 1000);
+        writer.stop();
+
+        assertNotNull(lastId);
+        assertTrue(commits.get() < 500);
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(501, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void failingTaskShouldNotAffectOtherCoalescedTasks() throws InterruptedException {
+        writer.stop();
+        writer = new TxPerTaskWriter(getDatabase(), 1000, OverflowPolicy.block(10_000), 100, 1000);
+
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                getDatabase().createNode();
+            }
+        };
+
+        for (int i = 0; i < 10; i++) {
+            writer.write(task);
+        }
+        writer.write(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                getDatabase().createNode();
+                throw new IOException("Deliberate Testing Exception");
+            }
+        }, "test", 0);
+        for (int i = 0; i < 10; i++) {
+            writer.write(task);
+        }
+
+        writer.start();
+
+        try {
+            writer.write(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    throw new RuntimeException("Deliberate Testing Exception");
+                }
+            }, "test", 1000);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("Deliberate Testing Exception"));
+        }
+
+        writer.stop();
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(20, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void submittedTaskShouldCompleteFuture() throws Exception {
+        CompletableFuture<Boolean> result = writer.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                getDatabase().createNode();
+                return true;
+            }
+        }, "test");
+
+        assertTrue(result.get(1, TimeUnit.SECONDS));
+
+        try (Transaction tx = getDatabase().beginTx()) {
+            assertEquals(1, IterableUtils.countNodes(getDatabase()));
+            tx.success();
+        }
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void failedSubmittedTaskShouldCompleteFutureExceptionally() throws Exception {
+        writer.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                throw new IOException("Deliberate Testing Exception");
+            }
+        }, "test").get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void submittedCoalescedTasksShouldCompleteFutures() throws Exception {
+        writer.stop();
+        writer = new TxPerTaskWriter(getDatabase(), 1000, OverflowPolicy.block(10_000), 100, 1000);
+
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(writer.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return getDatabase().createNode().getId();
+                }
+            }, "test"));
+        }
+
+        writer.start();
+
+        for (CompletableFuture<Long> result : results) {
+            assertNotNull(result.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void submittedTaskShouldBeRejectedWhenQueueIsFull() {
+        writer.stop();
+        writer = new TxPerTaskWriter(getDatabase(), 2);
+
+        CompletableFuture<?> result = null;
+        for (int i = 0; i < 10; i++) {
+            result = writer.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return null;
+                }
+            }, "test");
+        }
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    public void awaitedTasksShouldNotBeSpilled() throws Exception {
+        writer.stop();
+        writer = new TxPerTaskWriter(getDatabase(), 1, OverflowPolicy.spill(temporaryFolder.getRoot(), 50));
+        CountingTask.EXECUTED.set(0);
+
+        writer.write(new CountingTask(), "queued", 0);
+        writer.write(new CountingTask(), "spilled", 0);
+        CompletableFuture<Integer> rejected = writer.submit(new CountingTask(), "rejected");
+        assertNull(writer.write(new CountingTask(), "timed-out", 10));
+
+        assertTrue(rejected.isCompletedExceptionally());
+
+        writer.start();
+
+        assertEquals(3, (int) writer.submit(new CountingTask(), "submitted").get(5, TimeUnit.SECONDS));
+        assertEquals(4, (int) writer.write(new CountingTask(), "awaited", 5000));
+    }
+
+    @Test
+    public void serializableRunnablesShouldBeSpilledAndReplayed() throws InterruptedException {
+        writer.stop();
+        writer = new TxPerTaskWriter(getDatabase(), 1, OverflowPolicy.spill(temporaryFolder.getRoot(), 50));
+        CountingRunnable.EXECUTED.set(0);
+
+        for (int i = 0; i < 5; i++) {
+            writer.write(new CountingRunnable(), "runnable" + i);
+        }
+
+        assertEquals(0, ((TxPerTaskWriter) writer).getMetrics().getDroppedCount());
+
+        writer.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (CountingRunnable.EXECUTED.get() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(5, CountingRunnable.EXECUTED.get());
+    }
+
+    @Test
+    public void metricsShouldBeRecorded() {
+        writer.stop();
+        TxPerTaskWriter writer = new TxPerTaskWriter(getDatabase(), 2);
+        this.writer = writer;
+
+        for (int i = 0; i < 5; i++) {
+            writer.write(new Runnable() {
+                @Override
+                public void run() {
+                    getDatabase().createNode();
+                }
+            });
+        }
+
+        assertEquals(2, writer.getMetrics().getQueueDepth());
+        assertEquals(2, writer.getMetrics().getEnqueuedCount());
+        assertEquals(3, writer.getMetrics().getDroppedCount());
+
+        writer.start();
+        waitABit();
+
+        assertEquals(0, writer.getMetrics().getQueueDepth());
+        assertEquals(2, writer.getMetrics().getDequeuedCount());
+        assertEquals(2, writer.getMetrics().getTimeInQueue().getCount());
+        assertEquals(2, writer.getMetrics().getBatchSizes().getMax());
+    }
+
+    private static class CountingTask implements Callable<Integer>, Serializable {
+
+        private static final AtomicInteger EXECUTED = new AtomicInteger();
+
+        @Override
+        public Integer call() {
+            return EXECUTED.incrementAndGet();
+        }
+    }
+
+    private static class CountingRunnable implements Runnable, Serializable {
+
+        private static final AtomicInteger EXECUTED = new AtomicInteger();
+
+        @Override
+        public void run() {
+            EXECUTED.incrementAndGet();
+        }
+    }
+
     private void waitABit() {
         try {
             Thread.sleep(200);
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link OverflowPolicy} handling in {@link QueueBackedScheduledService}.
+ */
+public class OverflowPolicyTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private TestService service;
+
+    @After
+    public void tearDown() {
+        if (service != null && service.isRunning()) {
+            service.release();
+            service.stop();
+        }
+    }
+
+    @Test
+    public void newestTasksShouldBeDroppedByDefault() throws InterruptedException {
+        service = blockedService(new TestService(2, OverflowPolicy.dropNewest()));
+
+        assertTrue(service.offer(1));
+        assertTrue(service.offer(2));
+        assertFalse(service.offer(3));
+
+        service.release();
+        service.stop();
+
+        assertEquals(asList(0, 1, 2), service.processed);
+    }
+
+    @Test
+    public void oldestTasksShouldBeDroppedWhenConfigured() throws InterruptedException {
+        service = blockedService(new TestService(2, OverflowPolicy.dropOldest()));
+
+        assertTrue(service.offer(1));
+        assertTrue(service.offer(2));
+        assertTrue(service.offer(3));
+
+        service.release();
+        service.stop();
+
+        assertEquals(asList(0, 2, 3), service.processed);
+        assertEquals(asList(1), service.dropped);
+    }
+
+    @Test
+    public void offerShouldBlockUntilTimeoutWhenConfigured() throws InterruptedException {
+        service = blockedService(new TestService(1, OverflowPolicy.block(50)));
+
+        assertTrue(service.offer(1));
+
+        long start = System.currentTimeMillis();
+        assertFalse(service.offer(2));
+        assertTrue(System.currentTimeMillis() - start >= 50);
+
+        service.release();
+        service.stop();
+
+        assertEquals(asList(0, 1), service.processed);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void callerRunsShouldNotBeSupportedByDefault() throws InterruptedException {
+        service = blockedService(new TestService(1, OverflowPolicy.callerRuns()));
+
+        assertTrue(service.offer(1));
+        service.offer(2);
+    }
+
+    @Test
+    public void tasksShouldBeSpilledAndReplayedInOrder() throws InterruptedException {
+        service = blockedService(new TestService(2, OverflowPolicy.spill(temporaryFolder.getRoot())));
+
+        for (int i = 1; i < 10; i++) {
+            assertTrue(service.offer(i));
+        }
+
+        assertEquals(1, temporaryFolder.getRoot().list().length);
+
+        service.release();
+        service.stop();
+
+        assertEquals(asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), service.processed);
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+
+    private TestService blockedService(TestService service) throws InterruptedException {
+        service.start();
+        assertTrue(service.offer(0));
+        assertTrue(service.blocked.await(5, TimeUnit.SECONDS));
+        return service;
+    }
+
+    private static List<Integer> asList(Integer... values) {
+        List<Integer> result = new ArrayList<>();
+        Collections.addAll(result, values);
+        return result;
+    }
+
+    /**
+     * Service that blocks processing of the first task until released.
+     */
+    private static class TestService extends QueueBackedScheduledService<Integer> {
+
+        private final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+        private final List<Integer> dropped = Collections.synchronizedList(new ArrayList<Integer>());
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private TestService(int queueCapacity, OverflowPolicy overflowPolicy) {
+            super(queueCapacity, overflowPolicy);
+        }
+
+        void release() {
+            release.countDown();
+        }
+
+        @Override
+        protected void processQueue() throws Exception {
+            Integer task;
+            while ((task = queue.poll()) != null) {
+                if (processed.isEmpty()) {
+                    blocked.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                processed.add(task);
+            }
+        }
+
+        @Override
+        protected void dropped(Integer task) {
+            dropped.add(task);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link QueueBackedScheduledService}.
+ */
+public class QueueBackedScheduledServiceTest {
+
+    @Test
+    public void subclassOverridingRunOneIterationShouldProcessQueueIncludingAtShutdown() {
+        LegacyService service = new LegacyService();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(service.offer(i));
+        }
+
+        service.start();
+        service.stop();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, service.processed);
+    }
+
+    /**
+     * Service implemented against the API before {@link QueueBackedScheduledService#processQueue()} was introduced.
+     */
+    private static class LegacyService extends QueueBackedScheduledService<Integer> {
+
+        private final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+
+        private LegacyService() {
+            super(100);
+        }
+
+        @Override
+        protected void runOneIteration() throws Exception {
+            Integer task;
+            while ((task = queue.poll()) != null) {
+                processed.add(task);
+            }
+        }
+    }
+}
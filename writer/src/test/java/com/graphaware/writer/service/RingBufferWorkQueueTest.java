@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.writer.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link RingBufferWorkQueue}.
+ */
+public class RingBufferWorkQueueTest {
+
+    @Test
+    public void shouldRespectCapacity() {
+        WorkQueue<Integer> queue = new RingBufferWorkQueue<>(3);
+
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertEquals(3, queue.size());
+
+        assertEquals(1, (int) queue.poll());
+        assertTrue(queue.offer(4));
+        assertFalse(queue.offer(5));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drainTo(drained));
+        assertEquals(3, drained.size());
+        assertEquals(2, (int) drained.get(0));
+        assertEquals(4, (int) drained.get(2));
+
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void timedOfferShouldGiveUpWhenFull() throws InterruptedException {
+        WorkQueue<Integer> queue = new RingBufferWorkQueue<>(1);
+
+        assertTrue(queue.offer(1, 10, TimeUnit.MILLISECONDS));
+        assertFalse(queue.offer(2, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldPreserveOrderPerProducerWithConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 100_000;
+        final WorkQueue<long[]> queue = new RingBufferWorkQueue<>(64);
+        final CountDownLatch done = new CountDownLatch(producers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < perProducer; i++) {
+                            assertTrue(queue.offer(new long[]{producer, i}, 1, TimeUnit.MINUTES));
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        long[] last = new long[producers];
+        for (int p = 0; p < producers; p++) {
+            last[p] = -1;
+        }
+
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] task = queue.poll();
+            if (task == null) {
+                continue;
+            }
+            assertEquals(last[(int) task[0]] + 1, task[1]);
+            last[(int) task[0]] = task[1];
+            received++;
+        }
+
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        assertTrue(queue.isEmpty());
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link SpillLog}.
+ */
+public class SpillLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SpillLog log;
+
+    @Before
+    public void setUp() {
+        log = new SpillLog(temporaryFolder.getRoot());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        log.close();
+    }
+
+    @Test
+    public void objectsShouldBeReadInOrder() throws IOException {
+        log.append("one");
+        log.append("two");
+
+        assertEquals(2, log.size());
+        assertEquals("one", log.poll());
+        assertEquals("two", log.poll());
+        assertNull(log.poll());
+        assertTrue(log.isEmpty());
+    }
+
+    @Test
+    public void restOfTruncatedLogShouldBeDiscarded() throws IOException {
+        log.append("one");
+        log.append("two");
+        log.append("three");
+
+        File[] files = temporaryFolder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        try (RandomAccessFile file = new RandomAccessFile(files[0], "rw")) {
+            file.setLength(10);
+        }
+
+        try {
+            log.poll();
+            fail();
+        } catch (IOException e) {
+            //expected
+        }
+
+        assertTrue(log.isEmpty());
+        assertNull(log.poll());
+
+        log.append("four");
+        assertEquals("four", log.poll());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for waiting for tasks in {@link QueueBackedScheduledService}, including {@link LingeringWaitStrategy}.
+ */
+public class WaitStrategyTest {
+
+    private TestService service;
+
+    @After
+    public void tearDown() {
+        if (service != null && service.isRunning()) {
+            service.stop();
+        }
+    }
+
+    @Test
+    public void idleServiceShouldNotWakeUp() throws InterruptedException {
+        service = new TestService(new ParkingWaitStrategy());
+        service.start();
+
+        Thread.sleep(300);
+
+        assertEquals(0, service.iterations.get());
+    }
+
+    @Test
+    public void idleServiceShouldStopPromptly() {
+        service = new TestService(new ParkingWaitStrategy());
+        service.start();
+
+        long start = System.currentTimeMillis();
+        service.stop();
+
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void offeredTaskShouldWakeUpIdleService() throws InterruptedException {
+        service = new TestService(new SpinThenParkWaitStrategy());
+        service.start();
+
+        Thread.sleep(100);
+        service.offer(1);
+
+        assertTrue(service.awaitProcessed(1, 1000));
+        assertEquals(Collections.singletonList(1), service.batches);
+    }
+
+    @Test
+    public void lingeringShouldLetTasksAccumulate() throws InterruptedException {
+        service = new TestService(new LingeringWaitStrategy(new ParkingWaitStrategy(), 500, TimeUnit.MILLISECONDS));
+        service.start();
+
+        service.offer(1);
+        service.offer(2);
+        service.offer(3);
+
+        assertTrue(service.awaitProcessed(3, 2000));
+        assertEquals(Collections.singletonList(3), service.batches);
+    }
+
+    @Test
+    public void lingeringShouldStopWhenEnoughTasksAccumulate() throws InterruptedException {
+        service = new TestService(new LingeringWaitStrategy(new ParkingWaitStrategy(), 1, TimeUnit.HOURS, 3));
+        service.start();
+
+        service.offer(1);
+        service.offer(2);
+        service.offer(3);
+
+        assertTrue(service.awaitProcessed(3, 1000));
+        assertEquals(Collections.singletonList(3), service.batches);
+    }
+
+    /**
+     * Service that records the sizes of the batches it processes.
+     */
+    private static class TestService extends QueueBackedScheduledService<Integer> {
+
+        private final AtomicInteger iterations = new AtomicInteger();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+
+        private TestService(WaitStrategy waitStrategy) {
+            super(new RingBufferWorkQueue<Integer>(100), waitStrategy);
+        }
+
+        boolean awaitProcessed(int tasks, long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (processed.get() < tasks && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            return processed.get() >= tasks;
+        }
+
+        @Override
+        protected void processQueue() throws Exception {
+            iterations.incrementAndGet();
+
+            List<Integer> batch = new ArrayList<>();
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                batches.add(batch.size());
+                processed.addAndGet(batch.size());
+            }
+        }
+    }
+}
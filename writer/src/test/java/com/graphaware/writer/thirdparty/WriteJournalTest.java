@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2013-2017 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.writer.thirdparty;
+
+import com.graphaware.common.representation.GraphDetachedNode;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link WriteJournal}.
+ */
+public class WriteJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = temporaryFolder.newFolder("journal");
+    }
+
+    @Test
+    public void appendedOperationsCanBeRead() throws Exception {
+        WriteJournal journal = new WriteJournal(directory);
+
+        long first = journal.append(operations(1));
+        long second = journal.append(operations(2));
+
+        assertEquals(operations(1), new ArrayList<>(journal.read(first)));
+        assertEquals(operations(2), new ArrayList<>(journal.read(second)));
+
+        journal.close();
+    }
+
+    @Test
+    public void unacknowledgedOperationsShouldBeRecovered() throws Exception {
+        WriteJournal journal = new WriteJournal(directory);
+
+        long first = journal.append(operations(1));
+        journal.append(operations(2));
+        journal.append(operations(3));
+        journal.acknowledge(first);
+        journal.close();
+
+        journal = new WriteJournal(directory);
+        List<Long> recovered = journal.getRecovered();
+
+        assertEquals(2, recovered.size());
+        assertEquals(operations(2), new ArrayList<>(journal.read(recovered.get(0))));
+        assertEquals(operations(3), new ArrayList<>(journal.read(recovered.get(1))));
+
+        journal.close();
+    }
+
+    @Test
+    public void acknowledgedSegmentsShouldBeDeleted() throws Exception {
+        WriteJournal journal = new WriteJournal(directory, 512);
+
+        List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            positions.add(journal.append(operations(i)));
+        }
+
+        assertTrue(journal.getSegmentCount() > 1);
+
+        for (long position : positions) {
+            journal.acknowledge(position);
+        }
+
+        assertEquals(1, journal.getSegmentCount());
+
+        journal.close();
+
+        assertEquals(0, directory.listFiles().length);
+        assertTrue(new WriteJournal(directory).getRecovered().isEmpty());
+    }
+
+    @Test
+    public void operationsShouldSurviveOutageAndRestart() throws Exception {
+        FailingWriter failing = new FailingWriter(new WriteJournal(directory, 1024));
+        failing.start();
+
+        for (int i = 0; i < 20; i++) {
+            failing.write(operations(i), "test");
+        }
+
+        Thread.sleep(200);
+        failing.stop();
+
+        assertTrue(failing.attempts > 0);
+
+        RememberingWriter remembering = new RememberingWriter(new WriteJournal(directory, 1024));
+        remembering.start();
+        Thread.sleep(200);
+        remembering.stop();
+
+        assertEquals(20, remembering.remembered.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(operations(i), new ArrayList<>(remembering.remembered.get(i)));
+        }
+
+        assertTrue(new WriteJournal(directory).getRecovered().isEmpty());
+    }
+
+    private List<WriteOperation<?>> operations(long id) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("name", "node" + id);
+
+        return Collections.<WriteOperation<?>>singletonList(new NodeCreated<>(new GraphDetachedNode(id, new String[]{"Label"}, properties)));
+    }
+
+    private static class FailingWriter extends BaseThirdPartyWriter {
+
+        private int attempts;
+
+        private FailingWriter(WriteJournal journal) {
+            super(5, journal);
+        }
+
+        @Override
+        protected void processOperations(List<Collection<WriteOperation<?>>> operations) {
+            attempts++;
+            retry(operations);
+        }
+    }
+
+    private static class RememberingWriter extends BaseThirdPartyWriter {
+
+        private final List<Collection<WriteOperation<?>>> remembered = new ArrayList<>();
+
+        private RememberingWriter(WriteJournal journal) {
+            super(5, journal);
+        }
+
+        @Override
+        protected void processOperations(List<Collection<WriteOperation<?>>> operations) {
+            remembered.addAll(operations);
+        }
+    }
+}